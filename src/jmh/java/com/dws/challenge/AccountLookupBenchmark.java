@@ -0,0 +1,84 @@
+package com.dws.challenge;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * {@link AccountsService#getAccount} on existing accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class AccountLookupBenchmark {
+
+	@Param({ AccountSampler.UNIFORM, AccountSampler.ZIPF })
+	public String distribution;
+
+	@Param({ "in-memory" })
+	public String store;
+
+	@Param({ "100000" })
+	public int accounts;
+
+	private ConfigurableApplicationContext context;
+
+	private AccountsService accountsService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("challenge.accounts.store=" + store);
+		BenchmarkApplication.createAccounts(context, accounts);
+		accountsService = context.getBean(AccountsService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Ids {
+
+		private final String[] ids = new String[1 << 14];
+
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(AccountLookupBenchmark benchmark) {
+			AccountSampler sampler = new AccountSampler(benchmark.distribution, benchmark.accounts,
+					Thread.currentThread().getId());
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = AccountSampler.id(sampler.next());
+			}
+		}
+
+		String next() {
+			return ids[next++ & (ids.length - 1)];
+		}
+	}
+
+	@Benchmark
+	public Account getAccount(Ids ids) {
+		return accountsService.getAccount(ids.next());
+	}
+}
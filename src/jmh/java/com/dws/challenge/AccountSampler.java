@@ -0,0 +1,63 @@
+package com.dws.challenge;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Picks account indexes either uniformly or from a Zipf distribution with
+ * exponent 1, where account 0 is the hottest. Samples are drawn up front so
+ * the random number generator stays out of the measurement.
+ */
+final class AccountSampler {
+
+	static final String UNIFORM = "uniform";
+
+	static final String ZIPF = "zipf";
+
+	private final SplittableRandom random;
+
+	private final int accounts;
+
+	private final double[] cumulative;
+
+	AccountSampler(String distribution, int accounts, long seed) {
+		this.random = new SplittableRandom(seed);
+		this.accounts = accounts;
+		if (ZIPF.equals(distribution)) {
+			cumulative = new double[accounts];
+			double sum = 0;
+			for (int i = 0; i < accounts; i++) {
+				sum += 1.0 / (i + 1);
+				cumulative[i] = sum;
+			}
+			for (int i = 0; i < accounts; i++) {
+				cumulative[i] /= sum;
+			}
+		} else if (UNIFORM.equals(distribution)) {
+			cumulative = null;
+		} else {
+			throw new IllegalArgumentException("Unknown distribution " + distribution);
+		}
+	}
+
+	static String id(int index) {
+		return "Id-" + index;
+	}
+
+	int next() {
+		if (cumulative == null) {
+			return random.nextInt(accounts);
+		}
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index < 0 ? -index - 1 : index, accounts - 1);
+	}
+
+	/**
+	 * @return a different account than {@code from}, drawn from the same
+	 *         distribution
+	 */
+	int nextOtherThan(int from) {
+		int to = next();
+		return to != from ? to : (from + 1) % accounts;
+	}
+}
@@ -0,0 +1,96 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.domain.BatchTransferItemResult;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.service.TransactionService;
+
+/**
+ * {@link TransactionService#transferBatch} for growing batch sizes. The score
+ * is in batches, multiply by {@code batchSize} to compare it with
+ * {@link TransferBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class BatchTransferBenchmark {
+
+	@Param({ "1", "16", "256" })
+	public int batchSize;
+
+	@Param({ AccountSampler.UNIFORM })
+	public String distribution;
+
+	@Param({ "10000" })
+	public int accounts;
+
+	private ConfigurableApplicationContext context;
+
+	private TransactionService transactionService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start();
+		BenchmarkApplication.createAccounts(context, accounts);
+		transactionService = context.getBean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Batches {
+
+		private final List<List<TransferRequest>> batches = new ArrayList<>();
+
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(BatchTransferBenchmark benchmark) {
+			AccountSampler sampler = new AccountSampler(benchmark.distribution, benchmark.accounts,
+					Thread.currentThread().getId());
+			for (int b = 0; b < 64; b++) {
+				List<TransferRequest> batch = new ArrayList<>(benchmark.batchSize);
+				for (int i = 0; i < benchmark.batchSize; i++) {
+					int from = sampler.next();
+					batch.add(new TransferRequest(AccountSampler.id(from),
+							AccountSampler.id(sampler.nextOtherThan(from)), BigDecimal.ONE));
+				}
+				batches.add(batch);
+			}
+		}
+
+		List<TransferRequest> next() {
+			return batches.get(next++ & (batches.size() - 1));
+		}
+	}
+
+	@Benchmark
+	public List<BatchTransferItemResult> transferBatch(Batches batches) {
+		return transactionService.transferBatch(batches.next()).join();
+	}
+}
@@ -0,0 +1,58 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Starts the application without the web layer, so benchmarks go through the
+ * same beans and configuration as a request would. Benchmarks of the network
+ * paths start it with the web layer on a free port.
+ */
+final class BenchmarkApplication {
+
+	static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000");
+
+	private BenchmarkApplication() {
+	}
+
+	static ConfigurableApplicationContext start(String... properties) {
+		return new SpringApplicationBuilder(ChallengeApplication.class).web(WebApplicationType.NONE)
+				.bannerMode(Banner.Mode.OFF)
+				.properties("logging.level.root=WARN")
+				.properties(properties)
+				.run();
+	}
+
+	/**
+	 * @return context listening on the port held by {@code local.server.port}
+	 */
+	static ConfigurableApplicationContext startWeb(String... properties) {
+		return startWeb(WebApplicationType.SERVLET, properties);
+	}
+
+	/**
+	 * @param type {@link WebApplicationType#REACTIVE} for the WebFlux controllers
+	 *             on Netty
+	 */
+	static ConfigurableApplicationContext startWeb(WebApplicationType type, String... properties) {
+		return new SpringApplicationBuilder(ChallengeApplication.class).web(type)
+				.bannerMode(Banner.Mode.OFF)
+				.properties("logging.level.root=WARN", "server.port=0")
+				.properties(properties)
+				.run();
+	}
+
+	static void createAccounts(ConfigurableApplicationContext context, int accounts) {
+		AccountsService accountsService = context.getBean(AccountsService.class);
+		for (int i = 0; i < accounts; i++) {
+			accountsService.createAccount(new Account(AccountSampler.id(i), OPENING_BALANCE));
+		}
+	}
+}
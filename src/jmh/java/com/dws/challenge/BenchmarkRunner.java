@@ -0,0 +1,105 @@
+package com.dws.challenge;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the {@code jmh} Gradle task. Takes the usual JMH command line
+ * and runs it once per thread count of {@code -Djmh.threads=1,2,4} (powers of
+ * two up to the number of processors by default), with the GC profiler on
+ * unless other profilers are given. Each pass writes its results to
+ * {@code build/reports/jmh/results-<threads>-threads.json}.
+ *
+ * With {@code -Djmh.minOpsPerSecond=10000} the run fails when a throughput
+ * result falls below that many operations per second, which turns a pass on a
+ * known machine into a performance gate.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Path resultDirectory = Path.of(System.getProperty("jmh.resultDir", "build/reports/jmh"));
+		Files.createDirectories(resultDirectory);
+		String minOpsPerSecond = System.getProperty("jmh.minOpsPerSecond", "");
+		List<String> tooSlow = new ArrayList<>();
+
+		for (int threads : threadCounts(System.getProperty("jmh.threads", ""))) {
+			ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+					.threads(threads)
+					.resultFormat(ResultFormatType.JSON)
+					.result(resultDirectory.resolve("results-" + threads + "-threads.json").toString());
+			if (commandLine.getProfilers().isEmpty()) {
+				options.addProfiler(GCProfiler.class);
+			}
+			if (threads > 1) {
+				// single shot recovery runs replay one directory, they only make sense on one thread
+				options.exclude(JournalRecoveryBenchmark.class.getSimpleName());
+			}
+			Collection<RunResult> results = new Runner(options.build()).run();
+			if (!minOpsPerSecond.isBlank()) {
+				tooSlow.addAll(belowFloor(results, Double.parseDouble(minOpsPerSecond), threads));
+			}
+		}
+		if (!tooSlow.isEmpty()) {
+			tooSlow.forEach(System.err::println);
+			System.exit(1);
+		}
+	}
+
+	private static List<String> belowFloor(Collection<RunResult> results, double minOpsPerSecond, int threads) {
+		List<String> tooSlow = new ArrayList<>();
+		for (RunResult result : results) {
+			BenchmarkParams params = result.getParams();
+			if (params.getMode() != Mode.Throughput) {
+				continue;
+			}
+			double opsPerSecond = result.getPrimaryResult().getScore() * params.getTimeUnit().convert(1, TimeUnit.SECONDS);
+			if (opsPerSecond < minOpsPerSecond) {
+				tooSlow.add(String.format("%s %s on %d threads: %.0f ops/s, expected at least %.0f", params.getBenchmark(),
+						describe(params), threads, opsPerSecond, minOpsPerSecond));
+			}
+		}
+		return tooSlow;
+	}
+
+	private static String describe(BenchmarkParams params) {
+		StringBuilder described = new StringBuilder();
+		for (String key : params.getParamsKeys()) {
+			described.append(described.length() == 0 ? "" : ", ").append(key).append('=').append(params.getParam(key));
+		}
+		return "(" + described + ")";
+	}
+
+	private static List<Integer> threadCounts(String property) {
+		List<Integer> counts = new ArrayList<>();
+		if (!property.isBlank()) {
+			for (String count : property.split(",")) {
+				counts.add(Integer.parseInt(count.trim()));
+			}
+			return counts;
+		}
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads < processors; threads <<= 1) {
+			counts.add(threads);
+		}
+		counts.add(processors);
+		return counts;
+	}
+}
@@ -0,0 +1,154 @@
+package com.dws.challenge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.binary.BinaryProtocol;
+import com.dws.challenge.binary.BinaryTransferServer;
+
+/**
+ * One transfer over localhost through {@code POST /v1/transaction/amount} and
+ * through the binary protocol, first one request at a time and then with
+ * {@link #PIPELINE} requests in flight per connection. Every benchmark thread
+ * has its own HTTP client and its own binary connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class BinaryProtocolBenchmark {
+
+	static final int PIPELINE = 64;
+
+	private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+	@Param({ "10000" })
+	public int accounts;
+
+	private ConfigurableApplicationContext context;
+
+	private int httpPort;
+
+	private int binaryPort;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.startWeb("challenge.binary.enabled=true", "challenge.binary.address=127.0.0.1",
+				"challenge.binary.port=0", "challenge.binary.max-in-flight=" + PIPELINE * 4);
+		BenchmarkApplication.createAccounts(context, accounts);
+		httpPort = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+		binaryPort = context.getBean(BinaryTransferServer.class).getLocalPort();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+		private final HttpRequest[] httpRequests = new HttpRequest[1 << 10];
+
+		private final String[][] transfers = new String[1 << 10][];
+
+		private final ByteBuffer requests = ByteBuffer.allocate(PIPELINE * 64);
+
+		private final ByteBuffer responses = ByteBuffer.allocate(PIPELINE * BinaryProtocol.RESPONSE_BYTES);
+
+		private SocketChannel channel;
+
+		private long requestId;
+
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(BinaryProtocolBenchmark benchmark) throws IOException {
+			AccountSampler sampler = new AccountSampler(AccountSampler.UNIFORM, benchmark.accounts,
+					Thread.currentThread().getId());
+			URI uri = URI.create("http://127.0.0.1:" + benchmark.httpPort + "/v1/transaction/amount");
+			for (int i = 0; i < transfers.length; i++) {
+				int from = sampler.next();
+				transfers[i] = new String[] { AccountSampler.id(from), AccountSampler.id(sampler.nextOtherThan(from)) };
+				httpRequests[i] = HttpRequest.newBuilder(uri).header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString("{\"accountFromId\":\"" + transfers[i][0]
+								+ "\",\"accountToId\":\"" + transfers[i][1] + "\",\"amount\":" + AMOUNT + "}"))
+						.build();
+			}
+			channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", benchmark.binaryPort));
+			channel.socket().setTcpNoDelay(true);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			channel.close();
+		}
+
+		/**
+		 * Writes {@code count} transfer requests and reads their responses
+		 * 
+		 * @return status of the last response read
+		 */
+		byte roundTrip(int count) throws IOException {
+			requests.clear();
+			for (int i = 0; i < count; i++) {
+				String[] transfer = transfers[next++ & (transfers.length - 1)];
+				BinaryProtocol.writeTransfer(requests, requestId++, transfer[0], transfer[1], AMOUNT);
+			}
+			requests.flip();
+			while (requests.hasRemaining()) {
+				channel.write(requests);
+			}
+			responses.clear().limit(count * BinaryProtocol.RESPONSE_BYTES);
+			while (responses.hasRemaining()) {
+				channel.read(responses);
+			}
+			return responses.get(responses.limit() - 10);
+		}
+	}
+
+	@Benchmark
+	public int rest(Client client) throws Exception {
+		return client.http.send(client.httpRequests[client.next++ & (client.httpRequests.length - 1)],
+				HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	@Benchmark
+	public byte binary(Client client) throws IOException {
+		return client.roundTrip(1);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE)
+	public byte binaryPipelined(Client client) throws IOException {
+		return client.roundTrip(PIPELINE);
+	}
+}
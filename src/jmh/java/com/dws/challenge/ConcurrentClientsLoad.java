@@ -0,0 +1,175 @@
+package com.dws.challenge;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Closed-loop load of {@code POST /v1/transaction/amount} from many
+ * concurrent clients, each sending its next transfer as soon as the previous
+ * one is answered, against the servlet build on Tomcat or the reactive build
+ * on Netty. Prints the throughput, latency percentiles, failed requests and the
+ * number of server request threads. Run with
+ * {@code ./gradlew loadTest -PloadStack=reactive -PloadClients=10000}; every
+ * client holds its own connection, so the open file limit must allow twice
+ * the number of clients.
+ */
+public final class ConcurrentClientsLoad {
+
+	private static final int ACCOUNTS = 10_000;
+
+	/**
+	 * Connections per {@link HttpClient}, each client has one selector thread
+	 */
+	private static final int CONNECTIONS_PER_HTTP_CLIENT = 1_000;
+
+	private static final long BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private static final int BUCKETS = 100_000;
+
+	private ConcurrentClientsLoad() {
+	}
+
+	/**
+	 * @param args stack ({@code servlet} or {@code reactive}), clients, seconds
+	 *             of measurement and any further application properties, such
+	 *             as {@code server.tomcat.max-connections=20000}
+	 */
+	public static void main(String[] args) throws Exception {
+		String stack = args.length > 0 ? args[0] : "servlet";
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+		String[] properties = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : new String[0];
+		WebApplicationType type = "reactive".equals(stack) ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET;
+
+		ConfigurableApplicationContext context = BenchmarkApplication.startWeb(type, properties);
+		try {
+			BenchmarkApplication.createAccounts(context, ACCOUNTS);
+			URI uri = URI.create("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+					+ "/v1/transaction/amount");
+			HttpClient[] httpClients = new HttpClient[(clients + CONNECTIONS_PER_HTTP_CLIENT - 1)
+					/ CONNECTIONS_PER_HTTP_CLIENT];
+			for (int i = 0; i < httpClients.length; i++) {
+				httpClients[i] = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+						.connectTimeout(Duration.ofSeconds(30)).build();
+			}
+
+			// the first half of the run warms up both sides and opens the connections
+			Run warmup = new Run(uri, httpClients, clients, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds) / 2);
+			warmup.await();
+			Run run = new Run(uri, httpClients, clients, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds));
+			run.await();
+			int serverThreads = serverThreads();
+
+			System.out.printf("%-8s %,d clients: %,.0f transfers/s, p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, "
+					+ "%,d failed, %d server request threads%n", stack, clients, run.completed.sum() / (double) seconds,
+					run.percentile(0.5), run.percentile(0.99), run.percentile(0.999), run.failed.sum(),
+					serverThreads);
+		} finally {
+			context.close();
+		}
+	}
+
+	/**
+	 * Threads of the Tomcat connector pool or of the Netty event loops
+	 */
+	private static int serverThreads() {
+		int count = 0;
+		for (ThreadInfo thread : ManagementFactory.getThreadMXBean().dumpAllThreads(false, false)) {
+			String name = thread.getThreadName();
+			if (name.startsWith("http-nio-") || name.startsWith("reactor-http-")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static final class Run {
+
+		private final URI uri;
+
+		private final HttpClient[] httpClients;
+
+		private final long deadline;
+
+		private final CountDownLatch done;
+
+		private final LongAdder completed = new LongAdder();
+
+		private final LongAdder failed = new LongAdder();
+
+		private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+
+		Run(URI uri, HttpClient[] httpClients, int clients, long deadline) {
+			this.uri = uri;
+			this.httpClients = httpClients;
+			this.deadline = deadline;
+			this.done = new CountDownLatch(clients);
+			for (int i = 0; i < clients; i++) {
+				send(i, new AccountSampler(AccountSampler.UNIFORM, ACCOUNTS, i));
+			}
+		}
+
+		void await() throws InterruptedException {
+			done.await();
+		}
+
+		/**
+		 * @return latency in milliseconds below which the given fraction of the
+		 *         completed transfers were answered
+		 */
+		double percentile(double fraction) {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += latencies.get(i);
+			}
+			long rank = (long) Math.ceil(total * fraction);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += latencies.get(i);
+				if (seen >= rank) {
+					return (i + 1) * BUCKET_NANOS / 1e6;
+				}
+			}
+			return BUCKETS * BUCKET_NANOS / 1e6;
+		}
+
+		private void send(int client, AccountSampler sampler) {
+			long start = System.nanoTime();
+			if (start - deadline >= 0) {
+				done.countDown();
+				return;
+			}
+			int from = sampler.next();
+			HttpRequest request = HttpRequest.newBuilder(uri).header("Content-Type", "application/json")
+					.timeout(Duration.ofSeconds(60))
+					.POST(HttpRequest.BodyPublishers.ofString("{\"accountFromId\":\"" + AccountSampler.id(from)
+							+ "\",\"accountToId\":\"" + AccountSampler.id(sampler.nextOtherThan(from))
+							+ "\",\"amount\":1}"))
+					.build();
+			httpClients[client % httpClients.length].sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.whenComplete((response, e) -> {
+						if (e == null && response.statusCode() == 202) {
+							completed.increment();
+							long bucket = (System.nanoTime() - start) / BUCKET_NANOS;
+							latencies.incrementAndGet((int) Math.min(BUCKETS - 1, bucket));
+						} else {
+							failed.increment();
+						}
+						send(client, sampler);
+					});
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+/**
+ * {@link AccountsRepositoryInMemory#createAccount} into a store that starts
+ * empty on every iteration, so the map keeps growing as it would during a
+ * bulk load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class CreateAccountBenchmark {
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	private AccountsRepositoryInMemory repository;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		repository = new AccountsRepositoryInMemory();
+	}
+
+	@State(Scope.Thread)
+	public static class Ids {
+
+		private final String prefix = "T" + THREADS.getAndIncrement() + "-";
+
+		private int next;
+
+		String next() {
+			return prefix + next++;
+		}
+	}
+
+	@Benchmark
+	public void createAccount(Ids ids) {
+		repository.createAccount(new Account(ids.next(), BigDecimal.ZERO));
+	}
+}
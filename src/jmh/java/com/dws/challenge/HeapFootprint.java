@@ -0,0 +1,53 @@
+package com.dws.challenge;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryCompact;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.AccountsRepositoryLedger;
+
+/**
+ * Retained heap per account of each store, measured as the used heap after a
+ * full GC with and without the loaded store. Run with
+ * {@code ./gradlew heapFootprint -PfootprintAccounts=10000000}.
+ */
+public final class HeapFootprint {
+
+	private HeapFootprint() {
+	}
+
+	public static void main(String[] args) {
+		int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		measure("in-memory", AccountsRepositoryInMemory::new, accounts);
+		measure("ledger", AccountsRepositoryLedger::new, accounts);
+		measure("compact", AccountsRepositoryCompact::new, accounts);
+	}
+
+	private static void measure(String store, Supplier<AccountsRepository> factory, int accounts) {
+		long before = usedAfterGc();
+		AccountsRepository repository = factory.get();
+		for (int i = 0; i < accounts; i++) {
+			repository.createAccount(new Account(AccountSampler.id(i), new BigDecimal(i % 100_000).movePointLeft(2)));
+		}
+		long after = usedAfterGc();
+		System.out.printf("%-10s %,d accounts: %,d bytes, %.1f bytes per account%n", store, accounts,
+				after - before, (double) (after - before) / accounts);
+		// keeps the store reachable until it has been measured
+		if (repository.getAccount(AccountSampler.id(0)) == null) {
+			throw new IllegalStateException("Account " + AccountSampler.id(0) + " is missing in " + store);
+		}
+	}
+
+	private static long usedAfterGc() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
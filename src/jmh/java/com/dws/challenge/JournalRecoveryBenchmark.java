@@ -0,0 +1,93 @@
+package com.dws.challenge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+/**
+ * Startup time of a journaled in-memory store holding {@code accounts}
+ * accounts and as many transfers, either replaying the whole journal or
+ * loading a snapshot first. Use {@code -p accounts=10000000} for the large
+ * store case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class JournalRecoveryBenchmark {
+
+	private static final int SEGMENT_SIZE = 256 << 20;
+
+	@Param({ "1000000" })
+	public int accounts;
+
+	@Param({ "journal", "snapshot" })
+	public String start;
+
+	private Path directory;
+
+	private TransactionJournal journal;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("journal-recovery");
+		TransactionJournal writer = new TransactionJournal(directory, SEGMENT_SIZE, false);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(1024, writer);
+		for (int i = 0; i < accounts; i++) {
+			repository.createAccount(new Account(AccountSampler.id(i), BenchmarkApplication.OPENING_BALANCE));
+		}
+		for (int i = 0; i < accounts; i++) {
+			repository.transferBalances(new TransferRequest(AccountSampler.id(i),
+					AccountSampler.id((i + 1) % accounts), BigDecimal.ONE));
+		}
+		if ("snapshot".equals(start)) {
+			writer.checkpoint();
+		}
+		writer.close();
+	}
+
+	@Benchmark
+	public AccountsRepositoryInMemory recover() {
+		journal = new TransactionJournal(directory, SEGMENT_SIZE, false);
+		return new AccountsRepositoryInMemory(1024, journal);
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeJournal() throws IOException {
+		journal.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.dws.challenge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * Request and response bodies of a transfer and of an account, bound by the
+ * hand-written codecs ({@code streaming}) or by the reflective bean codecs
+ * Jackson builds when the codec annotations are ignored ({@code bean}). Read
+ * the bytes allocated per request from {@code gc.alloc.rate.norm} of the GC
+ * profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+public class JsonCodecBenchmark {
+
+	private static final byte[] TRANSFER_REQUEST = ("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-5678\","
+			+ "\"amount\":125.50}").getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] ACCOUNT = "{\"accountId\":\"Id-1234\",\"balance\":1000}"
+			.getBytes(StandardCharsets.UTF_8);
+
+	@Param({ "bean", "streaming" })
+	public String codec;
+
+	private ObjectReader transferRequestReader;
+
+	private ObjectReader accountReader;
+
+	private ObjectWriter transferResultWriter;
+
+	private ObjectWriter accountSnapshotWriter;
+
+	private final TransferResult transferResult = new TransferResult();
+
+	private final AccountSnapshot accountSnapshot = new AccountSnapshot("Id-1234", new BigDecimal("874.50"), 1);
+
+	@Setup
+	public void setUp() {
+		ObjectMapper mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		if ("bean".equals(codec)) {
+			mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+
+				@Override
+				public Object findSerializer(Annotated annotated) {
+					return null;
+				}
+
+				@Override
+				public Object findDeserializer(Annotated annotated) {
+					return null;
+				}
+			});
+		}
+		transferRequestReader = mapper.readerFor(TransferRequest.class);
+		accountReader = mapper.readerFor(Account.class);
+		transferResultWriter = mapper.writerFor(TransferResult.class);
+		accountSnapshotWriter = mapper.writerFor(AccountSnapshot.class);
+		transferResult.setAccountFromId("Id-1234");
+		transferResult.setBalanceAfterTransfer(new BigDecimal("874.50"));
+	}
+
+	@Benchmark
+	public TransferRequest readTransferRequest() throws IOException {
+		return transferRequestReader.readValue(TRANSFER_REQUEST);
+	}
+
+	@Benchmark
+	public Account readAccount() throws IOException {
+		return accountReader.readValue(ACCOUNT);
+	}
+
+	@Benchmark
+	public byte[] writeTransferResult() throws IOException {
+		return transferResultWriter.writeValueAsBytes(transferResult);
+	}
+
+	@Benchmark
+	public byte[] writeAccountSnapshot() throws IOException {
+		return accountSnapshotWriter.writeValueAsBytes(accountSnapshot);
+	}
+}
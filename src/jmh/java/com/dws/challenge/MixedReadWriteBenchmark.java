@@ -0,0 +1,124 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransactionService;
+
+/**
+ * {@link AccountsService#getAccountSnapshot} on the same accounts that
+ * concurrent transfers keep changing. Each group runs three reader threads
+ * next to one transfer thread, so the read score shows what a heavy transfer
+ * load costs the readers; the {@code read} group alone is the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class MixedReadWriteBenchmark {
+
+	private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+	@Param({ AccountSampler.ZIPF })
+	public String distribution;
+
+	@Param({ "in-memory" })
+	public String store;
+
+	@Param({ "1000" })
+	public int accounts;
+
+	private ConfigurableApplicationContext context;
+
+	private AccountsService accountsService;
+
+	private TransactionService transactionService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("challenge.accounts.store=" + store);
+		BenchmarkApplication.createAccounts(context, accounts);
+		accountsService = context.getBean(AccountsService.class);
+		transactionService = context.getBean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Samples {
+
+		private final String[] ids = new String[1 << 14];
+
+		private final TransferRequest[] transfers = new TransferRequest[1 << 14];
+
+		private int nextId;
+
+		private int nextTransfer;
+
+		@Setup(Level.Trial)
+		public void setUp(MixedReadWriteBenchmark benchmark) {
+			AccountSampler sampler = new AccountSampler(benchmark.distribution, benchmark.accounts,
+					Thread.currentThread().getId());
+			for (int i = 0; i < ids.length; i++) {
+				int from = sampler.next();
+				ids[i] = AccountSampler.id(from);
+				transfers[i] = new TransferRequest(ids[i], AccountSampler.id(sampler.nextOtherThan(from)), AMOUNT);
+			}
+		}
+
+		String nextId() {
+			return ids[nextId++ & (ids.length - 1)];
+		}
+
+		TransferRequest nextTransfer() {
+			return transfers[nextTransfer++ & (transfers.length - 1)];
+		}
+	}
+
+	@Benchmark
+	@Group("read")
+	@GroupThreads(3)
+	public AccountSnapshot readOnly(Samples samples) {
+		return accountsService.getAccountSnapshot(samples.nextId());
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public AccountSnapshot read(Samples samples) {
+		return accountsService.getAccountSnapshot(samples.nextId());
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public TransferResult transfer(Samples samples) {
+		return transactionService.transferBalances(samples.nextTransfer()).join();
+	}
+}
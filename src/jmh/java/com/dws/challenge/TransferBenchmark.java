@@ -0,0 +1,124 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.service.TransactionService;
+
+/**
+ * {@link TransactionService#transferBalances} end to end, including the hop to
+ * the task executor and the notifications, under uniform or Zipf (hot account)
+ * contention. Reports both throughput and the latency distribution, with and
+ * without metrics so their overhead shows up next to the baseline. With the
+ * GC profiler, {@code -p logLevel=WARN,INFO} shows what request logging
+ * allocates per transfer. Other stores and executors are selected with e.g.
+ * {@code -p store=in-memory,ledger,sharded,compact -p executor=virtual}, and
+ * {@code -p splitAccounts=0,8} splits the hottest accounts of the in-memory
+ * store over slots. {@code -p combining=true -p combiningWindowMicros=0,50}
+ * applies concurrent transfers in combined batch passes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class TransferBenchmark {
+
+	private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+	@Param({ AccountSampler.UNIFORM, AccountSampler.ZIPF })
+	public String distribution;
+
+	@Param({ "in-memory" })
+	public String store;
+
+	@Param({ "platform" })
+	public String executor;
+
+	@Param({ "10000" })
+	public int accounts;
+
+	@Param({ "true", "false" })
+	public boolean metrics;
+
+	@Param({ "WARN" })
+	public String logLevel;
+
+	@Param({ "0" })
+	public int splitAccounts;
+
+	@Param({ "false" })
+	public boolean combining;
+
+	@Param({ "0" })
+	public long combiningWindowMicros;
+
+	private ConfigurableApplicationContext context;
+
+	private TransactionService transactionService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		StringBuilder split = new StringBuilder();
+		for (int i = 0; i < splitAccounts; i++) {
+			split.append(i == 0 ? "" : ",").append(AccountSampler.id(i));
+		}
+		context = BenchmarkApplication.start("challenge.accounts.store=" + store, "challenge.executor.mode=" + executor,
+				"management.metrics.enable.all=" + metrics, "logging.level.com.dws.challenge=" + logLevel,
+				"challenge.accounts.split-accounts=" + split, "challenge.transfer.combining.enabled=" + combining,
+				"challenge.transfer.combining.window-micros=" + combiningWindowMicros);
+		BenchmarkApplication.createAccounts(context, accounts);
+		transactionService = context.getBean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Transfers {
+
+		private final TransferRequest[] requests = new TransferRequest[1 << 14];
+
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(TransferBenchmark benchmark) {
+			AccountSampler sampler = new AccountSampler(benchmark.distribution, benchmark.accounts,
+					Thread.currentThread().getId());
+			for (int i = 0; i < requests.length; i++) {
+				int from = sampler.next();
+				requests[i] = new TransferRequest(AccountSampler.id(from), AccountSampler.id(sampler.nextOtherThan(from)),
+						AMOUNT);
+			}
+		}
+
+		TransferRequest next() {
+			return requests[next++ & (requests.length - 1)];
+		}
+	}
+
+	@Benchmark
+	public TransferResult transfer(Transfers transfers) {
+		return transactionService.transferBalances(transfers.next()).join();
+	}
+}
@@ -0,0 +1,124 @@
+package com.dws.challenge.binary;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames of the binary transfer protocol. Every frame starts with its length,
+ * not counting the length field itself, then the message type and a request
+ * id chosen by the client. Integers are big-endian, account ids are UTF-8
+ * prefixed with their length and amounts are an unscaled long followed by
+ * their scale.
+ *
+ * <pre>
+ * transfer request: [int length][byte TRANSFER][long requestId][short fromLength][from][short toLength][to][long amount][byte scale]
+ * balance request:  [int length][byte BALANCE][long requestId][short idLength][id]
+ * response:         [int length][byte type][long requestId][byte status][long balance][byte scale]
+ * </pre>
+ *
+ * A response repeats the type and request id of its request and carries the
+ * FROM balance after a transfer or the balance of the queried account, zero
+ * unless the status is {@link #OK}. A client may send many requests without
+ * waiting; responses come back as the requests complete, not in request
+ * order.
+ */
+public final class BinaryProtocol {
+
+	public static final byte TRANSFER = 1;
+
+	public static final byte BALANCE = 2;
+
+	public static final byte OK = 0;
+
+	public static final byte INSUFFICIENT_FUNDS = 1;
+
+	public static final byte ACCOUNT_NOT_FOUND = 2;
+
+	public static final byte INVALID_REQUEST = 3;
+
+	/**
+	 * The transfer executor rejected the request, retry later
+	 */
+	public static final byte BUSY = 4;
+
+	public static final byte ERROR = 5;
+
+	public static final int LENGTH_BYTES = 4;
+
+	/**
+	 * Type and request id
+	 */
+	public static final int HEADER_BYTES = 9;
+
+	public static final int RESPONSE_BYTES = LENGTH_BYTES + HEADER_BYTES + 10;
+
+	/**
+	 * Largest frame a server accepts, enough for two ids of 500 UTF-8 bytes
+	 */
+	public static final int MAX_FRAME_BYTES = 1024;
+
+	private BinaryProtocol() {
+	}
+
+	/**
+	 * @throws ArithmeticException when the unscaled amount does not fit a long
+	 */
+	public static void writeTransfer(ByteBuffer buffer, long requestId, String accountFromId, String accountToId,
+			BigDecimal amount) {
+		byte[] from = accountFromId.getBytes(StandardCharsets.UTF_8);
+		byte[] to = accountToId.getBytes(StandardCharsets.UTF_8);
+		long unscaled = amount.unscaledValue().longValueExact();
+		buffer.putInt(HEADER_BYTES + 2 + from.length + 2 + to.length + 9);
+		buffer.put(TRANSFER).putLong(requestId);
+		buffer.putShort((short) from.length).put(from);
+		buffer.putShort((short) to.length).put(to);
+		buffer.putLong(unscaled).put((byte) amount.scale());
+	}
+
+	public static void writeBalance(ByteBuffer buffer, long requestId, String accountId) {
+		byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(HEADER_BYTES + 2 + id.length);
+		buffer.put(BALANCE).putLong(requestId);
+		buffer.putShort((short) id.length).put(id);
+	}
+
+	/**
+	 * @param balance null unless the status is {@link #OK}
+	 * @throws ArithmeticException when the unscaled balance does not fit a long
+	 */
+	public static void writeResponse(ByteBuffer buffer, byte type, long requestId, byte status, BigDecimal balance) {
+		buffer.putInt(RESPONSE_BYTES - LENGTH_BYTES);
+		buffer.put(type).putLong(requestId).put(status);
+		if (balance == null) {
+			buffer.putLong(0).put((byte) 0);
+		} else {
+			buffer.putLong(balance.unscaledValue().longValueExact()).put((byte) balance.scale());
+		}
+	}
+
+	/**
+	 * Reads an account id at the buffer position
+	 *
+	 * @throws BufferUnderflowException when the id runs past the buffer limit
+	 */
+	public static String readAccountId(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		if (length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String accountId = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return accountId;
+	}
+
+	/**
+	 * Reads an amount at the buffer position
+	 */
+	public static BigDecimal readAmount(ByteBuffer buffer) {
+		long unscaled = buffer.getLong();
+		return BigDecimal.valueOf(unscaled, buffer.get());
+	}
+}
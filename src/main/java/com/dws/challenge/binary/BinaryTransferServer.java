@@ -0,0 +1,439 @@
+package com.dws.challenge.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TCP listener speaking {@link BinaryProtocol}, for internal callers that want
+ * to skip HTTP, JSON binding and bean validation. One selector thread accepts
+ * connections, reads and decodes frames and writes responses.
+ *
+ * Transfers go to {@link TransactionService#tryTransfer(TransferRequest)} like
+ * a REST transfer, and their response is queued for the selector thread when
+ * the future completes, so a connection can have many requests in flight.
+ * Responses queued while the selector thread is busy are written together.
+ * Balance queries read a snapshot on the selector thread. Once a connection
+ * has {@code maxInFlight} requests whose response is not yet written, the
+ * server stops reading from it until responses drain.
+ */
+@Slf4j
+public class BinaryTransferServer implements Closeable {
+
+	private static final int INPUT_BYTES = 64 * 1024;
+
+	private static final int OUTPUT_BYTES = 64 * 1024;
+
+	private final TransactionService transactionService;
+
+	private final InetSocketAddress address;
+
+	private final int maxInFlight;
+
+	/**
+	 * Connections with queued responses, drained by the selector thread
+	 */
+	private final Queue<Connection> writable = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private Thread selectorThread;
+
+	private volatile boolean running;
+
+	/**
+	 * @param maxInFlight requests per connection whose response is not written
+	 *                    yet before the server stops reading from it
+	 */
+	public BinaryTransferServer(TransactionService transactionService, InetSocketAddress address, int maxInFlight) {
+		this.transactionService = transactionService;
+		this.address = address;
+		this.maxInFlight = maxInFlight;
+	}
+
+	public void start() throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(address);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+		selectorThread = new Thread(this::run, "binaryProtocol");
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+		log.info("Binary transfer protocol listening on {}", serverChannel.getLocalAddress());
+	}
+
+	/**
+	 * @return the bound port, useful when started on port 0
+	 */
+	public int getLocalPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Stops accepting and closes every connection. Transfers still running
+	 * complete, their responses are dropped.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		if (selector != null) {
+			selector.wakeup();
+			try {
+				selectorThread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void run() {
+		try {
+			while (running) {
+				selector.select();
+				wakeupPending.set(false);
+				Connection connection;
+				while ((connection = writable.poll()) != null) {
+					connection.queued.set(false);
+					connection.drain();
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					connection = (Connection) key.attachment();
+					if (key.isWritable()) {
+						connection.drain();
+					}
+					if (key.isValid() && key.isReadable()) {
+						connection.read();
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("Binary transfer protocol stopped", e);
+		} finally {
+			for (SelectionKey key : selector.keys()) {
+				closeQuietly(key);
+			}
+			closeQuietly(selector);
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		key.attach(new Connection(channel, key));
+		log.debug("Binary protocol connection from {}", channel.getRemoteAddress());
+	}
+
+	private void wakeup(Connection connection) {
+		if (connection.queued.compareAndSet(false, true)) {
+			writable.offer(connection);
+			if (wakeupPending.compareAndSet(false, true)) {
+				selector.wakeup();
+			}
+		}
+	}
+
+	private static byte statusOf(TransferOutcome outcome) {
+		switch (outcome.getStatus()) {
+		case APPLIED:
+			return BinaryProtocol.OK;
+		case INSUFFICIENT_FUNDS:
+			return BinaryProtocol.INSUFFICIENT_FUNDS;
+		default:
+			return BinaryProtocol.ACCOUNT_NOT_FOUND;
+		}
+	}
+
+	private static byte statusOf(Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		if (cause instanceof BusinessException) {
+			return BinaryProtocol.INVALID_REQUEST;
+		}
+		if (cause instanceof RejectedExecutionException) {
+			return BinaryProtocol.BUSY;
+		}
+		log.error("Binary protocol transfer failed", cause);
+		return BinaryProtocol.ERROR;
+	}
+
+	private static void closeQuietly(Object closeable) {
+		try {
+			if (closeable instanceof SelectionKey) {
+				((SelectionKey) closeable).channel().close();
+			} else {
+				((Closeable) closeable).close();
+			}
+		} catch (IOException e) {
+			log.debug("Error closing binary protocol channel", e);
+		}
+	}
+
+	/**
+	 * State of one client connection. Everything but {@link #respond} runs on
+	 * the selector thread.
+	 */
+	private final class Connection {
+
+		private final SocketChannel channel;
+
+		private final SelectionKey key;
+
+		private final ByteBuffer input = ByteBuffer.allocate(INPUT_BYTES);
+
+		private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BYTES);
+
+		private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Requests read whose response is not yet copied to the output buffer
+		 */
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		/**
+		 * Set while the connection is on the writable queue
+		 */
+		private final AtomicBoolean queued = new AtomicBoolean();
+
+		private Connection(SocketChannel channel, SelectionKey key) {
+			this.channel = channel;
+			this.key = key;
+		}
+
+		private void read() {
+			try {
+				if (channel.read(input) < 0) {
+					close();
+					return;
+				}
+			} catch (IOException e) {
+				log.debug("Binary protocol connection failed", e);
+				close();
+				return;
+			}
+			decode();
+			drain();
+		}
+
+		/**
+		 * Writes the queued responses and, while that brings a paused connection
+		 * under its in-flight limit, decodes what is left in the input buffer.
+		 * Transfers that complete before their callback is attached answer on the
+		 * selector thread without a wakeup, so this must not wait for one.
+		 */
+		private void drain() {
+			flush();
+			while (key.isValid() && (key.interestOps() & SelectionKey.OP_READ) == 0 && inFlight.get() < maxInFlight) {
+				decode();
+				flush();
+			}
+		}
+
+		/**
+		 * Dispatches every complete frame in the input buffer while under the
+		 * in-flight limit, and reads again only when under it
+		 */
+		private void decode() {
+			input.flip();
+			while (input.remaining() >= BinaryProtocol.LENGTH_BYTES && inFlight.get() < maxInFlight) {
+				int length = input.getInt(input.position());
+				if (length < BinaryProtocol.HEADER_BYTES || length > BinaryProtocol.MAX_FRAME_BYTES) {
+					log.warn("Closing binary protocol connection, invalid frame length {}", length);
+					close();
+					return;
+				}
+				if (input.remaining() < BinaryProtocol.LENGTH_BYTES + length) {
+					break;
+				}
+				int end = input.position() + BinaryProtocol.LENGTH_BYTES + length;
+				int limit = input.limit();
+				input.position(input.position() + BinaryProtocol.LENGTH_BYTES).limit(end);
+				if (!dispatch()) {
+					return;
+				}
+				input.limit(limit).position(end);
+			}
+			input.compact();
+			if (key.isValid()) {
+				int ops = key.interestOps();
+				key.interestOps(inFlight.get() < maxInFlight ? ops | SelectionKey.OP_READ
+						: ops & ~SelectionKey.OP_READ);
+			}
+		}
+
+		/**
+		 * Input holds one frame after its length field. A frame whose fields do
+		 * not fit it is answered with {@link BinaryProtocol#INVALID_REQUEST}, any
+		 * other failure closes this connection only.
+		 *
+		 * @return false when the connection was closed
+		 */
+		private boolean dispatch() {
+			byte type = input.get();
+			long requestId = input.getLong();
+			inFlight.incrementAndGet();
+			try {
+				switch (type) {
+				case BinaryProtocol.TRANSFER:
+					transfer(requestId);
+					break;
+				case BinaryProtocol.BALANCE:
+					balance(requestId);
+					break;
+				default:
+					respond(type, requestId, BinaryProtocol.INVALID_REQUEST, null);
+				}
+			} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+				respond(type, requestId, BinaryProtocol.INVALID_REQUEST, null);
+			} catch (RuntimeException e) {
+				log.warn("Closing binary protocol connection, request {} failed", requestId, e);
+				close();
+				return false;
+			}
+			return true;
+		}
+
+		private void transfer(long requestId) {
+			String accountFromId = BinaryProtocol.readAccountId(input);
+			String accountToId = BinaryProtocol.readAccountId(input);
+			BigDecimal amount = BinaryProtocol.readAmount(input);
+			if (accountFromId.isEmpty() || accountToId.isEmpty() || amount.signum() < 0) {
+				respond(BinaryProtocol.TRANSFER, requestId, BinaryProtocol.INVALID_REQUEST, null);
+				return;
+			}
+			CompletableFuture<TransferOutcome> outcome;
+			try {
+				outcome = transactionService.tryTransfer(new TransferRequest(accountFromId, accountToId, amount));
+			} catch (RejectedExecutionException e) {
+				respond(BinaryProtocol.TRANSFER, requestId, BinaryProtocol.BUSY, null);
+				return;
+			}
+			outcome.whenComplete((applied, failure) -> {
+				if (failure != null) {
+					respond(BinaryProtocol.TRANSFER, requestId, statusOf(failure), null);
+				} else {
+					respond(BinaryProtocol.TRANSFER, requestId, statusOf(applied),
+							applied.isApplied() ? applied.getResult().getBalanceAfterTransfer() : null);
+				}
+			});
+		}
+
+		private void balance(long requestId) {
+			String accountId = BinaryProtocol.readAccountId(input);
+			AccountSnapshot snapshot = transactionService.getAccountsRepository().getAccountSnapshot(accountId);
+			if (snapshot == null) {
+				respond(BinaryProtocol.BALANCE, requestId, BinaryProtocol.ACCOUNT_NOT_FOUND, null);
+			} else {
+				respond(BinaryProtocol.BALANCE, requestId, BinaryProtocol.OK, snapshot.getBalance());
+			}
+		}
+
+		/**
+		 * Queues a response, from any thread. The selector thread flushes its own
+		 * responses after decoding, other threads wake it up.
+		 */
+		private void respond(byte type, long requestId, byte status, BigDecimal balance) {
+			if (balance != null && balance.unscaledValue().bitLength() > 63) {
+				status = BinaryProtocol.ERROR;
+				balance = null;
+			}
+			responses.offer(new Response(type, requestId, status, balance));
+			if (Thread.currentThread() != selectorThread) {
+				wakeup(this);
+			}
+		}
+
+		/**
+		 * Copies queued responses to the output buffer and writes it
+		 */
+		private void flush() {
+			if (!key.isValid()) {
+				return;
+			}
+			try {
+				Response response;
+				while (output.remaining() >= BinaryProtocol.RESPONSE_BYTES && (response = responses.poll()) != null) {
+					BinaryProtocol.writeResponse(output, response.type, response.requestId, response.status,
+							response.balance);
+					inFlight.decrementAndGet();
+				}
+				output.flip();
+				channel.write(output);
+				output.compact();
+			} catch (IOException e) {
+				log.debug("Binary protocol connection failed", e);
+				close();
+				return;
+			}
+			boolean pending = output.position() > 0 || !responses.isEmpty();
+			int ops = key.interestOps();
+			key.interestOps(pending ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE);
+		}
+
+		private void close() {
+			key.cancel();
+			closeQuietly(channel);
+		}
+	}
+
+	private static final class Response {
+
+		private final byte type;
+
+		private final long requestId;
+
+		private final byte status;
+
+		private final BigDecimal balance;
+
+		private Response(byte type, long requestId, byte status, BigDecimal balance) {
+			this.type = type;
+			this.requestId = requestId;
+			this.status = status;
+			this.balance = balance;
+		}
+	}
+}
@@ -1,24 +1,113 @@
 package com.dws.challenge.config;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executor running the transfer path. {@code challenge.executor.mode=virtual}
+ * starts one virtual thread per task when running on Java 21 or later,
+ * {@code platform} (the default) uses a bounded pool whose rejection policy is
+ * either {@code abort}, answered with 503 Service Unavailable, or
+ * {@code caller-runs}, which pushes back by running the task on the submitting
+ * thread. Any other policy fails the startup.
+ */
 @Component
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
 
+	/**
+	 * Set in virtual mode. The platform pool is shut down by Spring as a
+	 * DisposableBean, this one by {@link #shutdown()}
+	 */
+	private ExecutorService virtualThreads;
+
 	@Bean(name = "taskExecutor")
-	public Executor taskExecutor() {
+	public Executor taskExecutor(@Value("${challenge.executor.mode:platform}") String mode,
+			@Value("${challenge.executor.core-pool-size:8}") int corePoolSize,
+			@Value("${challenge.executor.max-pool-size:8}") int maxPoolSize,
+			@Value("${challenge.executor.queue-capacity:10000}") int queueCapacity,
+			@Value("${challenge.executor.rejection-policy:abort}") String rejectionPolicy) {
+		RejectedExecutionHandler rejectionHandler = rejectionHandler(rejectionPolicy);
+		if ("virtual".equals(mode)) {
+			virtualThreads = virtualThreadExecutor();
+			if (virtualThreads != null) {
+				return virtualThreads;
+			}
+			log.warn("Virtual threads need Java 21 or later, falling back to the platform pool");
+		}
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-		executor.setCorePoolSize(2);
-		executor.setMaxPoolSize(2);
-		executor.setQueueCapacity(100);
+		executor.setCorePoolSize(corePoolSize);
+		executor.setMaxPoolSize(maxPoolSize);
+		executor.setQueueCapacity(queueCapacity);
 		executor.setThreadNamePrefix("userThread-");
+		executor.setRejectedExecutionHandler(rejectionHandler);
 		executor.initialize();
 		return executor;
 	}
+
+	/**
+	 * Queue depth and busy threads of the platform pool. Virtual threads are not
+	 * queued, so nothing is published for them
+	 */
+	@Bean
+	public MeterBinder taskExecutorMetrics(@Qualifier("taskExecutor") Executor taskExecutor) {
+		return registry -> {
+			if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+				Gauge.builder("transfer.executor.queue.depth", pool, ThreadPoolTaskExecutor::getQueueSize)
+						.description("Transfers waiting for an executor thread").register(registry);
+				Gauge.builder("transfer.executor.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+						.description("Executor threads running a transfer").register(registry);
+			}
+		};
+	}
+
+	/**
+	 * Lets the transfers already started on virtual threads finish, and refuses
+	 * new ones
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (virtualThreads != null) {
+			virtualThreads.shutdown();
+		}
+	}
+
+	private static RejectedExecutionHandler rejectionHandler(String rejectionPolicy) {
+		switch (rejectionPolicy) {
+		case "abort":
+			return new ThreadPoolExecutor.AbortPolicy();
+		case "caller-runs":
+			return new ThreadPoolExecutor.CallerRunsPolicy();
+		default:
+			throw new IllegalArgumentException(
+					"challenge.executor.rejection-policy must be abort or caller-runs: " + rejectionPolicy);
+		}
+	}
+
+	/**
+	 * Looked up reflectively so the project still builds for Java 17.
+	 */
+	private ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
 }
@@ -0,0 +1,34 @@
+package com.dws.challenge.config;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.dws.challenge.binary.BinaryTransferServer;
+import com.dws.challenge.service.TransactionService;
+
+/**
+ * Binary transfer protocol listener, enabled with
+ * {@code challenge.binary.enabled=true}. It runs next to the REST API and
+ * shares the transaction service with it.
+ *
+ * The protocol has no authentication, so the listener binds to the loopback
+ * interface unless {@code challenge.binary.address} names another one. Bind
+ * it wider, e.g. to {@code 0.0.0.0}, only on a network where every peer may
+ * move money.
+ */
+@Configuration
+@ConditionalOnProperty(name = "challenge.binary.enabled", havingValue = "true")
+public class BinaryProtocolConfig {
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	public BinaryTransferServer binaryTransferServer(TransactionService transactionService,
+			@Value("${challenge.binary.address:127.0.0.1}") String address,
+			@Value("${challenge.binary.port:7070}") int port,
+			@Value("${challenge.binary.max-in-flight:1024}") int maxInFlight) {
+		return new BinaryTransferServer(transactionService, new InetSocketAddress(address, port), maxInFlight);
+	}
+}
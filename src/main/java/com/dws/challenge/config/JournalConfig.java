@@ -0,0 +1,43 @@
+package com.dws.challenge.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.dws.challenge.journal.JournalCheckpointer;
+import com.dws.challenge.journal.TransactionJournal;
+
+/**
+ * Write-ahead journal of the in-memory store, enabled with
+ * {@code challenge.journal.enabled=true}. The store replays it on startup,
+ * starting from the latest snapshot written by the checkpointer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "challenge.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+	/**
+	 * Segments must stay below 2GB, the offset part of a journal position
+	 */
+	private static final int MAX_SEGMENT_SIZE_MB = Integer.MAX_VALUE >> 20;
+
+	@Bean(destroyMethod = "close")
+	public TransactionJournal transactionJournal(@Value("${challenge.journal.directory:data/journal}") String directory,
+			@Value("${challenge.journal.segment-size-mb:64}") int segmentSizeMb,
+			@Value("${challenge.journal.group-commit:true}") boolean groupCommit) {
+		if (segmentSizeMb < 1 || segmentSizeMb > MAX_SEGMENT_SIZE_MB) {
+			throw new IllegalArgumentException("challenge.journal.segment-size-mb must be between 1 and "
+					+ MAX_SEGMENT_SIZE_MB + ": " + segmentSizeMb);
+		}
+		return new TransactionJournal(Path.of(directory), segmentSizeMb << 20, groupCommit);
+	}
+
+	@Bean(destroyMethod = "close")
+	public JournalCheckpointer journalCheckpointer(TransactionJournal transactionJournal,
+			@Value("${challenge.journal.snapshot-interval-seconds:300}") long intervalSeconds) {
+		return new JournalCheckpointer(transactionJournal, intervalSeconds);
+	}
+}
@@ -0,0 +1,31 @@
+package com.dws.challenge.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.dws.challenge.service.BatchingNotificationService;
+import com.dws.challenge.service.EmailNotificationService;
+
+/**
+ * Puts the batching dispatcher in front of the email notification service.
+ * Disable with {@code challenge.notification.async.enabled=false} to deliver
+ * on the request thread.
+ */
+@Configuration
+public class NotificationConfig {
+
+	@Bean(destroyMethod = "shutdown")
+	@Primary
+	@ConditionalOnProperty(name = "challenge.notification.async.enabled", havingValue = "true", matchIfMissing = true)
+	public BatchingNotificationService batchingNotificationService(EmailNotificationService emailNotificationService,
+			@Value("${challenge.notification.async.queue-capacity:65536}") int queueCapacity,
+			@Value("${challenge.notification.async.batch-size:512}") int batchSize,
+			@Value("${challenge.notification.async.linger-ms:5}") long lingerMillis,
+			@Value("${challenge.notification.async.overflow-policy:DROP_NEWEST}") BatchingNotificationService.OverflowPolicy overflowPolicy) {
+		return new BatchingNotificationService(emailNotificationService, queueCapacity, batchSize, lingerMillis,
+				overflowPolicy);
+	}
+}
@@ -0,0 +1,22 @@
+package com.dws.challenge.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reactive build, packaged with {@code -Preactive} and selected with
+ * {@code --spring.profiles.active=reactive}. The servlet controllers step aside
+ * for their WebFlux forms, which run on Netty even though Tomcat stays on the
+ * classpath for the servlet build.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+}
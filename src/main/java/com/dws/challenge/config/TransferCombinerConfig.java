@@ -0,0 +1,30 @@
+package com.dws.challenge.config;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.TransferCombiner;
+
+/**
+ * Combines concurrent single transfers into batch passes over the account
+ * store when {@code challenge.transfer.combining.enabled=true}. Off by
+ * default, every transfer is then its own task on the transfer executor.
+ */
+@Configuration
+public class TransferCombinerConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "challenge.transfer.combining.enabled", havingValue = "true")
+	public TransferCombiner transferCombiner(AccountsRepository accountsRepository,
+			@Qualifier("taskExecutor") Executor taskExecutor,
+			@Value("${challenge.transfer.combining.max-batch-size:256}") int maxBatchSize,
+			@Value("${challenge.transfer.combining.window-micros:0}") long windowMicros) {
+		return new TransferCombiner(accountsRepository, taskExecutor, maxBatchSize, windowMicros);
+	}
+}
@@ -5,4 +5,15 @@ public class ErrorCode {
 	 * Error Code for any error related to account
 	 */
 	public static final String ACCOUNT_ERROR = "1001";
+
+	/**
+	 * Error Code for an amount that can not be represented by the balance store
+	 */
+	public static final String AMOUNT_ERROR = "1002";
+
+	/**
+	 * Error Code for an Idempotency-Key that is malformed or reused for another
+	 * request
+	 */
+	public static final String IDEMPOTENCY_ERROR = "1003";
 }
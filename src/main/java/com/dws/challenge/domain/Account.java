@@ -1,18 +1,39 @@
 package com.dws.challenge.domain;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 
+import com.dws.challenge.json.AccountDeserializer;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
+@JsonDeserialize(using = AccountDeserializer.class)
 public class Account {
 
+	private static final VarHandle VERSION;
+
+	static {
+		try {
+			VERSION = MethodHandles.lookup().findVarHandle(Account.class, "version", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 	@NotBlank
 	private String accountId;
 
@@ -20,6 +41,17 @@ public class Account {
 	@Min(value = 0, message = "Initial balance must be positive.")
 	private BigDecimal balance;
 
+	/**
+	 * Seqlock over the balance: odd while a write is in progress, raised by two
+	 * on every write
+	 */
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private long version;
+
 	public Account(String accountId) {
 		this.accountId = accountId;
 		this.balance = BigDecimal.ZERO;
@@ -30,4 +62,36 @@ public class Account {
 		this.accountId = accountId;
 		this.balance = balance;
 	}
+
+	/**
+	 * Writers must be serialized by the caller, e.g. by the lock stripe of the
+	 * account. Readers that need the balance consistent with its version use
+	 * {@link #snapshot()}.
+	 */
+	public void setBalance(BigDecimal balance) {
+		long version = (long) VERSION.getOpaque(this);
+		VERSION.setOpaque(this, version + 1);
+		VarHandle.releaseFence();
+		this.balance = balance;
+		VERSION.setRelease(this, version + 2);
+	}
+
+	/**
+	 * Lock-free consistent read of the balance and its version. Retries while a
+	 * write is in progress or when one completed during the read, so it never
+	 * blocks behind, or slows down, a transfer.
+	 */
+	public AccountSnapshot snapshot() {
+		while (true) {
+			long version = (long) VERSION.getAcquire(this);
+			if ((version & 1) == 0) {
+				BigDecimal balance = this.balance;
+				VarHandle.acquireFence();
+				if ((long) VERSION.getOpaque(this) == version) {
+					return new AccountSnapshot(accountId, balance, version >>> 1);
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
 }
@@ -0,0 +1,28 @@
+package com.dws.challenge.domain;
+
+import lombok.Getter;
+
+/**
+ * One record of a bulk import that was not created
+ */
+@Getter
+public class AccountImportFailure {
+
+	/**
+	 * Position of the record in the uploaded stream
+	 */
+	private final long index;
+
+	private final String accountId;
+
+	private final String errorCode;
+
+	private final String errorMessage;
+
+	public AccountImportFailure(long index, String accountId, String errorCode, String errorMessage) {
+		this.index = index;
+		this.accountId = accountId;
+		this.errorCode = errorCode;
+		this.errorMessage = errorMessage;
+	}
+}
@@ -0,0 +1,39 @@
+package com.dws.challenge.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+/**
+ * Summary of a bulk import. Only the first {@code maxReportedFailures}
+ * failures are listed so the result stays small for any upload size,
+ * {@code failed} counts all of them.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountImportResult {
+
+	private long received;
+
+	private long created;
+
+	private long failed;
+
+	private List<AccountImportFailure> failures = new ArrayList<>();
+
+	/**
+	 * Set when the upload could not be parsed any further, records before it
+	 * were imported
+	 */
+	private String error;
+
+	public void addFailure(AccountImportFailure failure, int maxReportedFailures) {
+		failed++;
+		if (failures.size() < maxReportedFailures) {
+			failures.add(failure);
+		}
+	}
+}
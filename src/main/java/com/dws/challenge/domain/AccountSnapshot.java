@@ -0,0 +1,40 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.json.AccountSnapshotSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable copy of an account as of one version, returned to readers instead
+ * of the live account
+ */
+@Getter
+@ToString
+@JsonPropertyOrder({ "accountId", "balance" })
+@JsonSerialize(using = AccountSnapshotSerializer.class)
+public final class AccountSnapshot {
+
+	private final String accountId;
+
+	private final BigDecimal balance;
+
+	/**
+	 * Number of balance changes the snapshot reflects. The ledger and compact
+	 * stores do not version their accounts and always report 0; a split account
+	 * counts changes to each of its slots.
+	 */
+	@JsonIgnore
+	private final long version;
+
+	public AccountSnapshot(String accountId, BigDecimal balance, long version) {
+		this.accountId = accountId;
+		this.balance = balance;
+		this.version = version;
+	}
+}
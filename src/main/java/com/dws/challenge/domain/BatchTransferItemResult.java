@@ -0,0 +1,58 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.exception.BusinessException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+/**
+ * Outcome of one transfer of a batch. Exactly one of {@code result} and
+ * {@code errorCode} is set.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchTransferItemResult {
+
+	/**
+	 * Position of the transfer in the submitted batch
+	 */
+	private int index;
+
+	private TransferResult result;
+
+	private String errorCode;
+
+	private String errorMessage;
+
+	public static BatchTransferItemResult applied(int index, TransferResult result) {
+		BatchTransferItemResult item = new BatchTransferItemResult();
+		item.setIndex(index);
+		item.setResult(result);
+		return item;
+	}
+
+	public static BatchTransferItemResult rejected(int index, BusinessException e) {
+		BatchTransferItemResult item = new BatchTransferItemResult();
+		item.setIndex(index);
+		item.setErrorCode(e.getErrorCode());
+		item.setErrorMessage(e.getMessage());
+		return item;
+	}
+
+	public static BatchTransferItemResult of(int index, TransferOutcome outcome) {
+		if (outcome.isApplied()) {
+			return applied(index, outcome.getResult());
+		}
+		BatchTransferItemResult item = new BatchTransferItemResult();
+		item.setIndex(index);
+		item.setErrorCode(outcome.getErrorCode());
+		item.setErrorMessage(outcome.getMessage());
+		return item;
+	}
+
+	@JsonIgnore
+	public boolean isApplied() {
+		return result != null;
+	}
+}
@@ -0,0 +1,29 @@
+package com.dws.challenge.domain;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class BatchTransferRequest {
+
+	/**
+	 * Upper bound on transfers accepted in one request
+	 */
+	public static final int MAX_TRANSFERS = 10_000;
+
+	@NotEmpty
+	@Size(max = MAX_TRANSFERS, message = "A batch can not contain more than " + MAX_TRANSFERS + " transfers.")
+	private List<@Valid TransferRequest> transfers;
+
+	@JsonCreator
+	public BatchTransferRequest(@JsonProperty("transfers") List<TransferRequest> transfers) {
+		this.transfers = transfers;
+	}
+}
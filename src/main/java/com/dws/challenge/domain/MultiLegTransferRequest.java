@@ -0,0 +1,61 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * One debit of the FROM account paying many credits, applied all or nothing
+ */
+@Data
+public class MultiLegTransferRequest {
+
+	/**
+	 * Upper bound on legs accepted in one request
+	 */
+	public static final int MAX_LEGS = 1_000;
+
+	@NotEmpty
+	private String accountFromId;
+
+	@NotEmpty
+	@Size(max = MAX_LEGS, message = "A multi-leg transfer can not contain more than " + MAX_LEGS + " legs.")
+	private List<@Valid TransferLeg> legs;
+
+	@JsonCreator
+	public MultiLegTransferRequest(@JsonProperty("accountFromId") String accountFromId,
+			@JsonProperty("legs") List<TransferLeg> legs) {
+		this.accountFromId = accountFromId;
+		this.legs = legs;
+	}
+
+	/**
+	 * @return sum of the leg amounts, debited from the FROM account
+	 */
+	public BigDecimal totalAmount() {
+		BigDecimal total = BigDecimal.ZERO;
+		for (TransferLeg leg : legs) {
+			total = total.add(leg.getAmount());
+		}
+		return total;
+	}
+
+	/**
+	 * @return every leg as a transfer from the FROM account, in leg order
+	 */
+	public List<TransferRequest> toTransfers() {
+		List<TransferRequest> transfers = new ArrayList<>(legs.size());
+		for (TransferLeg leg : legs) {
+			transfers.add(new TransferRequest(accountFromId, leg.getAccountToId(), leg.getAmount()));
+		}
+		return transfers;
+	}
+}
@@ -0,0 +1,43 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One side of an applied transfer as seen by one account
+ */
+@Getter
+@ToString
+@JsonPropertyOrder({ "sequence", "timestamp", "counterpartyId", "amount", "balanceAfter" })
+public final class TransactionHistoryEntry {
+
+	/**
+	 * Position of the entry in the history of the account, usable as a cursor
+	 */
+	private final long sequence;
+
+	private final Instant timestamp;
+
+	private final String counterpartyId;
+
+	/**
+	 * Negative when the account was debited
+	 */
+	private final BigDecimal amount;
+
+	private final BigDecimal balanceAfter;
+
+	public TransactionHistoryEntry(long sequence, Instant timestamp, String counterpartyId, BigDecimal amount,
+			BigDecimal balanceAfter) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.counterpartyId = counterpartyId;
+		this.amount = amount;
+		this.balanceAfter = balanceAfter;
+	}
+}
@@ -0,0 +1,28 @@
+package com.dws.challenge.domain;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * One page of the history of an account, oldest entry first
+ */
+@Getter
+public final class TransactionHistoryPage {
+
+	private final String accountId;
+
+	private final List<TransactionHistoryEntry> entries;
+
+	/**
+	 * Cursor of the next page, null when the page reached the end of the history
+	 * or of the requested time range
+	 */
+	private final Long nextCursor;
+
+	public TransactionHistoryPage(String accountId, List<TransactionHistoryEntry> entries, Long nextCursor) {
+		this.accountId = accountId;
+		this.entries = entries;
+		this.nextCursor = nextCursor;
+	}
+}
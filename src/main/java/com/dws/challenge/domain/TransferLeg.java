@@ -0,0 +1,31 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * One credit of a {@link MultiLegTransferRequest}
+ */
+@Data
+public class TransferLeg {
+
+	@NotEmpty
+	private String accountToId;
+
+	@NotNull
+	@Min(value = 0, message = "Transfer amount can not be less than zero")
+	private BigDecimal amount;
+
+	@JsonCreator
+	public TransferLeg(@JsonProperty("accountToId") String accountToId, @JsonProperty("amount") BigDecimal amount) {
+		this.accountToId = accountToId;
+		this.amount = amount;
+	}
+}
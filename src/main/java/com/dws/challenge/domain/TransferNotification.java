@@ -0,0 +1,51 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.constant.NotificationMessage;
+
+import lombok.Getter;
+
+/**
+ * Structured notification about one side of a transfer. The text sent to the
+ * account owner is only built by {@link #describe()}, off the request thread.
+ */
+@Getter
+public class TransferNotification {
+
+	public enum Direction {
+		DEBITED, CREDITED
+	}
+
+	private final String accountId;
+
+	private final String counterpartyId;
+
+	private final BigDecimal amount;
+
+	private final Direction direction;
+
+	public TransferNotification(String accountId, String counterpartyId, BigDecimal amount, Direction direction) {
+		this.accountId = accountId;
+		this.counterpartyId = counterpartyId;
+		this.amount = amount;
+		this.direction = direction;
+	}
+
+	public static TransferNotification debited(TransferRequest transfer) {
+		return new TransferNotification(transfer.getAccountFromId(), transfer.getAccountToId(), transfer.getAmount(),
+				Direction.DEBITED);
+	}
+
+	public static TransferNotification credited(TransferRequest transfer) {
+		return new TransferNotification(transfer.getAccountToId(), transfer.getAccountFromId(), transfer.getAmount(),
+				Direction.CREDITED);
+	}
+
+	public String describe() {
+		if (direction == Direction.DEBITED) {
+			return NotificationMessage.DEBITED_MSG + amount + " for account id :- " + counterpartyId;
+		}
+		return NotificationMessage.CREDITED_MSG + amount + " From :- " + counterpartyId;
+	}
+}
@@ -0,0 +1,97 @@
+package com.dws.challenge.domain;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.OverDraftException;
+
+import lombok.Getter;
+
+/**
+ * Result of a transfer attempt as a value, so a rejected transfer costs no
+ * exception and stack trace. Callers that want the exception based flow use
+ * {@link #orElseThrow()}.
+ */
+@Getter
+public final class TransferOutcome {
+
+	public enum Status {
+		APPLIED, INSUFFICIENT_FUNDS, ACCOUNT_NOT_FOUND
+	}
+
+	private final Status status;
+
+	/**
+	 * Set when the transfer was applied
+	 */
+	private final TransferResult result;
+
+	/**
+	 * Account that rejected the transfer
+	 */
+	private final String accountId;
+
+	private TransferOutcome(Status status, TransferResult result, String accountId) {
+		this.status = status;
+		this.result = result;
+		this.accountId = accountId;
+	}
+
+	public static TransferOutcome applied(TransferResult result) {
+		return new TransferOutcome(Status.APPLIED, result, result.getAccountFromId());
+	}
+
+	public static TransferOutcome insufficientFunds(String accountId) {
+		return new TransferOutcome(Status.INSUFFICIENT_FUNDS, null, accountId);
+	}
+
+	public static TransferOutcome accountNotFound(String accountId) {
+		return new TransferOutcome(Status.ACCOUNT_NOT_FOUND, null, accountId);
+	}
+
+	public boolean isApplied() {
+		return status == Status.APPLIED;
+	}
+
+	public String getErrorCode() {
+		return isApplied() ? null : ErrorCode.ACCOUNT_ERROR;
+	}
+
+	public String getMessage() {
+		switch (status) {
+		case INSUFFICIENT_FUNDS:
+			return "Account with id:" + accountId + " does not have enough balance to transfer.";
+		case ACCOUNT_NOT_FOUND:
+			return "Account with id:" + accountId + " does not exist.";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return the exception the REST layer maps a rejected transfer to, null when
+	 *         it was applied
+	 */
+	public BusinessException toException() {
+		switch (status) {
+		case INSUFFICIENT_FUNDS:
+			return new OverDraftException(getMessage(), ErrorCode.ACCOUNT_ERROR);
+		case ACCOUNT_NOT_FOUND:
+			return new AccountNotExistException(getMessage(), ErrorCode.ACCOUNT_ERROR);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return the result of an applied transfer
+	 * @throws OverDraftException
+	 * @throws AccountNotExistException
+	 */
+	public TransferResult orElseThrow() throws OverDraftException, AccountNotExistException {
+		if (!isApplied()) {
+			throw toException();
+		}
+		return result;
+	}
+}
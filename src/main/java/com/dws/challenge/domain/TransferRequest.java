@@ -2,8 +2,10 @@ package com.dws.challenge.domain;
 
 import java.math.BigDecimal;
 
+import com.dws.challenge.json.TransferRequestDeserializer;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
@@ -11,6 +13,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
+@JsonDeserialize(using = TransferRequestDeserializer.class)
 public class TransferRequest {
 
 	@NotEmpty
@@ -33,7 +36,6 @@ public class TransferRequest {
 		this.amount = amount;
 	}
 
-	@JsonCreator
 	public TransferRequest() {
 		super();
 	}
@@ -2,9 +2,13 @@ package com.dws.challenge.domain;
 
 import java.math.BigDecimal;
 
+import com.dws.challenge.json.TransferResultSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import lombok.Data;
 
 @Data
+@JsonSerialize(using = TransferResultSerializer.class)
 public class TransferResult {
 	
 	private String accountFromId;
@@ -0,0 +1,10 @@
+package com.dws.challenge.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class AccountStoreFullException extends BusinessException {
+
+	public AccountStoreFullException(String message, String errorCode) {
+		super(message, errorCode, HttpStatus.INSUFFICIENT_STORAGE);
+	}
+}
@@ -2,13 +2,16 @@ package com.dws.challenge.exception;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -16,13 +19,16 @@ public class GlobalExceptionHandler {
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<Map<String, String>> handleMethodArgumentNotValidException(
 			MethodArgumentNotValidException ex) {
-		Map<String, String> resp = new HashMap<>();
-		ex.getBindingResult().getAllErrors().forEach((error -> {
-			String fieldName = ((FieldError) error).getField();
-			String message = error.getDefaultMessage();
-			resp.put(fieldName, message);
-		}));
-		return new ResponseEntity<Map<String, String>>(resp, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<Map<String, String>>(fieldErrors(ex.getBindingResult()), HttpStatus.BAD_REQUEST);
+	}
+
+	/**
+	 * WebFlux counterpart of MethodArgumentNotValidException, answered the same
+	 * way
+	 */
+	@ExceptionHandler(WebExchangeBindException.class)
+	public ResponseEntity<Map<String, String>> handleWebExchangeBindException(WebExchangeBindException ex) {
+		return new ResponseEntity<Map<String, String>>(fieldErrors(ex.getBindingResult()), HttpStatus.BAD_REQUEST);
 	}
 
 	@ExceptionHandler(OverDraftException.class)
@@ -34,4 +40,45 @@ public class GlobalExceptionHandler {
 	public ResponseEntity<Object> handleAccountNotExistException(AccountNotExistException ex) {
 		return new ResponseEntity<Object>(ex.getMessage(), HttpStatus.NOT_FOUND);
 	}
+
+	@ExceptionHandler(InvalidAmountException.class)
+	public ResponseEntity<Object> handleInvalidAmountException(InvalidAmountException ex) {
+		return new ResponseEntity<Object>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(InvalidAccountIdException.class)
+	public ResponseEntity<Object> handleInvalidAccountIdException(InvalidAccountIdException ex) {
+		return new ResponseEntity<Object>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(IdempotencyKeyException.class)
+	public ResponseEntity<Object> handleIdempotencyKeyException(IdempotencyKeyException ex) {
+		return new ResponseEntity<Object>(ex.getMessage(), ex.getHttpStatus());
+	}
+
+	@ExceptionHandler(AccountStoreFullException.class)
+	public ResponseEntity<Object> handleAccountStoreFullException(AccountStoreFullException ex) {
+		return new ResponseEntity<Object>(ex.getMessage(), ex.getHttpStatus());
+	}
+
+	@ExceptionHandler(TransactionHistoryUnavailableException.class)
+	public ResponseEntity<Object> handleTransactionHistoryUnavailableException(
+			TransactionHistoryUnavailableException ex) {
+		return new ResponseEntity<Object>(ex.getMessage(), ex.getHttpStatus());
+	}
+
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<Object> handleRejectedExecutionException(RejectedExecutionException ex) {
+		return new ResponseEntity<Object>("Server is busy, retry later.", HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	private static Map<String, String> fieldErrors(BindingResult bindingResult) {
+		Map<String, String> resp = new HashMap<>();
+		bindingResult.getAllErrors().forEach((error -> {
+			String fieldName = ((FieldError) error).getField();
+			String message = error.getDefaultMessage();
+			resp.put(fieldName, message);
+		}));
+		return resp;
+	}
 }
@@ -0,0 +1,10 @@
+package com.dws.challenge.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyKeyException extends BusinessException {
+
+	public IdempotencyKeyException(String message, String errorCode) {
+		super(message, errorCode, HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+}
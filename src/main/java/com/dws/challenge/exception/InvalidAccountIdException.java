@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class InvalidAccountIdException extends BusinessException {
+
+	public InvalidAccountIdException(String message, String errorCode) {
+		super(message, errorCode);
+	}
+}
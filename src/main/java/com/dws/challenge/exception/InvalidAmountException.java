@@ -0,0 +1,8 @@
+package com.dws.challenge.exception;
+
+public class InvalidAmountException extends BusinessException {
+
+	public InvalidAmountException(String message, String errorCode) {
+		super(message, errorCode);
+	}
+}
@@ -0,0 +1,10 @@
+package com.dws.challenge.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TransactionHistoryUnavailableException extends BusinessException {
+
+	public TransactionHistoryUnavailableException(String message, String errorCode) {
+		super(message, errorCode, HttpStatus.NOT_IMPLEMENTED);
+	}
+}
@@ -0,0 +1,207 @@
+package com.dws.challenge.history;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dws.challenge.domain.TransactionHistoryEntry;
+import com.dws.challenge.domain.TransactionHistoryPage;
+import com.dws.challenge.repository.AccountIdIndex;
+
+/**
+ * Append-only history of one account, kept in fixed size chunks of parallel
+ * primitive columns instead of one object per entry.
+ *
+ * An appender claims the next sequence number, waits for the entry before it
+ * to be published, writes its columns and publishes its own entry with one
+ * volatile write. The store already serializes the transfers of an account, so
+ * the wait only spins when a split account is changed from several slots at
+ * once. Readers see every entry below the published count and never block the
+ * appenders. Timestamps never decrease within an account, so a time range is
+ * found by a binary search over the first timestamp of each chunk followed by
+ * one within the chunk.
+ */
+final class AccountHistory {
+
+	private static final int INITIAL_CHUNKS = 4;
+
+	private final int chunkShift;
+
+	private final int chunkMask;
+
+	/**
+	 * Chunks kept before the oldest is dropped, 0 keeps every chunk
+	 */
+	private final int maxChunks;
+
+	private final AtomicLong claimed = new AtomicLong();
+
+	private volatile long published;
+
+	/**
+	 * Sequence of the oldest entry not dropped
+	 */
+	private volatile long retainedFrom;
+
+	private volatile Chunk[] chunks = new Chunk[INITIAL_CHUNKS];
+
+	/**
+	 * Only touched by the appender holding the next sequence
+	 */
+	private long lastTimestamp;
+
+	private int oldestChunk;
+
+	/**
+	 * @param chunkSize entries per chunk, a power of two
+	 * @param maxChunks chunks kept, 0 keeps every chunk
+	 */
+	AccountHistory(int chunkSize, int maxChunks) {
+		this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+		this.chunkMask = chunkSize - 1;
+		this.maxChunks = maxChunks;
+	}
+
+	/**
+	 * @param timestamp    epoch millis, raised to the previous timestamp when the
+	 *                     clock went back
+	 * @param counterparty interned counterparty id
+	 * @param amount       unscaled signed amount
+	 * @param balance      unscaled balance after the entry
+	 * @param scale        scale of both the amount and the balance
+	 */
+	void append(long timestamp, int counterparty, long amount, long balance, int scale) {
+		long sequence = claimed.getAndIncrement();
+		while (published != sequence) {
+			Thread.onSpinWait();
+		}
+		if (timestamp < lastTimestamp) {
+			timestamp = lastTimestamp;
+		}
+		lastTimestamp = timestamp;
+
+		int chunkIndex = (int) (sequence >>> chunkShift);
+		int offset = (int) sequence & chunkMask;
+		Chunk[] current = chunks;
+		if (offset == 0) {
+			if (chunkIndex == current.length) {
+				current = Arrays.copyOf(current, current.length * 2);
+				chunks = current;
+			}
+			current[chunkIndex] = new Chunk(chunkMask + 1);
+			if (maxChunks > 0 && chunkIndex - oldestChunk >= maxChunks) {
+				current[oldestChunk++] = null;
+				retainedFrom = (long) oldestChunk << chunkShift;
+			}
+		}
+		Chunk chunk = current[chunkIndex];
+		chunk.timestamps[offset] = timestamp;
+		chunk.counterparties[offset] = counterparty;
+		chunk.amounts[offset] = amount;
+		chunk.balances[offset] = balance;
+		chunk.scales[offset] = (byte) scale;
+		published = sequence + 1;
+	}
+
+	long size() {
+		return published;
+	}
+
+	/**
+	 * @param cursor sequence of the first entry to return
+	 * @param from   first epoch milli included
+	 * @param to     first epoch milli excluded
+	 * @param limit  maximum number of entries
+	 */
+	TransactionHistoryPage page(String accountId, long cursor, long from, long to, int limit,
+			AccountIdIndex counterparties) {
+		long end = published;
+		Chunk[] current = chunks;
+		long sequence = Math.max(cursor, retainedFrom);
+		if (sequence < end && from > Long.MIN_VALUE) {
+			sequence = seek(current, sequence, end, from);
+		}
+
+		List<TransactionHistoryEntry> entries = new ArrayList<>(Math.min(limit, 64));
+		while (sequence < end && entries.size() < limit) {
+			Chunk chunk = current[(int) (sequence >>> chunkShift)];
+			if (chunk == null) {
+				// dropped while reading, continue with the next chunk
+				sequence = (sequence | chunkMask) + 1;
+				continue;
+			}
+			int offset = (int) sequence & chunkMask;
+			if (chunk.timestamps[offset] >= to) {
+				return new TransactionHistoryPage(accountId, entries, null);
+			}
+			int scale = chunk.scales[offset];
+			entries.add(new TransactionHistoryEntry(sequence, Instant.ofEpochMilli(chunk.timestamps[offset]),
+					counterparties.idOf(chunk.counterparties[offset]), BigDecimal.valueOf(chunk.amounts[offset], scale),
+					BigDecimal.valueOf(chunk.balances[offset], scale)));
+			sequence++;
+		}
+		return new TransactionHistoryPage(accountId, entries, sequence < end ? sequence : null);
+	}
+
+	/**
+	 * @return sequence of the first entry in [start, end) whose timestamp is not
+	 *         before {@code from}, or end
+	 */
+	private long seek(Chunk[] current, long start, long end, long from) {
+		int low = (int) (start >>> chunkShift);
+		int high = (int) ((end - 1) >>> chunkShift);
+		// last chunk starting before from, the range starts in it or right after it
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			Chunk chunk = current[middle];
+			if (chunk == null || chunk.timestamps[0] < from) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		Chunk chunk = current[low];
+		long chunkStart = (long) low << chunkShift;
+		if (chunk == null) {
+			return Math.max(start, chunkStart + chunkMask + 1);
+		}
+		int first = (int) (Math.max(start, chunkStart) - chunkStart);
+		int last = (int) (Math.min(end, chunkStart + chunkMask + 1) - chunkStart);
+		while (first < last) {
+			int middle = (first + last) >>> 1;
+			if (chunk.timestamps[middle] < from) {
+				first = middle + 1;
+			} else {
+				last = middle;
+			}
+		}
+		return chunkStart + first;
+	}
+
+	/**
+	 * Columns of {@code chunkSize} consecutive entries
+	 */
+	private static final class Chunk {
+
+		private final long[] timestamps;
+
+		private final int[] counterparties;
+
+		private final long[] amounts;
+
+		private final long[] balances;
+
+		private final byte[] scales;
+
+		private Chunk(int size) {
+			this.timestamps = new long[size];
+			this.counterparties = new int[size];
+			this.amounts = new long[size];
+			this.balances = new long[size];
+			this.scales = new byte[size];
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.dws.challenge.history;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.TransactionHistoryPage;
+import com.dws.challenge.repository.AccountIdIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-account history of applied transfers, appended by the in-memory store
+ * while it holds the locks of the transfer, so the entries of an account are
+ * in the order its balance changed. Each transfer adds a debit entry to the
+ * FROM account and a credit entry to the TO account.
+ *
+ * Counterparties are interned to int indexes and amounts kept as unscaled
+ * longs, see {@link AccountHistory} for the layout. Only transfers applied
+ * since startup are kept, the journal replay does not rebuild the history.
+ *
+ * Off unless {@code challenge.history.enabled=true}, since every transfer then
+ * pays for two entries under its locks. Each account keeps its latest
+ * {@code challenge.history.max-entries-per-account} entries, 0 keeps every
+ * entry and lets the heap grow with the number of transfers.
+ */
+@Component
+@ConditionalOnProperty(name = "challenge.history.enabled", havingValue = "true")
+@Slf4j
+public class TransactionHistory {
+
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	public static final long DEFAULT_MAX_ENTRIES = 10_000;
+
+	private final Map<String, AccountHistory> accounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Never cleared, entries of dropped histories may still be read
+	 */
+	private final AccountIdIndex counterparties = new AccountIdIndex();
+
+	private final int chunkSize;
+
+	private final int maxChunks;
+
+	public TransactionHistory() {
+		this(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param chunkSize  entries per chunk, rounded up to a power of two
+	 * @param maxEntries entries kept per account, rounded up to whole chunks, 0
+	 *                   keeps every entry
+	 */
+	@Autowired
+	public TransactionHistory(@Value("${challenge.history.chunk-size:256}") int chunkSize,
+			@Value("${challenge.history.max-entries-per-account:10000}") long maxEntries) {
+		if (chunkSize < 1 || chunkSize > 1 << 20) {
+			throw new IllegalArgumentException("History chunk size must be between 1 and 1048576: " + chunkSize);
+		}
+		this.chunkSize = chunkSize == 1 ? 1 : Integer.highestOneBit(chunkSize - 1) << 1;
+		this.maxChunks = maxEntries <= 0 ? 0
+				: (int) Math.min(Integer.MAX_VALUE, (maxEntries + this.chunkSize - 1) / this.chunkSize);
+	}
+
+	/**
+	 * Records both sides of an applied transfer. Caller must hold whatever
+	 * serializes the balance changes of the two accounts.
+	 *
+	 * @param balanceFrom FROM balance after the transfer
+	 * @param balanceTo   TO balance after the transfer
+	 */
+	public void recordTransfer(String accountFromId, BigDecimal balanceFrom, String accountToId,
+			BigDecimal balanceTo, BigDecimal amount) {
+		long timestamp = System.currentTimeMillis();
+		record(accountFromId, timestamp, accountToId, amount.negate(), balanceFrom);
+		record(accountToId, timestamp, accountFromId, amount, balanceTo);
+	}
+
+	/**
+	 * @param cursor sequence of the first entry, 0 for the start of the history
+	 * @param from   first epoch milli included
+	 * @param to     first epoch milli excluded
+	 * @param limit  maximum number of entries
+	 * @return page of entries oldest first, empty when the account has none
+	 */
+	public TransactionHistoryPage getPage(String accountId, long cursor, long from, long to, int limit) {
+		AccountHistory history = accounts.get(accountId);
+		if (history == null) {
+			return new TransactionHistoryPage(accountId, List.of(), null);
+		}
+		return history.page(accountId, cursor, from, to, limit, counterparties);
+	}
+
+	/**
+	 * @return number of entries ever appended to the account
+	 */
+	public long size(String accountId) {
+		AccountHistory history = accounts.get(accountId);
+		return history == null ? 0 : history.size();
+	}
+
+	public void clear() {
+		accounts.clear();
+	}
+
+	private void record(String accountId, long timestamp, String counterpartyId, BigDecimal amount,
+			BigDecimal balance) {
+		int scale = Math.max(0, Math.max(amount.scale(), balance.scale()));
+		long unscaledAmount;
+		long unscaledBalance;
+		try {
+			if (scale > Byte.MAX_VALUE) {
+				throw new ArithmeticException("Scale " + scale + " out of range");
+			}
+			unscaledAmount = amount.setScale(scale).unscaledValue().longValueExact();
+			unscaledBalance = balance.setScale(scale).unscaledValue().longValueExact();
+		} catch (ArithmeticException e) {
+			log.warn("Not recording history entry of account {}, amount {} or balance {} does not fit", accountId,
+					amount, balance);
+			return;
+		}
+		AccountHistory history = accounts.get(accountId);
+		if (history == null) {
+			history = accounts.computeIfAbsent(accountId, id -> new AccountHistory(chunkSize, maxChunks));
+		}
+		history.append(timestamp, intern(counterpartyId), unscaledAmount, unscaledBalance, scale);
+	}
+
+	private int intern(String accountId) {
+		int index = counterparties.indexOf(accountId);
+		if (index == AccountIdIndex.NOT_FOUND) {
+			index = counterparties.add(accountId, added -> {
+			});
+			if (index == AccountIdIndex.NOT_FOUND) {
+				index = counterparties.indexOf(accountId);
+			}
+		}
+		return index;
+	}
+}
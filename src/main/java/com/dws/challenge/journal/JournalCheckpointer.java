@@ -0,0 +1,57 @@
+package com.dws.challenge.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs {@link TransactionJournal#checkpoint()} on a background thread at a
+ * fixed delay, so startup only ever replays the journal written since the
+ * last snapshot.
+ */
+@Slf4j
+public class JournalCheckpointer implements Closeable {
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * @param journal
+	 * @param intervalSeconds delay between checkpoints, 0 disables them
+	 */
+	public JournalCheckpointer(TransactionJournal journal, long intervalSeconds) {
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "journalCheckpointer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (intervalSeconds > 0) {
+			scheduler.scheduleWithFixedDelay(() -> checkpoint(journal), intervalSeconds, intervalSeconds,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void checkpoint(TransactionJournal journal) {
+		if (!journal.isOpen()) {
+			return;
+		}
+		try {
+			journal.checkpoint();
+		} catch (IOException | RuntimeException e) {
+			log.error("Journal checkpoint of {} failed", journal.getDirectory(), e);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.dws.challenge.journal;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives the journal records, in append order, while a store recovers.
+ */
+public interface JournalReplayHandler {
+
+	void onCreate(String accountId, BigDecimal balance);
+
+	void onTransfer(String accountFromId, String accountToId, BigDecimal amount);
+
+	void onClear();
+}
@@ -0,0 +1,106 @@
+package com.dws.challenge.journal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Compact binary image of every {@code accountId -> balance} pair as of the
+ * start of a journal epoch. Layout is a header {@code [magic][version][epoch]
+ * [count]} followed by {@code [id length][id utf-8][scale][unscaled length]
+ * [unscaled]} per account, both lengths unsigned shorts. Snapshots are written to a temporary file and
+ * atomically renamed, and read back through read-only mappings.
+ */
+final class SnapshotFile {
+
+	private static final int MAGIC = 0x534E4150;
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_BYTES = 24;
+
+	private static final int MAX_RECORD_BYTES = 2 + TransactionJournal.MAX_ID_BYTES + 4 + 2
+			+ TransactionJournal.MAX_UNSCALED_BYTES;
+
+	private static final long WINDOW_BYTES = 1L << 30;
+
+	private SnapshotFile() {
+	}
+
+	static Path path(Path directory, long epoch) {
+		return directory.resolve(String.format("snapshot-%020d.bin", epoch));
+	}
+
+	static boolean isSnapshot(Path path) {
+		return path.getFileName().toString().matches("snapshot-\\d{20}\\.bin");
+	}
+
+	static Path write(Path directory, long epoch, Map<String, BigDecimal> balances) throws IOException {
+		Path target = path(directory, epoch);
+		Path temporary = directory.resolve(target.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(epoch).putLong(balances.size());
+			for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+				if (buffer.remaining() < MAX_RECORD_BYTES) {
+					drain(channel, buffer);
+				}
+				byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				byte[] unscaled = entry.getValue().unscaledValue().toByteArray();
+				if (id.length > TransactionJournal.MAX_ID_BYTES
+						|| unscaled.length > TransactionJournal.MAX_UNSCALED_BYTES) {
+					throw new IOException("An account of epoch " + epoch + " does not fit in a snapshot record");
+				}
+				buffer.putShort((short) id.length).put(id);
+				buffer.putInt(entry.getValue().scale()).putShort((short) unscaled.length).put(unscaled);
+			}
+			drain(channel, buffer);
+			channel.force(true);
+		}
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return target;
+	}
+
+	/**
+	 * Emit one {@link JournalReplayHandler#onCreate} per account of the snapshot.
+	 * 
+	 * @return journal epoch replay has to continue from
+	 */
+	static long read(Path snapshot, JournalReplayHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long base = 0;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(size, WINDOW_BYTES));
+			if (size < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not a version " + VERSION + " snapshot: " + snapshot);
+			}
+			long epoch = buffer.getLong();
+			long count = buffer.getLong();
+			for (long i = 0; i < count; i++) {
+				if (buffer.remaining() < MAX_RECORD_BYTES && base + buffer.limit() < size) {
+					base += buffer.position();
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(size - base, WINDOW_BYTES));
+				}
+				handler.onCreate(TransactionJournal.getString(buffer), TransactionJournal.getDecimal(buffer));
+			}
+			return epoch;
+		}
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,685 @@
+package com.dws.challenge.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.exception.InvalidAccountIdException;
+import com.dws.challenge.exception.InvalidAmountException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, memory-mapped journal of account creations and applied
+ * transfers.
+ * 
+ * The journal is a sequence of pre-allocated segment files
+ * {@code journal-<epoch>.log}. A record is {@code [length][crc32][type]
+ * [payload]}; recovery stops at the first zero length or checksum mismatch, so
+ * a torn write at the tail is discarded and overwritten. Account ids and
+ * unscaled amounts are written with an unsigned two byte length, so neither
+ * can be longer than 65535 bytes. All legs of a
+ * multi-leg transfer go into one record, so recovery replays either every leg
+ * or none of them.
+ * 
+ * Appends only copy the record into the mapped segment. Durability is a group
+ * commit: {@link #awaitDurable(long)} wakes the flusher thread, which forces
+ * everything appended so far with one msync and releases every writer waiting
+ * for a position it covered. The cost of one fsync is therefore shared by all
+ * transfers that arrived while the previous one was running.
+ * 
+ * {@link #checkpoint()} bounds recovery time without pausing writers: it cuts
+ * the journal at a new epoch, folds the previous snapshot and every closed
+ * segment into a new {@link SnapshotFile} off the live store, then deletes the
+ * segments the snapshot covers. Startup loads the latest snapshot and replays
+ * only the segments written after it.
+ */
+@Slf4j
+public class TransactionJournal implements Closeable {
+
+	static final byte CREATE = 1;
+
+	static final byte TRANSFER = 2;
+
+	static final byte CLEAR = 3;
+
+	static final byte MULTI_LEG_TRANSFER = 4;
+
+	/**
+	 * Longest account id a record can hold, in UTF-8 bytes
+	 */
+	public static final int MAX_ID_BYTES = 0xFFFF;
+
+	/**
+	 * Longest unscaled value of an amount a record can hold, in bytes
+	 */
+	public static final int MAX_UNSCALED_BYTES = 0xFFFF;
+
+	private static final int RECORD_HEADER_BYTES = 8;
+
+	/**
+	 * Journal positions are {@code epoch << 31 | offset}, segments are below 2GB
+	 */
+	private static final int SEGMENT_POSITION_BITS = 31;
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	private final boolean groupCommit;
+
+	private final ReentrantLock appendLock = new ReentrantLock();
+
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final Condition flushRequested = flushLock.newCondition();
+
+	private final Condition durableAdvanced = flushLock.newCondition();
+
+	private final CRC32 crc = new CRC32();
+
+	private final Object checkpointLock = new Object();
+
+	private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+	private MappedByteBuffer segment;
+
+	private long epoch;
+
+	private long segmentBase;
+
+	private long appended;
+
+	private volatile long durable;
+
+	private long requested;
+
+	private Thread flusher;
+
+	private volatile boolean running;
+
+	/**
+	 * @param directory   directory holding the segment files
+	 * @param segmentSize size of one pre-allocated segment file in bytes
+	 * @param groupCommit whether {@link #awaitDurable(long)} waits for the msync,
+	 *                    without it records only survive a process crash
+	 */
+	public TransactionJournal(Path directory, int segmentSize, boolean groupCommit) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.groupCommit = groupCommit;
+	}
+
+	/**
+	 * Reject an account the journal could not record, before the store publishes
+	 * it. Transfers only name accounts that exist, so their ids never need this
+	 * check.
+	 * 
+	 * @throws InvalidAccountIdException if the id is longer than
+	 *                                   {@link #MAX_ID_BYTES}
+	 * @throws InvalidAmountException    if the unscaled balance is longer than
+	 *                                   {@link #MAX_UNSCALED_BYTES}
+	 */
+	public static void checkAccount(String accountId, BigDecimal balance)
+			throws InvalidAccountIdException, InvalidAmountException {
+		if (accountId.getBytes(StandardCharsets.UTF_8).length > MAX_ID_BYTES) {
+			throw new InvalidAccountIdException("Account id is longer than " + MAX_ID_BYTES + " bytes.",
+					ErrorCode.ACCOUNT_ERROR);
+		}
+		if (unscaledBytes(balance) > MAX_UNSCALED_BYTES) {
+			throw new InvalidAmountException("Balance has more digits than the journal can hold.",
+					ErrorCode.AMOUNT_ERROR);
+		}
+	}
+
+	/**
+	 * Replay every record into the handler, position the journal after the last
+	 * valid record and start accepting appends.
+	 * 
+	 * @param handler
+	 * @return number of records replayed
+	 * @throws IOException
+	 */
+	public long open(JournalReplayHandler handler) throws IOException {
+		appendLock.lock();
+		try {
+			if (running) {
+				throw new IllegalStateException("Journal " + directory + " is already open");
+			}
+			Files.createDirectories(directory);
+			long records = 0;
+			long firstEpoch = 0;
+			Path snapshot = latestSnapshot();
+			if (snapshot != null) {
+				long started = System.nanoTime();
+				CountingHandler counting = new CountingHandler(handler);
+				firstEpoch = SnapshotFile.read(snapshot, counting);
+				records += counting.records;
+				log.info("Loaded {} accounts of {} in {} ms", counting.records, snapshot.getFileName(),
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+			}
+			segment = null;
+			for (Path path : segments()) {
+				if (epochOf(path) < firstEpoch) {
+					continue;
+				}
+				long started = System.nanoTime();
+				MappedByteBuffer buffer = map(path, Files.size(path));
+				long replayed = replay(buffer, handler);
+				records += replayed;
+				log.info("Replayed {} records of {} in {} ms", replayed, path.getFileName(),
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+				epoch = epochOf(path);
+				segment = buffer;
+			}
+			if (segment == null) {
+				epoch = firstEpoch;
+				segment = map(segmentPath(epoch), segmentSize);
+			}
+			segmentBase = epoch << SEGMENT_POSITION_BITS;
+			appended = segmentBase + segment.position();
+			durable = appended;
+			requested = appended;
+			running = true;
+			flusher = new Thread(this::flush, "journalFlusher");
+			flusher.setDaemon(true);
+			flusher.start();
+			return records;
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * @return journal position after the record
+	 */
+	public long appendCreate(String accountId, BigDecimal balance) {
+		appendLock.lock();
+		try {
+			startRecord(CREATE);
+			putString(accountId);
+			putDecimal(balance);
+			return append();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * @return journal position after the record
+	 */
+	public long appendTransfer(String accountFromId, String accountToId, BigDecimal amount) {
+		appendLock.lock();
+		try {
+			startRecord(TRANSFER);
+			putString(accountFromId);
+			putString(accountToId);
+			putDecimal(amount);
+			return append();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Journal every leg of a multi-leg transfer as one record, replayed as one
+	 * {@link JournalReplayHandler#onTransfer} per leg.
+	 * 
+	 * @return journal position after the record
+	 */
+	public long appendMultiLegTransfer(String accountFromId, List<TransferLeg> legs) {
+		appendLock.lock();
+		try {
+			startRecord(MULTI_LEG_TRANSFER);
+			putString(accountFromId);
+			ensureCapacity(4);
+			scratch.putInt(legs.size());
+			for (TransferLeg leg : legs) {
+				putString(leg.getAccountToId());
+				putDecimal(leg.getAmount());
+			}
+			return append();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * @return journal position after the record
+	 */
+	public long appendClear() {
+		appendLock.lock();
+		try {
+			startRecord(CLEAR);
+			return append();
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * Block until every record up to the position is on stable storage. Callers
+	 * must not hold any store lock while waiting, so that other transfers can
+	 * join the same commit.
+	 * 
+	 * @param position returned by one of the append methods
+	 */
+	public void awaitDurable(long position) {
+		if (!groupCommit || durable >= position) {
+			return;
+		}
+		flushLock.lock();
+		try {
+			if (requested < position) {
+				requested = position;
+				flushRequested.signal();
+			}
+			while (durable < position) {
+				if (!running) {
+					throw new IllegalStateException("Journal " + directory + " is closed");
+				}
+				durableAdvanced.awaitUninterruptibly();
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Write a snapshot covering every record appended so far and delete the
+	 * journal segments and older snapshots it replaces. Runs concurrently with
+	 * appends, which only wait for the segment switch.
+	 * 
+	 * @return the new snapshot
+	 * @throws IOException
+	 */
+	public Path checkpoint() throws IOException {
+		synchronized (checkpointLock) {
+			long snapshotEpoch;
+			appendLock.lock();
+			try {
+				if (!running) {
+					throw new IllegalStateException("Journal " + directory + " is not open");
+				}
+				rotate();
+				snapshotEpoch = epoch;
+			} finally {
+				appendLock.unlock();
+			}
+
+			long started = System.nanoTime();
+			Map<String, BigDecimal> balances = new HashMap<>();
+			BalanceCollector collector = new BalanceCollector(balances);
+			long fromEpoch = 0;
+			Path previous = latestSnapshot();
+			if (previous != null) {
+				fromEpoch = SnapshotFile.read(previous, collector);
+			}
+			List<Path> covered = new ArrayList<>();
+			for (Path path : segments()) {
+				long segmentEpoch = epochOf(path);
+				if (segmentEpoch < snapshotEpoch) {
+					covered.add(path);
+					if (segmentEpoch >= fromEpoch) {
+						try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+							replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), collector);
+						}
+					}
+				}
+			}
+			Path snapshot = SnapshotFile.write(directory, snapshotEpoch, balances);
+
+			for (Path path : covered) {
+				Files.deleteIfExists(path);
+			}
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path path : (Iterable<Path>) files::iterator) {
+					if (SnapshotFile.isSnapshot(path) && !path.equals(snapshot)) {
+						Files.deleteIfExists(path);
+					}
+				}
+			}
+			log.info("Wrote {} with {} accounts, removed {} journal segments in {} ms", snapshot.getFileName(),
+					balances.size(), covered.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+			return snapshot;
+		}
+	}
+
+	public boolean isOpen() {
+		return running;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!running) {
+			return;
+		}
+		flushLock.lock();
+		try {
+			running = false;
+			flushRequested.signal();
+		} finally {
+			flushLock.unlock();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		appendLock.lock();
+		try {
+			segment.force();
+			markDurable(segmentBase + segment.position());
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Copy the record built in the scratch buffer into the segment. Caller holds
+	 * the append lock.
+	 */
+	private long append() {
+		if (!running) {
+			throw new IllegalStateException("Journal " + directory + " is not open");
+		}
+		ByteBuffer body = scratch.flip();
+		int length = body.remaining();
+		if (length + RECORD_HEADER_BYTES > segmentSize) {
+			throw new IllegalArgumentException("Journal record of " + length + " bytes does not fit a segment");
+		}
+		if (segment.remaining() < length + RECORD_HEADER_BYTES) {
+			rotate();
+		}
+		crc.reset();
+		crc.update(body.duplicate());
+		segment.putInt(length);
+		segment.putInt((int) crc.getValue());
+		segment.put(body);
+		appended = segmentBase + segment.position();
+		return appended;
+	}
+
+	/**
+	 * Caller holds the append lock. The full segment is forced before the next
+	 * one is started, so positions of older segments are always durable.
+	 */
+	private void rotate() {
+		segment.force();
+		markDurable(segmentBase + segment.position());
+		epoch++;
+		segmentBase = epoch << SEGMENT_POSITION_BITS;
+		try {
+			segment = map(segmentPath(epoch), segmentSize);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can not start journal segment " + epoch, e);
+		}
+	}
+
+	private void flush() {
+		while (true) {
+			flushLock.lock();
+			try {
+				while (running && requested <= durable) {
+					flushRequested.awaitUninterruptibly();
+				}
+				if (!running) {
+					durableAdvanced.signalAll();
+					return;
+				}
+			} finally {
+				flushLock.unlock();
+			}
+
+			long target;
+			MappedByteBuffer buffer;
+			appendLock.lock();
+			try {
+				target = appended;
+				buffer = segment;
+			} finally {
+				appendLock.unlock();
+			}
+			buffer.force();
+			markDurable(target);
+		}
+	}
+
+	private void markDurable(long position) {
+		flushLock.lock();
+		try {
+			if (position > durable) {
+				durable = position;
+			}
+			durableAdvanced.signalAll();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void startRecord(byte type) {
+		scratch.clear();
+		scratch.put(type);
+	}
+
+	/**
+	 * Throws before the record is appended, the next record starts over
+	 */
+	private void putString(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_ID_BYTES) {
+			throw new IllegalArgumentException("Account id is longer than " + MAX_ID_BYTES + " bytes");
+		}
+		ensureCapacity(2 + bytes.length);
+		scratch.putShort((short) bytes.length);
+		scratch.put(bytes);
+	}
+
+	/**
+	 * Throws before the record is appended, the next record starts over
+	 */
+	private void putDecimal(BigDecimal value) {
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		if (unscaled.length > MAX_UNSCALED_BYTES) {
+			throw new IllegalArgumentException("Amount has more than " + MAX_UNSCALED_BYTES + " unscaled bytes");
+		}
+		ensureCapacity(6 + unscaled.length);
+		scratch.putInt(value.scale());
+		scratch.putShort((short) unscaled.length);
+		scratch.put(unscaled);
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (scratch.remaining() < bytes) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+			scratch.flip();
+			grown.put(scratch);
+			scratch = grown;
+		}
+	}
+
+	/**
+	 * @return number of records replayed, the buffer is left positioned after the
+	 *         last valid record
+	 */
+	static long replay(ByteBuffer buffer, JournalReplayHandler handler) {
+		CRC32 checksum = new CRC32();
+		long records = 0;
+		while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+			int start = buffer.position();
+			int length = buffer.getInt(start);
+			if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_BYTES) {
+				break;
+			}
+			ByteBuffer body = buffer.slice(start + RECORD_HEADER_BYTES, length);
+			checksum.reset();
+			checksum.update(body.duplicate());
+			if ((int) checksum.getValue() != buffer.getInt(start + 4)) {
+				log.warn("Discarding torn journal record at offset {}", start);
+				break;
+			}
+			dispatch(body, handler);
+			buffer.position(start + RECORD_HEADER_BYTES + length);
+			records++;
+		}
+		return records;
+	}
+
+	private static void dispatch(ByteBuffer body, JournalReplayHandler handler) {
+		byte type = body.get();
+		switch (type) {
+		case CREATE:
+			handler.onCreate(getString(body), getDecimal(body));
+			break;
+		case TRANSFER:
+			handler.onTransfer(getString(body), getString(body), getDecimal(body));
+			break;
+		case CLEAR:
+			handler.onClear();
+			break;
+		case MULTI_LEG_TRANSFER:
+			String accountFromId = getString(body);
+			for (int legs = body.getInt(); legs > 0; legs--) {
+				handler.onTransfer(accountFromId, getString(body), getDecimal(body));
+			}
+			break;
+		default:
+			throw new IllegalStateException("Unknown journal record type " + type);
+		}
+	}
+
+	static String getString(ByteBuffer body) {
+		byte[] bytes = new byte[body.getShort() & 0xFFFF];
+		body.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static BigDecimal getDecimal(ByteBuffer body) {
+		int scale = body.getInt();
+		byte[] unscaled = new byte[body.getShort() & 0xFFFF];
+		body.get(unscaled);
+		return new BigDecimal(new BigInteger(unscaled), scale);
+	}
+
+	/**
+	 * Length of {@code value.unscaledValue().toByteArray()} without building it
+	 */
+	static int unscaledBytes(BigDecimal value) {
+		return value.unscaledValue().bitLength() / 8 + 1;
+	}
+
+	List<Path> segments() throws IOException {
+		List<Path> segments = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.filter(path -> path.getFileName().toString().matches("journal-\\d{20}\\.log")).sorted()
+					.forEach(segments::add);
+		}
+		return segments;
+	}
+
+	Path latestSnapshot() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(SnapshotFile::isSnapshot).max(Path::compareTo).orElse(null);
+		}
+	}
+
+	Path segmentPath(long segmentEpoch) {
+		return directory.resolve(String.format("journal-%020d.log", segmentEpoch));
+	}
+
+	static long epochOf(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+	}
+
+	private static MappedByteBuffer map(Path path, long size) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			if (file.length() < size) {
+				file.setLength(size);
+			}
+			return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	/**
+	 * Folds records into a plain map while a checkpoint builds its snapshot.
+	 */
+	private static final class BalanceCollector implements JournalReplayHandler {
+
+		private final Map<String, BigDecimal> balances;
+
+		private BalanceCollector(Map<String, BigDecimal> balances) {
+			this.balances = balances;
+		}
+
+		@Override
+		public void onCreate(String accountId, BigDecimal balance) {
+			balances.put(accountId, balance);
+		}
+
+		@Override
+		public void onTransfer(String accountFromId, String accountToId, BigDecimal amount) {
+			balances.computeIfPresent(accountFromId, (accountId, balance) -> balance.subtract(amount));
+			balances.computeIfPresent(accountToId, (accountId, balance) -> balance.add(amount));
+		}
+
+		@Override
+		public void onClear() {
+			balances.clear();
+		}
+	}
+
+	private static final class CountingHandler implements JournalReplayHandler {
+
+		private final JournalReplayHandler delegate;
+
+		private long records;
+
+		private CountingHandler(JournalReplayHandler delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void onCreate(String accountId, BigDecimal balance) {
+			records++;
+			delegate.onCreate(accountId, balance);
+		}
+
+		@Override
+		public void onTransfer(String accountFromId, String accountToId, BigDecimal amount) {
+			records++;
+			delegate.onTransfer(accountFromId, accountToId, amount);
+		}
+
+		@Override
+		public void onClear() {
+			records++;
+			delegate.onClear();
+		}
+	}
+}
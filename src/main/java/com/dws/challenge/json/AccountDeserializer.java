@@ -0,0 +1,41 @@
+package com.dws.challenge.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.Account;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Binds {@code {"accountId":..,"balance":..}} without going through the
+ * creator of {@link Account} reflectively
+ */
+public class AccountDeserializer extends StdDeserializer<Account> {
+
+	public AccountDeserializer() {
+		super(Account.class);
+	}
+
+	@Override
+	public Account deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		String accountId = null;
+		BigDecimal balance = null;
+		String field = JsonValues.firstFieldName(parser, context, Account.class);
+		for (; field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+			case "accountId":
+				accountId = JsonValues.readString(parser, context);
+				break;
+			case "balance":
+				balance = JsonValues.readAmount(parser, context);
+				break;
+			default:
+				context.handleUnknownProperty(parser, this, Account.class, field);
+			}
+		}
+		return new Account(accountId, balance);
+	}
+}
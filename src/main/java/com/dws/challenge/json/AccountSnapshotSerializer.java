@@ -0,0 +1,28 @@
+package com.dws.challenge.json;
+
+import java.io.IOException;
+
+import com.dws.challenge.domain.AccountSnapshot;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes {@code {"accountId":..,"balance":..}}, the form an account is read
+ * back in
+ */
+public class AccountSnapshotSerializer extends StdSerializer<AccountSnapshot> {
+
+	public AccountSnapshotSerializer() {
+		super(AccountSnapshot.class);
+	}
+
+	@Override
+	public void serialize(AccountSnapshot snapshot, JsonGenerator generator, SerializerProvider provider)
+			throws IOException {
+		generator.writeStartObject(snapshot);
+		generator.writeStringField("accountId", snapshot.getAccountId());
+		JsonValues.writeAmount(generator, "balance", snapshot.getBalance());
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,128 @@
+package com.dws.challenge.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+/**
+ * Field values of the hand-written codecs of the domain classes, read and
+ * written straight from and to the token stream. A plain decimal number is built
+ * from the characters already buffered by the parser, without the String and
+ * the BigInteger that {@link JsonParser#getDecimalValue()} goes through, and
+ * keeps the scale it was written with, so amounts come out exactly as the
+ * standard BigDecimal deserializer would read them.
+ */
+public final class JsonValues {
+
+	/**
+	 * Digits a long always holds
+	 */
+	private static final int MAX_COMPACT_DIGITS = 18;
+
+	private JsonValues() {
+	}
+
+	/**
+	 * @return name of the first field of the object at the current token, null
+	 *         for an empty object
+	 */
+	public static String firstFieldName(JsonParser parser, DeserializationContext context, Class<?> type)
+			throws IOException {
+		if (parser.isExpectedStartObjectToken()) {
+			return parser.nextFieldName();
+		}
+		if (parser.currentToken() == JsonToken.FIELD_NAME) {
+			return parser.currentName();
+		}
+		throw context.wrongTokenException(parser, type, JsonToken.START_OBJECT, null);
+	}
+
+	/**
+	 * Reads the amount at the current token. Exponents, very long numbers and
+	 * any other token, such as a quoted number, fall back to the standard
+	 * BigDecimal deserializer and its coercion rules.
+	 *
+	 * @return amount, null for a JSON null
+	 */
+	public static BigDecimal readAmount(JsonParser parser, DeserializationContext context) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+			return BigDecimal.valueOf(parser.getLongValue());
+		}
+		if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+			BigDecimal amount = parseDecimal(parser.getTextCharacters(), parser.getTextOffset(),
+					parser.getTextLength());
+			if (amount != null) {
+				return amount;
+			}
+		}
+		return context.readValue(parser, BigDecimal.class);
+	}
+
+	/**
+	 * @return text of a string token, anything else is coerced by the standard
+	 *         String deserializer
+	 */
+	public static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+		if (parser.currentToken() == JsonToken.VALUE_STRING) {
+			return parser.getText();
+		}
+		if (parser.currentToken() == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		return context.readValue(parser, String.class);
+	}
+
+	public static void writeAmount(JsonGenerator generator, String fieldName, BigDecimal amount) throws IOException {
+		generator.writeFieldName(fieldName);
+		if (amount == null) {
+			generator.writeNull();
+		} else {
+			generator.writeNumber(amount);
+		}
+	}
+
+	/**
+	 * @return amount of {@code [-]digits[.digits]}, null when it has an exponent
+	 *         or more digits than fit a long
+	 */
+	static BigDecimal parseDecimal(char[] chars, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		boolean negative = i < end && chars[i] == '-';
+		if (negative) {
+			i++;
+		}
+		long unscaled = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		for (; i < end; i++) {
+			char c = chars[i];
+			if (c >= '0' && c <= '9') {
+				if (++digits > MAX_COMPACT_DIGITS) {
+					return null;
+				}
+				unscaled = unscaled * 10 + (c - '0');
+				if (fraction) {
+					scale++;
+				}
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				return null;
+			}
+		}
+		if (digits == 0) {
+			return null;
+		}
+		return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+	}
+}
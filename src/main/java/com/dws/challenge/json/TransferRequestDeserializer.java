@@ -0,0 +1,45 @@
+package com.dws.challenge.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.TransferRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Binds {@code {"accountFromId":..,"accountToId":..,"amount":..}}, also for
+ * every transfer of a batch
+ */
+public class TransferRequestDeserializer extends StdDeserializer<TransferRequest> {
+
+	public TransferRequestDeserializer() {
+		super(TransferRequest.class);
+	}
+
+	@Override
+	public TransferRequest deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		String accountFromId = null;
+		String accountToId = null;
+		BigDecimal amount = null;
+		String field = JsonValues.firstFieldName(parser, context, TransferRequest.class);
+		for (; field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+			case "accountFromId":
+				accountFromId = JsonValues.readString(parser, context);
+				break;
+			case "accountToId":
+				accountToId = JsonValues.readString(parser, context);
+				break;
+			case "amount":
+				amount = JsonValues.readAmount(parser, context);
+				break;
+			default:
+				context.handleUnknownProperty(parser, this, TransferRequest.class, field);
+			}
+		}
+		return new TransferRequest(accountFromId, accountToId, amount);
+	}
+}
@@ -0,0 +1,27 @@
+package com.dws.challenge.json;
+
+import java.io.IOException;
+
+import com.dws.challenge.domain.TransferResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes {@code {"accountFromId":..,"balanceAfterTransfer":..}}
+ */
+public class TransferResultSerializer extends StdSerializer<TransferResult> {
+
+	public TransferResultSerializer() {
+		super(TransferResult.class);
+	}
+
+	@Override
+	public void serialize(TransferResult result, JsonGenerator generator, SerializerProvider provider)
+			throws IOException {
+		generator.writeStartObject(result);
+		generator.writeStringField("accountFromId", result.getAccountFromId());
+		JsonValues.writeAmount(generator, "balanceAfterTransfer", result.getBalanceAfterTransfer());
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,67 @@
+package com.dws.challenge.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.repository.LockTableOwner;
+import com.dws.challenge.repository.StripedLockTable;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the lock stripe table of the in-memory, compact or mapped store.
+ * Aggregate values are registered as meters, the per-stripe contention counts
+ * are served by the {@code /actuator/lockstripes} endpoint so the stripe count
+ * can be sized against real traffic without creating one time series per
+ * stripe.
+ */
+@Component
+@Endpoint(id = "lockstripes")
+@ConditionalOnExpression("'${challenge.accounts.store:in-memory}'.matches('in-memory|compact|mapped')")
+public class LockStripeMetrics implements MeterBinder {
+
+	private final StripedLockTable lockTable;
+
+	public LockStripeMetrics(LockTableOwner accountsRepository) {
+		this.lockTable = accountsRepository.getLockTable();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("accounts.lock.stripes", lockTable, StripedLockTable::stripeCount)
+				.description("Number of lock stripes guarding the account store").register(registry);
+		FunctionCounter.builder("accounts.lock.acquisitions", lockTable, StripedLockTable::acquisitions)
+				.description("Lock stripe acquisitions").register(registry);
+		FunctionCounter.builder("accounts.lock.contended", lockTable, StripedLockTable::totalContention)
+				.description("Lock stripe acquisitions that had to wait for another thread").register(registry);
+		Gauge.builder("accounts.lock.contended.max", lockTable, StripedLockTable::maxContention)
+				.description("Contended acquisitions of the hottest stripe").register(registry);
+		Timer wait = Timer.builder("accounts.lock.wait").publishPercentileHistogram()
+				.description("Time contended acquisitions waited for their lock stripe").register(registry);
+		lockTable.setWaitListener(nanos -> wait.record(nanos, TimeUnit.NANOSECONDS));
+	}
+
+	@ReadOperation
+	public Map<String, Object> lockStripes() {
+		long[] contention = new long[lockTable.stripeCount()];
+		for (int i = 0; i < contention.length; i++) {
+			contention[i] = lockTable.contention(i);
+		}
+		Map<String, Object> stripes = new LinkedHashMap<>();
+		stripes.put("stripes", lockTable.stripeCount());
+		stripes.put("acquisitions", lockTable.acquisitions());
+		stripes.put("contended", lockTable.totalContention());
+		stripes.put("contention", contention);
+		return stripes;
+	}
+}
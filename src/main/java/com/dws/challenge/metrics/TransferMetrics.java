@@ -0,0 +1,67 @@
+package com.dws.challenge.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.TransferOutcome;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times transfers from submission to completion, including the wait for an
+ * executor thread, tagged by outcome. The timers are registered once so the
+ * transfer path only reads the clock and records.
+ */
+@Component
+public class TransferMetrics {
+
+	private final Timer success;
+
+	private final Timer overDraft;
+
+	private final Timer accountNotExist;
+
+	private final Timer error;
+
+	@Autowired
+	public TransferMetrics(MeterRegistry registry) {
+		this.success = timer(registry, "success");
+		this.overDraft = timer(registry, "overdraft");
+		this.accountNotExist = timer(registry, "account_not_exist");
+		this.error = timer(registry, "error");
+	}
+
+	/**
+	 * @param startedNanos {@link System#nanoTime()} when the transfer was
+	 *                     submitted
+	 * @param outcome      outcome of the transfer, null when it failed
+	 * @param failure      null unless the transfer failed with an exception
+	 */
+	public void record(long startedNanos, TransferOutcome outcome, Throwable failure) {
+		timerFor(outcome, failure).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer timerFor(TransferOutcome outcome, Throwable failure) {
+		if (failure != null || outcome == null) {
+			return error;
+		}
+		switch (outcome.getStatus()) {
+		case APPLIED:
+			return success;
+		case INSUFFICIENT_FUNDS:
+			return overDraft;
+		case ACCOUNT_NOT_FOUND:
+			return accountNotExist;
+		default:
+			return error;
+		}
+	}
+
+	private static Timer timer(MeterRegistry registry, String outcome) {
+		return Timer.builder("transfer").tag("outcome", outcome).publishPercentileHistogram()
+				.description("Transfers from submission to completion").register(registry);
+	}
+}
@@ -0,0 +1,224 @@
+package com.dws.challenge.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interns account ids to dense int indexes, assigned in creation order from 0.
+ * 
+ * The ids are copied into one shared byte array, one byte per character when
+ * the id is Latin-1 and two otherwise, and found through an open-addressing
+ * table of int indexes with linear probing. An entry costs a few ints plus its
+ * characters instead of a map node and a String. Lookups take no lock: the
+ * arrays of a table are only written before the slot that publishes an entry
+ * is released, and growing builds a new table that replaces the old one in a
+ * single volatile write. Additions are serialized.
+ */
+public final class AccountIdIndex {
+
+	public static final int NOT_FOUND = -1;
+
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Set in the stored hash of ids holding characters above Latin-1
+	 */
+	private static final int WIDE = 1;
+
+	private volatile Table table = new Table(INITIAL_CAPACITY, INITIAL_CAPACITY * 16);
+
+	/**
+	 * @return index of the account, or {@link #NOT_FOUND}
+	 */
+	public int indexOf(String accountId) {
+		return table.find(accountId, hash(accountId));
+	}
+
+	/**
+	 * Assigns the next index to the account id. {@code beforePublish} runs with
+	 * the new index before any reader can find it, so the caller can initialize
+	 * the data it keeps under that index.
+	 * 
+	 * @return the new index, or {@link #NOT_FOUND} when the id already exists
+	 */
+	public synchronized int add(String accountId, IndexInitializer beforePublish) {
+		int hash = hash(accountId);
+		Table current = table;
+		if (current.find(accountId, hash) != NOT_FOUND) {
+			return NOT_FOUND;
+		}
+		int length = (hash & WIDE) == 0 ? accountId.length() : accountId.length() * 2;
+		if (current.size == current.capacity || current.byteCount + length > current.bytes.length) {
+			current = current.grow(length);
+			table = current;
+		}
+		int index = current.size;
+		beforePublish.initialize(index);
+		current.append(accountId, hash);
+		return index;
+	}
+
+	/**
+	 * @return the account id interned at the index
+	 */
+	public String idOf(int index) {
+		Table current = table;
+		int start = current.offsets[index];
+		int length = current.offsets[index + 1] - start;
+		if ((current.hashes[index] & WIDE) == 0) {
+			return new String(current.bytes, start, length, StandardCharsets.ISO_8859_1);
+		}
+		char[] chars = new char[length / 2];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = current.wideChar(start + 2 * i);
+		}
+		return new String(chars);
+	}
+
+	public int size() {
+		return table.size;
+	}
+
+	public synchronized void clear() {
+		table = new Table(INITIAL_CAPACITY, INITIAL_CAPACITY * 16);
+	}
+
+	@FunctionalInterface
+	public interface IndexInitializer {
+
+		void initialize(int index);
+	}
+
+	private static int hash(String accountId) {
+		int h = accountId.hashCode() * 0x9E3779B9;
+		h ^= h >>> 16;
+		for (int i = 0; i < accountId.length(); i++) {
+			if (accountId.charAt(i) > 0xFF) {
+				return h | WIDE;
+			}
+		}
+		return h & ~WIDE;
+	}
+
+	private static final class Table {
+
+		/**
+		 * index + 1 of the entry in the slot, 0 when empty. Twice the entry
+		 * capacity, so the load factor stays at or below one half.
+		 */
+		private final int[] slots;
+
+		private final int mask;
+
+		private final int capacity;
+
+		private final int[] hashes;
+
+		/**
+		 * The id of entry i is bytes[offsets[i]] to bytes[offsets[i + 1]]
+		 */
+		private final int[] offsets;
+
+		private final byte[] bytes;
+
+		/**
+		 * Only written by the adding thread, readers find entries through the slots
+		 */
+		private volatile int size;
+
+		private int byteCount;
+
+		private Table(int capacity, int byteCapacity) {
+			this.capacity = capacity;
+			this.slots = new int[capacity * 2];
+			this.mask = slots.length - 1;
+			this.hashes = new int[capacity];
+			this.offsets = new int[capacity + 1];
+			this.bytes = new byte[byteCapacity];
+		}
+
+		private int find(String accountId, int hash) {
+			for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+				int entry = (int) SLOTS.getAcquire(slots, slot);
+				if (entry == 0) {
+					return NOT_FOUND;
+				}
+				int index = entry - 1;
+				if (hashes[index] == hash && matches(index, accountId, (hash & WIDE) != 0)) {
+					return index;
+				}
+			}
+		}
+
+		private boolean matches(int index, String accountId, boolean wide) {
+			int start = offsets[index];
+			int length = offsets[index + 1] - start;
+			if (length != (wide ? accountId.length() * 2 : accountId.length())) {
+				return false;
+			}
+			for (int i = 0; i < accountId.length(); i++) {
+				char stored = wide ? wideChar(start + 2 * i) : (char) (bytes[start + i] & 0xFF);
+				if (stored != accountId.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private char wideChar(int offset) {
+			return (char) ((bytes[offset] & 0xFF) << 8 | (bytes[offset + 1] & 0xFF));
+		}
+
+		private void append(String accountId, int hash) {
+			int index = size;
+			hashes[index] = hash;
+			if ((hash & WIDE) == 0) {
+				for (int i = 0; i < accountId.length(); i++) {
+					bytes[byteCount++] = (byte) accountId.charAt(i);
+				}
+			} else {
+				for (int i = 0; i < accountId.length(); i++) {
+					char c = accountId.charAt(i);
+					bytes[byteCount++] = (byte) (c >>> 8);
+					bytes[byteCount++] = (byte) c;
+				}
+			}
+			offsets[index + 1] = byteCount;
+			insert(index, hash);
+			size = index + 1;
+		}
+
+		private void insert(int index, int hash) {
+			int slot = hash & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			SLOTS.setRelease(slots, slot, index + 1);
+		}
+
+		/**
+		 * Entry capacity doubles, the byte array grows by half so that its slack
+		 * stays small next to the ids themselves.
+		 */
+		private Table grow(int pendingBytes) {
+			int capacity = size == this.capacity ? this.capacity * 2 : this.capacity;
+			int byteCapacity = bytes.length;
+			while (byteCount + pendingBytes > byteCapacity) {
+				byteCapacity += byteCapacity >>> 1;
+			}
+			Table grown = new Table(capacity, byteCapacity);
+			System.arraycopy(hashes, 0, grown.hashes, 0, size);
+			System.arraycopy(offsets, 0, grown.offsets, 0, size + 1);
+			System.arraycopy(bytes, 0, grown.bytes, 0, byteCount);
+			grown.byteCount = byteCount;
+			for (int i = 0; i < size; i++) {
+				grown.insert(i, hashes[i]);
+			}
+			grown.size = size;
+			return grown;
+		}
+	}
+}
@@ -1,10 +1,21 @@
 package com.dws.challenge.repository;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import com.dws.challenge.domain.BatchTransferItemResult;
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferOutcome;
 import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.BusinessException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.OverDraftException;
 
 public interface AccountsRepository {
 
@@ -12,9 +23,169 @@ public interface AccountsRepository {
 	
 	Account getAccount(String accountId);
 
+	/**
+	 * Consistent copy of the account for readers. Stores that mutate live
+	 * {@link Account} objects read them through {@link Account#snapshot()}
+	 * instead of handing them out.
+	 * 
+	 * @param accountId
+	 * @return snapshot of the account, or null when it does not exist
+	 */
+	default AccountSnapshot getAccountSnapshot(String accountId) {
+		Account account = getAccount(accountId);
+		return account == null ? null : account.snapshot();
+	}
+
+	/**
+	 * @param accountId
+	 * @return whether the account exists
+	 */
+	default boolean accountExists(String accountId) {
+		return getAccount(accountId) != null;
+	}
+
+	/**
+	 * @return whether applied transfers are recorded in a
+	 *         {@link com.dws.challenge.history.TransactionHistory}
+	 */
+	default boolean recordsHistory() {
+		return false;
+	}
+
 	void clearAccounts();
 	
-	public Map<String, Account> transferBalances(TransferRequest transfer);
-	
-	Map<String, Account> getAccount();
+	/**
+	 * Move the requested amount from the FROM account to the TO account as one
+	 * atomic step. Both accounts are resolved once, and their existence and the
+	 * funds are checked in the same step that applies the transfer, so there is
+	 * no window between a check and the update. Implementations must be safe to
+	 * call concurrently and must not lose updates or deadlock when two transfers
+	 * touch the same accounts in opposite directions.
+	 * 
+	 * @param transfer
+	 * @return applied outcome holding the FROM account balance after the
+	 *         transfer, or the reason it was rejected
+	 */
+	TransferOutcome tryTransfer(TransferRequest transfer);
+
+	/**
+	 * Exception based form of {@link #tryTransfer(TransferRequest)}, kept as the
+	 * adapter for the REST layer.
+	 * 
+	 * @param transfer
+	 * @return result holding the FROM account balance after the transfer
+	 * @throws OverDraftException
+	 * @throws AccountNotExistException
+	 */
+	default TransferResult transferBalances(TransferRequest transfer)
+			throws OverDraftException, AccountNotExistException {
+		return tryTransfer(transfer).orElseThrow();
+	}
+
+	/**
+	 * Run {@link #tryTransfer(TransferRequest)} without blocking the caller.
+	 * Stores with their own execution model complete the future from their own
+	 * threads instead of using the executor.
+	 * 
+	 * @param transfer
+	 * @param executor executor used by stores that apply transfers on the
+	 *                 calling thread
+	 * @return future completed with the outcome
+	 */
+	default CompletableFuture<TransferOutcome> tryTransferAsync(TransferRequest transfer, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> tryTransfer(transfer), executor);
+	}
+
+	/**
+	 * Exception based form of {@link #tryTransferAsync(TransferRequest, Executor)}
+	 * 
+	 * @param transfer
+	 * @param executor
+	 * @return future completed with the result, or exceptionally with the
+	 *         business exception
+	 */
+	default CompletableFuture<TransferResult> transferBalancesAsync(TransferRequest transfer, Executor executor) {
+		return tryTransferAsync(transfer, executor).thenApply(TransferOutcome::orElseThrow);
+	}
+
+	/**
+	 * Debit the total of all legs from the FROM account and credit every leg as
+	 * one atomic step. The FROM account and every TO account are resolved first,
+	 * the total is checked against the FROM balance once, and either every leg
+	 * is applied or none is.
+	 * 
+	 * @param transfer
+	 * @return applied outcome holding the FROM account balance after all legs,
+	 *         or the reason the whole transfer was rejected
+	 */
+	TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer);
+
+	/**
+	 * Run {@link #tryTransferMultiLeg(MultiLegTransferRequest)} without blocking
+	 * the caller, like {@link #tryTransferAsync(TransferRequest, Executor)}
+	 */
+	default CompletableFuture<TransferOutcome> tryTransferMultiLegAsync(MultiLegTransferRequest transfer,
+			Executor executor) {
+		return CompletableFuture.supplyAsync(() -> tryTransferMultiLeg(transfer), executor);
+	}
+
+	/**
+	 * Apply the transfers in the given order. A failing transfer is reported in
+	 * its item result and does not stop the rest of the batch.
+	 * 
+	 * @param transfers
+	 * @return one result per transfer, in submission order
+	 */
+	default List<BatchTransferItemResult> transferBatch(List<TransferRequest> transfers) {
+		List<BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+		transferBatch(transfers, new BatchListener() {
+
+			@Override
+			public void onOutcome(int index, TransferOutcome outcome) {
+				results.add(BatchTransferItemResult.of(index, outcome));
+			}
+
+			@Override
+			public void onRejected(int index, BusinessException e) {
+				results.add(BatchTransferItemResult.rejected(index, e));
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Same as {@link #transferBatch(List)}, handing each typed outcome to the
+	 * listener in submission order instead of collecting item results. Stores
+	 * that lock per account should override this to take every lock once per
+	 * batch. The listener may be called with those locks held, before the batch
+	 * is durable, so it must only record the outcome.
+	 * 
+	 * @param transfers
+	 * @param listener
+	 */
+	default void transferBatch(List<TransferRequest> transfers, BatchListener listener) {
+		for (int i = 0; i < transfers.size(); i++) {
+			TransferOutcome outcome;
+			try {
+				outcome = tryTransfer(transfers.get(i));
+			} catch (BusinessException e) {
+				listener.onRejected(i, e);
+				continue;
+			}
+			listener.onOutcome(i, outcome);
+		}
+	}
+
+	/**
+	 * Receives the result of each transfer of a batch
+	 */
+	interface BatchListener {
+
+		void onOutcome(int index, TransferOutcome outcome);
+
+		/**
+		 * The store rejected the transfer with an exception instead of an outcome
+		 */
+		void onRejected(int index, BusinessException e);
+	}
 }
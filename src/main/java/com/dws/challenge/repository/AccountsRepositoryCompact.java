@@ -0,0 +1,163 @@
+package com.dws.challenge.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+
+/**
+ * Memory-compact store enabled with {@code challenge.accounts.store=compact},
+ * for tens of millions of accounts.
+ * 
+ * Account ids are interned to dense indexes by an {@link AccountIdIndex} and
+ * balances are kept as long minor units in {@link SlotBalances}, so the store
+ * holds no Account, String or BigDecimal per account. Transfers take the lock
+ * stripes of both indexes in ascending order like the in-memory store, so
+ * both balances change in one atomic step. {@link Account} objects are only
+ * materialized on {@link #getAccount(String)} as a copy of the balance.
+ * Balances are not versioned, so snapshots always report version 0.
+ */
+@Repository
+@ConditionalOnProperty(name = "challenge.accounts.store", havingValue = "compact")
+public class AccountsRepositoryCompact implements AccountsRepository, LockTableOwner {
+
+	private final AccountIdIndex ids = new AccountIdIndex();
+
+	private final SlotBalances balances = new SlotBalances();
+
+	private final StripedLockTable lockTable;
+
+	public AccountsRepositoryCompact() {
+		this(AccountsRepositoryInMemory.DEFAULT_LOCK_STRIPES);
+	}
+
+	@Autowired
+	public AccountsRepositoryCompact(@Value("${challenge.accounts.lock-stripes:1024}") int lockStripes) {
+		this.lockTable = new StripedLockTable(lockStripes);
+	}
+
+	/**
+	 * The balance is written before the index publishes the account.
+	 */
+	@Override
+	public void createAccount(Account account) throws DuplicateAccountIdException {
+		long balance = MinorUnits.of(account.getBalance());
+		if (ids.add(account.getAccountId(), index -> balances.set(index, balance)) == AccountIdIndex.NOT_FOUND) {
+			throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+		}
+	}
+
+	@Override
+	public Account getAccount(String accountId) {
+		int index = ids.indexOf(accountId);
+		if (index == AccountIdIndex.NOT_FOUND) {
+			return null;
+		}
+		return new Account(accountId, MinorUnits.toBigDecimal(balances.get(index)));
+	}
+
+	@Override
+	public void clearAccounts() {
+		ids.clear();
+	}
+
+	@Override
+	public TransferOutcome tryTransfer(TransferRequest transfer) {
+		int from = ids.indexOf(transfer.getAccountFromId());
+		if (from == AccountIdIndex.NOT_FOUND) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		int to = ids.indexOf(transfer.getAccountToId());
+		if (to == AccountIdIndex.NOT_FOUND) {
+			return TransferOutcome.accountNotFound(transfer.getAccountToId());
+		}
+		long amount = MinorUnits.of(transfer.getAmount());
+
+		int fromStripe = lockTable.stripeForIndex(from);
+		int toStripe = lockTable.stripeForIndex(to);
+		long balanceAfterTransfer;
+		lockTable.lockPair(fromStripe, toStripe);
+		try {
+			long balance = balances.get(from);
+			if (balance < amount) {
+				return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+			}
+			balances.set(from, balance - amount);
+			balances.add(to, amount);
+			balanceAfterTransfer = balances.get(from);
+		} finally {
+			lockTable.unlockPair(fromStripe, toStripe);
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * Locks the FROM stripe and the stripes of every leg once, in ascending
+	 * order, like the in-memory store.
+	 */
+	@Override
+	public TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		int from = ids.indexOf(transfer.getAccountFromId());
+		if (from == AccountIdIndex.NOT_FOUND) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		List<TransferLeg> legs = transfer.getLegs();
+		int[] to = new int[legs.size()];
+		long[] amounts = new long[legs.size()];
+		int[] stripes = new int[legs.size() + 1];
+		stripes[0] = lockTable.stripeForIndex(from);
+		for (int i = 0; i < legs.size(); i++) {
+			to[i] = ids.indexOf(legs.get(i).getAccountToId());
+			if (to[i] == AccountIdIndex.NOT_FOUND) {
+				return TransferOutcome.accountNotFound(legs.get(i).getAccountToId());
+			}
+			amounts[i] = MinorUnits.of(legs.get(i).getAmount());
+			stripes[i + 1] = lockTable.stripeForIndex(to[i]);
+		}
+		long total = MinorUnits.of(transfer.totalAmount());
+
+		long balanceAfterTransfer;
+		int locked = lockTable.lockAll(stripes);
+		try {
+			long balance = balances.get(from);
+			if (balance < total) {
+				return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+			}
+			balances.set(from, balance - total);
+			for (int i = 0; i < to.length; i++) {
+				balances.add(to[i], amounts[i]);
+			}
+			balanceAfterTransfer = balances.get(from);
+		} finally {
+			lockTable.unlockAll(stripes, locked);
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	public int getAccountCount() {
+		return ids.size();
+	}
+
+	@Override
+	public StripedLockTable getLockTable() {
+		return lockTable;
+	}
+}
@@ -1,51 +1,603 @@
 package com.dws.challenge.repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
 import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
 import com.dws.challenge.exception.DuplicateAccountIdException;
-import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.history.TransactionHistory;
+import com.dws.challenge.journal.JournalReplayHandler;
+import com.dws.challenge.journal.TransactionJournal;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Default account store. When a {@link TransactionJournal} is configured every
+ * creation and applied transfer is appended to it while the account locks are
+ * held, so the journal order matches the order the changes were applied in,
+ * and the caller is released once the group commit covering its record is
+ * durable. The journal is replayed into the map on startup. When the
+ * {@link TransactionHistory} is enabled, applied transfers are recorded in it at
+ * the same point, under the same locks.
+ * 
+ * Accounts listed in {@code challenge.accounts.split-accounts} are split: their
+ * balance is spread over {@link SplitBalance} slots with their own locks, so
+ * transfers to and from a hot account do not serialize on its lock stripe.
+ */
 @Repository
-public class AccountsRepositoryInMemory implements AccountsRepository {
+@ConditionalOnProperty(name = "challenge.accounts.store", havingValue = "in-memory", matchIfMissing = true)
+@Slf4j
+public class AccountsRepositoryInMemory implements AccountsRepository, LockTableOwner, MeterBinder {
+
+	public static final int DEFAULT_LOCK_STRIPES = 1024;
 
 	private final Map<String, Account> accounts = new ConcurrentHashMap<>();
 
+	private final StripedLockTable lockTable;
+
+	private final TransactionJournal journal;
+
+	private final TransactionHistory history;
+
+	private final Set<String> splitAccountIds;
+
+	private final int splitSlots;
+
+	private final Map<String, SplitBalance> splitBalances = new ConcurrentHashMap<>();
+
+	public AccountsRepositoryInMemory() {
+		this(DEFAULT_LOCK_STRIPES, (TransactionJournal) null);
+	}
+
 	@Autowired
-	NotificationService notificationService;
+	public AccountsRepositoryInMemory(@Value("${challenge.accounts.lock-stripes:1024}") int lockStripes,
+			ObjectProvider<TransactionJournal> journal, ObjectProvider<TransactionHistory> history,
+			@Value("${challenge.accounts.split-accounts:}") Set<String> splitAccountIds,
+			@Value("${challenge.accounts.split-slots:0}") int splitSlots) {
+		this(lockStripes, journal.getIfAvailable(), history.getIfAvailable(), splitAccountIds, splitSlots);
+	}
 
+	/**
+	 * @param lockStripes
+	 * @param journal     journal to recover from and append to, may be null
+	 */
+	public AccountsRepositoryInMemory(int lockStripes, TransactionJournal journal) {
+		this(lockStripes, journal, Set.of(), 0);
+	}
+
+	/**
+	 * @param lockStripes
+	 * @param journal         journal to recover from and append to, may be null
+	 * @param splitAccountIds accounts whose balance is split over slots once
+	 *                        created
+	 * @param splitSlots      slots per split account, 0 means one per available
+	 *                        processor
+	 */
+	public AccountsRepositoryInMemory(int lockStripes, TransactionJournal journal, Set<String> splitAccountIds,
+			int splitSlots) {
+		this(lockStripes, journal, null, splitAccountIds, splitSlots);
+	}
+
+	/**
+	 * @param lockStripes
+	 * @param journal         journal to recover from and append to, may be null
+	 * @param history         history applied transfers are recorded in, may be
+	 *                        null
+	 * @param splitAccountIds accounts whose balance is split over slots once
+	 *                        created
+	 * @param splitSlots      slots per split account, 0 means one per available
+	 *                        processor
+	 */
+	public AccountsRepositoryInMemory(int lockStripes, TransactionJournal journal, TransactionHistory history,
+			Set<String> splitAccountIds, int splitSlots) {
+		this.lockTable = new StripedLockTable(lockStripes);
+		this.journal = journal;
+		this.history = history;
+		this.splitAccountIds = Set.copyOf(splitAccountIds);
+		this.splitSlots = splitSlots > 0 ? splitSlots : Runtime.getRuntime().availableProcessors();
+		if (journal != null) {
+			recover(journal);
+		}
+	}
+
+	/**
+	 * Lock-free, through the seqlock of the account or the slots of a split
+	 * account.
+	 */
 	@Override
-	public void createAccount(Account account) throws DuplicateAccountIdException {
-		Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
-		if (previousAccount != null) {
-			throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+	public AccountSnapshot getAccountSnapshot(String accountId) {
+		Account account = accounts.get(accountId);
+		if (account == null) {
+			return null;
 		}
+		SplitBalance split = splitOf(account);
+		return split == null ? account.snapshot() : split.snapshot(accountId);
+	}
 
+	@Override
+	public boolean accountExists(String accountId) {
+		return accounts.containsKey(accountId);
+	}
+
+	@Override
+	public boolean recordsHistory() {
+		return history != null;
+	}
+
+	/**
+	 * The account stripe is held while the account is published and journaled, so
+	 * its creation record always precedes the records of its transfers. An
+	 * account the journal could not record is rejected before it is published.
+	 */
+	@Override
+	public void createAccount(Account account) throws DuplicateAccountIdException {
+		if (journal != null) {
+			TransactionJournal.checkAccount(account.getAccountId(), account.getBalance());
+		}
+		int stripe = lockTable.stripeFor(account.getAccountId());
+		long position = 0;
+		lockTable.lock(stripe);
+		try {
+			if (accounts.containsKey(account.getAccountId())) {
+				throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+			}
+			publish(account);
+			if (journal != null) {
+				position = journal.appendCreate(account.getAccountId(), account.getBalance());
+			}
+		} finally {
+			lockTable.unlock(stripe);
+		}
+		awaitDurable(position);
 	}
 
+	/**
+	 * A split account is returned as a copy holding a consistent total of its
+	 * slots.
+	 */
 	@Override
 	public Account getAccount(String accountId) {
-		return accounts.get(accountId);
+		Account account = accounts.get(accountId);
+		SplitBalance split = splitBalances.isEmpty() || account == null ? null : splitBalances.get(accountId);
+		return split == null ? account : new Account(accountId, split.balance());
 	}
 
 	@Override
 	public void clearAccounts() {
+		if (journal != null) {
+			journal.awaitDurable(journal.appendClear());
+		}
 		accounts.clear();
+		splitBalances.clear();
+		if (history != null) {
+			history.clear();
+		}
 	}
 
+	/**
+	 * Both accounts are guarded by their lock stripes, which are taken in
+	 * ascending stripe order, so transfers on disjoint stripes run in parallel and
+	 * an A->B transfer racing a B->A transfer always competes for the same first
+	 * lock instead of deadlocking.
+	 */
 	@Override
-	public Map<String, Account> transferBalances(TransferRequest transfer) {
-		return accounts;
+	public TransferOutcome tryTransfer(TransferRequest transfer) {
+		Account accountFrom = accounts.get(transfer.getAccountFromId());
+		if (accountFrom == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		Account accountTo = accounts.get(transfer.getAccountToId());
+		if (accountTo == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountToId());
+		}
+		if (!splitBalances.isEmpty()) {
+			SplitBalance splitFrom = splitBalances.get(accountFrom.getAccountId());
+			SplitBalance splitTo = splitBalances.get(accountTo.getAccountId());
+			if (splitFrom != null || splitTo != null) {
+				return tryTransferSplit(accountFrom, splitFrom, accountTo, splitTo, transfer.getAmount());
+			}
+		}
+
+		int fromStripe = lockTable.stripeFor(accountFrom.getAccountId());
+		int toStripe = lockTable.stripeFor(accountTo.getAccountId());
+		TransferResult result;
+		long position = 0;
+		lockTable.lockPair(fromStripe, toStripe);
+		try {
+			result = applyTransfer(accountFrom, accountTo, transfer.getAmount());
+			if (result != null) {
+				recordTransfer(accountFrom, result.getBalanceAfterTransfer(), accountTo, transfer.getAmount());
+				position = journalTransfer(accountFrom, accountTo, transfer.getAmount());
+			}
+		} finally {
+			lockTable.unlockPair(fromStripe, toStripe);
+		}
+		if (result == null) {
+			return TransferOutcome.insufficientFunds(accountFrom.getAccountId());
+		}
+		awaitDurable(position);
+		return TransferOutcome.applied(result);
 	}
 
+	/**
+	 * Every stripe touched by the batch is locked exactly once, in ascending
+	 * order, before the transfers are applied in submission order. This trades
+	 * a longer hold time for one lock round-trip per stripe instead of two per
+	 * transfer.
+	 */
 	@Override
-	public Map<String, Account> getAccount() {
-		return accounts;
+	public void transferBatch(List<TransferRequest> transfers, BatchListener listener) {
+		int[] stripes = new int[transfers.size() * 2];
+		for (int i = 0; i < transfers.size(); i++) {
+			stripes[2 * i] = lockTable.stripeFor(transfers.get(i).getAccountFromId());
+			stripes[2 * i + 1] = lockTable.stripeFor(transfers.get(i).getAccountToId());
+		}
+
+		List<String> accountIds = new ArrayList<>(transfers.size() * 2);
+		for (TransferRequest transfer : transfers) {
+			accountIds.add(transfer.getAccountFromId());
+			accountIds.add(transfer.getAccountToId());
+		}
+
+		long position = 0;
+		int locked = lockTable.lockAll(stripes);
+		List<SplitBalance> splits = lockSplits(accountIds);
+		try {
+			for (int i = 0; i < transfers.size(); i++) {
+				TransferRequest transfer = transfers.get(i);
+				Account accountFrom = accounts.get(transfer.getAccountFromId());
+				Account accountTo = accounts.get(transfer.getAccountToId());
+				TransferOutcome outcome;
+				if (accountFrom == null) {
+					outcome = TransferOutcome.accountNotFound(transfer.getAccountFromId());
+				} else if (accountTo == null) {
+					outcome = TransferOutcome.accountNotFound(transfer.getAccountToId());
+				} else {
+					TransferResult result = applyTransfer(accountFrom, splitOf(accountFrom), SplitBalance.ALL,
+							accountTo, splitOf(accountTo), SplitBalance.ALL, transfer.getAmount());
+					if (result == null) {
+						outcome = TransferOutcome.insufficientFunds(accountFrom.getAccountId());
+					} else {
+						outcome = TransferOutcome.applied(result);
+						recordTransfer(accountFrom, result.getBalanceAfterTransfer(), accountTo, transfer.getAmount());
+						position = journalTransfer(accountFrom, accountTo, transfer.getAmount());
+					}
+				}
+				listener.onOutcome(i, outcome);
+			}
+		} finally {
+			unlockSplits(splits);
+			lockTable.unlockAll(stripes, locked);
+		}
+		awaitDurable(position);
+	}
+
+	/**
+	 * The FROM stripe and the stripes of every leg are locked once, in ascending
+	 * order, so the total is checked and every leg applied without another
+	 * writer seeing or changing the accounts in between. All legs are journaled
+	 * in one record, so recovery never replays part of the transfer.
+	 */
+	@Override
+	public TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		Account accountFrom = accounts.get(transfer.getAccountFromId());
+		if (accountFrom == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		List<TransferLeg> legs = transfer.getLegs();
+		Account[] accountsTo = new Account[legs.size()];
+		int[] stripes = new int[legs.size() + 1];
+		List<String> accountIds = new ArrayList<>(legs.size() + 1);
+		stripes[0] = lockTable.stripeFor(accountFrom.getAccountId());
+		accountIds.add(accountFrom.getAccountId());
+		for (int i = 0; i < legs.size(); i++) {
+			accountsTo[i] = accounts.get(legs.get(i).getAccountToId());
+			if (accountsTo[i] == null) {
+				return TransferOutcome.accountNotFound(legs.get(i).getAccountToId());
+			}
+			stripes[i + 1] = lockTable.stripeFor(accountsTo[i].getAccountId());
+			accountIds.add(accountsTo[i].getAccountId());
+		}
+		BigDecimal total = transfer.totalAmount();
+
+		BigDecimal balanceAfterTransfer = null;
+		long position = 0;
+		int locked = lockTable.lockAll(stripes);
+		List<SplitBalance> splits = lockSplits(accountIds);
+		try {
+			SplitBalance splitFrom = splitOf(accountFrom);
+			if (debit(accountFrom, splitFrom, SplitBalance.ALL, total)) {
+				// the FROM history shows the total taken back one leg at a time
+				BigDecimal balanceFrom = balanceOf(accountFrom, splitFrom).add(total);
+				for (int i = 0; i < legs.size(); i++) {
+					BigDecimal amount = legs.get(i).getAmount();
+					credit(accountsTo[i], splitOf(accountsTo[i]), SplitBalance.ALL, amount);
+					balanceFrom = balanceFrom.subtract(amount);
+					recordTransfer(accountFrom, balanceFrom, accountsTo[i], amount);
+				}
+				if (journal != null) {
+					position = journal.appendMultiLegTransfer(accountFrom.getAccountId(), legs);
+				}
+				balanceAfterTransfer = balanceOf(accountFrom, splitFrom);
+			}
+		} finally {
+			unlockSplits(splits);
+			lockTable.unlockAll(stripes, locked);
+		}
+		if (balanceAfterTransfer == null) {
+			return TransferOutcome.insufficientFunds(accountFrom.getAccountId());
+		}
+		awaitDurable(position);
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(accountFrom.getAccountId());
+		result.setBalanceAfterTransfer(balanceAfterTransfer);
+		return TransferOutcome.applied(result);
+	}
+
+	@Override
+	public StripedLockTable getLockTable() {
+		return lockTable;
+	}
+
+	public int getAccountCount() {
+		return accounts.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("accounts.count", this, AccountsRepositoryInMemory::getAccountCount)
+				.description("Accounts held by the in-memory store").register(registry);
+	}
+
+	/**
+	 * Caller must hold the locks of both accounts. The balance of a split account
+	 * is the sum of its slots, which other slot holders may be changing.
+	 * 
+	 * @param balanceFrom FROM balance after the transfer
+	 */
+	private void recordTransfer(Account accountFrom, BigDecimal balanceFrom, Account accountTo, BigDecimal amount) {
+		if (history != null) {
+			history.recordTransfer(accountFrom.getAccountId(), balanceFrom, accountTo.getAccountId(),
+					balanceOf(accountTo, splitOf(accountTo)), amount);
+		}
+	}
+
+	/**
+	 * Caller must hold the lock stripes of both accounts.
+	 * 
+	 * @return journal position of the record, 0 without a journal
+	 */
+	private long journalTransfer(Account accountFrom, Account accountTo, BigDecimal amount) {
+		return journal == null ? 0 : journal.appendTransfer(accountFrom.getAccountId(), accountTo.getAccountId(), amount);
+	}
+
+	/**
+	 * Must be called without holding any lock stripe.
+	 */
+	private void awaitDurable(long position) {
+		if (journal != null && position > 0) {
+			journal.awaitDurable(position);
+		}
+	}
+
+	/**
+	 * Runs from the constructor, before the store is visible to other threads.
+	 */
+	private void recover(TransactionJournal journal) {
+		long started = System.nanoTime();
+		try {
+			long records = journal.open(new JournalReplayHandler() {
+
+				@Override
+				public void onCreate(String accountId, BigDecimal balance) {
+					publish(new Account(accountId, balance));
+				}
+
+				@Override
+				public void onTransfer(String accountFromId, String accountToId, BigDecimal amount) {
+					Account accountFrom = accounts.get(accountFromId);
+					Account accountTo = accounts.get(accountToId);
+					if (accountFrom == null || accountTo == null) {
+						log.warn("Skipping journaled transfer between unknown accounts {} and {}", accountFromId,
+								accountToId);
+						return;
+					}
+					credit(accountFrom, splitOf(accountFrom), SplitBalance.ALL, amount.negate());
+					credit(accountTo, splitOf(accountTo), SplitBalance.ALL, amount);
+				}
+
+				@Override
+				public void onClear() {
+					accounts.clear();
+					splitBalances.clear();
+				}
+			});
+			log.info("Recovered {} accounts from {} journal records in {} ms", accounts.size(), records,
+					(System.nanoTime() - started) / 1_000_000);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can not recover accounts from " + journal.getDirectory(), e);
+		}
+	}
+
+	/**
+	 * Caller must hold the lock stripes of both accounts.
+	 * 
+	 * @return null, leaving both balances untouched, when the FROM balance does
+	 *         not cover the amount
+	 */
+	private TransferResult applyTransfer(Account accountFrom, Account accountTo, BigDecimal amount) {
+		return applyTransfer(accountFrom, null, 0, accountTo, null, 0, amount);
+	}
+
+	/**
+	 * Caller must hold the lock stripe of every plain account and the given slots
+	 * of every split account.
+	 * 
+	 * @return null, leaving both balances untouched, when the FROM balance does
+	 *         not cover the amount
+	 */
+	private TransferResult applyTransfer(Account accountFrom, SplitBalance splitFrom, int fromHeld,
+			Account accountTo, SplitBalance splitTo, int toHeld, BigDecimal amount) {
+		if (!debit(accountFrom, splitFrom, fromHeld, amount)) {
+			return null;
+		}
+		credit(accountTo, splitTo, toHeld, amount);
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(accountFrom.getAccountId());
+		result.setBalanceAfterTransfer(balanceOf(accountFrom, splitFrom));
+		return result;
+	}
+
+	/**
+	 * A transfer with at least one split side. The stripe of a plain side is
+	 * taken first, then the slots of the split sides in accountId order: one
+	 * random slot for a credit, and for a debit one random slot that covers the
+	 * amount or else every slot.
+	 */
+	private TransferOutcome tryTransferSplit(Account accountFrom, SplitBalance splitFrom, Account accountTo,
+			SplitBalance splitTo, BigDecimal amount) {
+		int stripe = splitFrom == null ? lockTable.stripeFor(accountFrom.getAccountId())
+				: splitTo == null ? lockTable.stripeFor(accountTo.getAccountId()) : -1;
+		int fromHeld = 0;
+		int toHeld = 0;
+		TransferResult result;
+		long position = 0;
+		if (stripe >= 0) {
+			lockTable.lock(stripe);
+		}
+		try {
+			if (splitFrom == splitTo) {
+				fromHeld = splitFrom.lockForDebit(amount);
+				toHeld = fromHeld;
+			} else if (splitTo == null
+					|| splitFrom != null && accountFrom.getAccountId().compareTo(accountTo.getAccountId()) < 0) {
+				fromHeld = splitFrom.lockForDebit(amount);
+				if (splitTo != null) {
+					toHeld = splitTo.lockForCredit();
+				}
+			} else {
+				toHeld = splitTo.lockForCredit();
+				if (splitFrom != null) {
+					fromHeld = splitFrom.lockForDebit(amount);
+				}
+			}
+			try {
+				result = applyTransfer(accountFrom, splitFrom, fromHeld, accountTo, splitTo, toHeld, amount);
+				if (result != null) {
+					recordTransfer(accountFrom, result.getBalanceAfterTransfer(), accountTo, amount);
+					position = journalTransfer(accountFrom, accountTo, amount);
+				}
+			} finally {
+				if (splitTo != null && splitTo != splitFrom) {
+					splitTo.unlock(toHeld);
+				}
+				if (splitFrom != null) {
+					splitFrom.unlock(fromHeld);
+				}
+			}
+		} finally {
+			if (stripe >= 0) {
+				lockTable.unlock(stripe);
+			}
+		}
+		if (result == null) {
+			return TransferOutcome.insufficientFunds(accountFrom.getAccountId());
+		}
+		awaitDurable(position);
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * Makes the account visible, split when it is listed. The split balance is
+	 * published before the account so no transfer sees the account without it.
+	 */
+	private void publish(Account account) {
+		if (splitAccountIds.contains(account.getAccountId())) {
+			splitBalances.put(account.getAccountId(), new SplitBalance(account.getBalance(), splitSlots));
+		}
+		accounts.put(account.getAccountId(), account);
+	}
+
+	private SplitBalance splitOf(Account account) {
+		return splitBalances.isEmpty() ? null : splitBalances.get(account.getAccountId());
+	}
+
+	/**
+	 * Locks every slot of every split account among the ids, in accountId order.
+	 * Caller must already hold the lock stripes of the ids.
+	 * 
+	 * @return the locked split balances, for {@link #unlockSplits(List)}
+	 */
+	private List<SplitBalance> lockSplits(List<String> accountIds) {
+		if (splitBalances.isEmpty()) {
+			return List.of();
+		}
+		TreeMap<String, SplitBalance> splits = new TreeMap<>();
+		for (String accountId : accountIds) {
+			SplitBalance split = splitBalances.get(accountId);
+			if (split != null) {
+				splits.put(accountId, split);
+			}
+		}
+		List<SplitBalance> locked = new ArrayList<>(splits.size());
+		for (SplitBalance split : splits.values()) {
+			split.lockAll();
+			locked.add(split);
+		}
+		return locked;
+	}
+
+	private void unlockSplits(List<SplitBalance> splits) {
+		for (int i = splits.size() - 1; i >= 0; i--) {
+			splits.get(i).unlock(SplitBalance.ALL);
+		}
+	}
+
+	private static boolean debit(Account account, SplitBalance split, int held, BigDecimal amount) {
+		if (split != null) {
+			return split.tryDebit(held, amount);
+		}
+		if (account.getBalance().compareTo(amount) < 0) {
+			return false;
+		}
+		account.setBalance(account.getBalance().subtract(amount));
+		return true;
+	}
+
+	private static void credit(Account account, SplitBalance split, int held, BigDecimal amount) {
+		if (split != null) {
+			split.add(held, amount);
+		} else {
+			account.setBalance(account.getBalance().add(amount));
+		}
+	}
+
+	private static BigDecimal balanceOf(Account account, SplitBalance split) {
+		return split == null ? account.getBalance() : split.balance();
 	}
 
 }
@@ -0,0 +1,197 @@
+package com.dws.challenge.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidAmountException;
+
+/**
+ * Lock-free balance store enabled with {@code challenge.accounts.store=ledger}.
+ * 
+ * Every account is interned to a dense index on creation and its balance is
+ * kept as long minor units in a {@link SlotBalances} slot. Debits run a CAS
+ * loop that re-checks the overdraft condition on every attempt, credits a CAS
+ * loop that checks for overflow, so no single-account operation ever blocks. A
+ * transfer is a debit followed by a credit: it never loses an update or
+ * overdraws, but a reader can observe the amount in flight between the two
+ * steps. The sum of all balances is kept within a long on creation, so a credit
+ * can not overflow after its debit was applied. {@link Account} objects are
+ * only materialized on {@link #getAccount(String)} for the REST layer. Balances
+ * are not versioned, so snapshots always report version 0.
+ */
+@Repository
+@ConditionalOnProperty(name = "challenge.accounts.store", havingValue = "ledger")
+public class AccountsRepositoryLedger implements AccountsRepository {
+
+	private final Map<String, Integer> index = new ConcurrentHashMap<>();
+
+	private final AtomicInteger nextIndex = new AtomicInteger();
+
+	private final SlotBalances balances = new SlotBalances();
+
+	/**
+	 * Sum of all balances in minor units, transfers move money without changing
+	 * it
+	 */
+	private final AtomicLong total = new AtomicLong();
+
+	/**
+	 * The balance slot is written before the index is published, so a concurrent
+	 * reader never sees the account with a zero balance. A slot reserved by a
+	 * losing duplicate insert is simply left unused.
+	 * 
+	 * @throws InvalidAmountException when the balances of all accounts would no
+	 *                                longer fit in a long
+	 */
+	@Override
+	public void createAccount(Account account) throws DuplicateAccountIdException {
+		if (index.containsKey(account.getAccountId())) {
+			throw duplicate(account.getAccountId());
+		}
+		long balance = MinorUnits.of(account.getBalance());
+		reserve(balance);
+		int slot = nextIndex.getAndIncrement();
+		balances.set(slot, balance);
+		if (index.putIfAbsent(account.getAccountId(), slot) != null) {
+			total.addAndGet(-balance);
+			throw duplicate(account.getAccountId());
+		}
+	}
+
+	@Override
+	public Account getAccount(String accountId) {
+		Integer slot = index.get(accountId);
+		if (slot == null) {
+			return null;
+		}
+		return new Account(accountId, MinorUnits.toBigDecimal(balance(slot)));
+	}
+
+	@Override
+	public void clearAccounts() {
+		index.clear();
+		nextIndex.set(0);
+		total.set(0);
+	}
+
+	@Override
+	public TransferOutcome tryTransfer(TransferRequest transfer) {
+		Integer from = index.get(transfer.getAccountFromId());
+		if (from == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		Integer to = index.get(transfer.getAccountToId());
+		if (to == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountToId());
+		}
+		long amount = MinorUnits.of(transfer.getAmount());
+
+		long balanceAfterTransfer = tryDebit(from, amount);
+		if (balanceAfterTransfer == SlotBalances.INSUFFICIENT_FUNDS) {
+			return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+		}
+		long creditedBalance = credit(to, amount);
+		if (from.intValue() == to.intValue()) {
+			balanceAfterTransfer = creditedBalance;
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * Every account is resolved before the total is debited in one CAS loop, so
+	 * the legs are rejected or applied together. As with single transfers the
+	 * credits follow the debit and a reader can observe them in flight.
+	 */
+	@Override
+	public TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		Integer from = index.get(transfer.getAccountFromId());
+		if (from == null) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		List<TransferLeg> legs = transfer.getLegs();
+		int[] to = new int[legs.size()];
+		long[] amounts = new long[legs.size()];
+		for (int i = 0; i < legs.size(); i++) {
+			Integer slot = index.get(legs.get(i).getAccountToId());
+			if (slot == null) {
+				return TransferOutcome.accountNotFound(legs.get(i).getAccountToId());
+			}
+			to[i] = slot;
+			amounts[i] = MinorUnits.of(legs.get(i).getAmount());
+		}
+		long total = MinorUnits.of(transfer.totalAmount());
+
+		long balanceAfterTransfer = tryDebit(from, total);
+		if (balanceAfterTransfer == SlotBalances.INSUFFICIENT_FUNDS) {
+			return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+		}
+		for (int i = 0; i < to.length; i++) {
+			long creditedBalance = credit(to[i], amounts[i]);
+			if (to[i] == from.intValue()) {
+				balanceAfterTransfer = creditedBalance;
+			}
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * @return balance in minor units of the account at the given index
+	 */
+	public long balance(int slot) {
+		return balances.get(slot);
+	}
+
+	/**
+	 * @return balance in minor units after the debit, or
+	 *         {@link SlotBalances#INSUFFICIENT_FUNDS} leaving the balance
+	 *         untouched
+	 */
+	public long tryDebit(int slot, long amount) {
+		return balances.tryDebit(slot, amount);
+	}
+
+	/**
+	 * @return balance in minor units after the credit
+	 * @throws ArithmeticException when the balance would overflow
+	 */
+	public long credit(int slot, long amount) {
+		return balances.addExact(slot, amount);
+	}
+
+	private void reserve(long balance) {
+		long current;
+		do {
+			current = total.get();
+			if (current > Long.MAX_VALUE - balance) {
+				throw new InvalidAmountException("Balances of all accounts can not exceed "
+						+ MinorUnits.toBigDecimal(Long.MAX_VALUE).toPlainString() + ".", ErrorCode.AMOUNT_ERROR);
+			}
+		} while (!total.compareAndSet(current, current + balance));
+	}
+
+	private DuplicateAccountIdException duplicate(String accountId) {
+		return new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+	}
+}
@@ -0,0 +1,527 @@
+package com.dws.challenge.repository;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.AccountStoreFullException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidAccountIdException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Off-heap store enabled with {@code challenge.accounts.store=mapped}. The
+ * memory-mapped file is the store: opening it maps the file and reads its
+ * header, nothing is loaded into the heap, and the accounts survive a restart.
+ * 
+ * The file starts with a header, followed by an open-addressing table of
+ * record numbers and by fixed width records:
+ * 
+ * <pre>
+ * record: [long balance minor units][long version][int id hash][short id length][id bytes, UTF-8]
+ * </pre>
+ * 
+ * Balances and versions are read and written through {@link VarHandle} views of
+ * the mapping. A record is written before the release store of its table slot
+ * publishes it, so lookups take no lock. Transfers lock the stripes of both
+ * records in ascending order and change both balances. The version is a
+ * seqlock: it is odd while a record is being written, so readers take
+ * consistent snapshots without locking.
+ * Capacity is fixed when the file is created.
+ * 
+ * Writes go straight to the mapping, so a process that dies part way through
+ * one leaves it half done in the file. Opening the store repairs what it can
+ * tell from the file itself: an account published in the table before the
+ * count was raised is counted again. A transfer is not crash-atomic: it
+ * changes two balances with two separate writes and keeps no log, so money
+ * can be left taken from one account and not yet added to the other. The
+ * records of such a transfer are the ones left with an odd version; opening
+ * the store logs them and makes their versions even again, so readers do not
+ * take them for records still being written.
+ */
+@Repository
+@ConditionalOnProperty(name = "challenge.accounts.store", havingValue = "mapped")
+@Slf4j
+public class AccountsRepositoryMapped implements AccountsRepository, LockTableOwner {
+
+	public static final int MAX_ID_BYTES = 42;
+
+	private static final int MAGIC = 0x41434354;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int RECORD_SIZE = 64;
+
+	private static final int SNAPSHOT_ATTEMPTS = 64;
+
+	private static final int HEADER_SIZE = 64;
+
+	private static final int CAPACITY_OFFSET = 8;
+
+	private static final int COUNT_OFFSET = 12;
+
+	private static final int BALANCE = 0;
+
+	private static final int VERSION = 8;
+
+	private static final int ID_HASH = 16;
+
+	private static final int ID_LENGTH = 20;
+
+	private static final int ID = 22;
+
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private final Path file;
+
+	private final MappedByteBuffer buffer;
+
+	private final int capacity;
+
+	private final int slotMask;
+
+	private final int recordsOffset;
+
+	private final StripedLockTable lockTable;
+
+	@Autowired
+	public AccountsRepositoryMapped(@Value("${challenge.accounts.mapped.file:data/accounts.dat}") String file,
+			@Value("${challenge.accounts.mapped.capacity:1048576}") int capacity,
+			@Value("${challenge.accounts.lock-stripes:1024}") int lockStripes) {
+		this(Path.of(file), capacity, lockStripes);
+	}
+
+	/**
+	 * Opens the store in {@code file}, creating it for {@code capacity} accounts
+	 * when missing. An existing file keeps the capacity it was created with.
+	 */
+	public AccountsRepositoryMapped(Path file, int capacity, int lockStripes) {
+		this.file = file;
+		this.lockTable = new StripedLockTable(lockStripes);
+		try {
+			boolean exists = Files.exists(file) && Files.size(file) > 0;
+			if (exists) {
+				capacity = readCapacity(file);
+			}
+			int slots = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+			this.capacity = capacity;
+			this.slotMask = slots - 1;
+			this.recordsOffset = align(HEADER_SIZE + slots * 4L);
+			long size = recordsOffset + (long) capacity * RECORD_SIZE;
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Capacity " + capacity + " does not fit in one mapping of " + file);
+			}
+			this.buffer = map(file, size);
+			if (exists) {
+				verifyHeader();
+				repair();
+				resetVersions();
+				log.info("Opened {} holding {} accounts", file, count());
+			} else {
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, FORMAT_VERSION);
+				buffer.putInt(CAPACITY_OFFSET, capacity);
+				INTS.setRelease(buffer, COUNT_OFFSET, 0);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can not open account store " + file, e);
+		}
+	}
+
+	/**
+	 * Serialized with other creations. The record is complete before its slot is
+	 * released, and the count is only raised afterwards.
+	 */
+	@Override
+	public synchronized void createAccount(Account account) throws DuplicateAccountIdException {
+		String accountId = account.getAccountId();
+		byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+		if (id.length > MAX_ID_BYTES) {
+			throw new InvalidAccountIdException(
+					"Account id " + accountId + " is longer than " + MAX_ID_BYTES + " bytes.", ErrorCode.ACCOUNT_ERROR);
+		}
+		long balance = MinorUnits.of(account.getBalance());
+		int hash = hash(accountId);
+		int slot = hash & slotMask;
+		int entry;
+		while ((entry = (int) INTS.getAcquire(buffer, slotOffset(slot))) != 0) {
+			if (matches(entry - 1, hash, accountId)) {
+				throw new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+			}
+			slot = (slot + 1) & slotMask;
+		}
+		int record = count();
+		if (record == capacity) {
+			throw new AccountStoreFullException("Account store is full at " + capacity + " accounts.",
+					ErrorCode.ACCOUNT_ERROR);
+		}
+		int offset = recordOffset(record);
+		LONGS.setRelease(buffer, offset + BALANCE, balance);
+		LONGS.setRelease(buffer, offset + VERSION, 0L);
+		buffer.putInt(offset + ID_HASH, hash);
+		buffer.putShort(offset + ID_LENGTH, (short) id.length);
+		buffer.put(offset + ID, id);
+		INTS.setRelease(buffer, slotOffset(slot), record + 1);
+		INTS.setRelease(buffer, COUNT_OFFSET, record + 1);
+	}
+
+	/**
+	 * Materializes the account from its record.
+	 */
+	@Override
+	public Account getAccount(String accountId) {
+		int record = find(accountId);
+		if (record < 0) {
+			return null;
+		}
+		return new Account(accountId, MinorUnits.toBigDecimal(balance(record)));
+	}
+
+	@Override
+	public synchronized void clearAccounts() {
+		for (int slot = 0; slot <= slotMask; slot++) {
+			INTS.setRelease(buffer, slotOffset(slot), 0);
+		}
+		INTS.setRelease(buffer, COUNT_OFFSET, 0);
+	}
+
+	@Override
+	public TransferOutcome tryTransfer(TransferRequest transfer) {
+		int from = find(transfer.getAccountFromId());
+		if (from < 0) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		int to = find(transfer.getAccountToId());
+		if (to < 0) {
+			return TransferOutcome.accountNotFound(transfer.getAccountToId());
+		}
+		long amount = MinorUnits.of(transfer.getAmount());
+
+		int fromOffset = recordOffset(from);
+		int toOffset = recordOffset(to);
+		int fromStripe = lockTable.stripeForIndex(from);
+		int toStripe = lockTable.stripeForIndex(to);
+		long balanceAfterTransfer;
+		lockTable.lockPair(fromStripe, toStripe);
+		try {
+			long balance = (long) LONGS.getVolatile(buffer, fromOffset + BALANCE);
+			if (balance < amount) {
+				return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+			}
+			beginWrite(fromOffset);
+			if (to != from) {
+				beginWrite(toOffset);
+			}
+			LONGS.getAndAdd(buffer, fromOffset + BALANCE, -amount);
+			LONGS.getAndAdd(buffer, toOffset + BALANCE, amount);
+			endWrite(fromOffset);
+			if (to != from) {
+				endWrite(toOffset);
+			}
+			balanceAfterTransfer = (long) LONGS.getVolatile(buffer, fromOffset + BALANCE);
+		} finally {
+			lockTable.unlockPair(fromStripe, toStripe);
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * Locks the stripes of every record once, in ascending order. Every leg is a
+	 * separate write of its TO record.
+	 */
+	@Override
+	public TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		int from = find(transfer.getAccountFromId());
+		if (from < 0) {
+			return TransferOutcome.accountNotFound(transfer.getAccountFromId());
+		}
+		List<TransferLeg> legs = transfer.getLegs();
+		int[] to = new int[legs.size()];
+		long[] amounts = new long[legs.size()];
+		int[] stripes = new int[legs.size() + 1];
+		stripes[0] = lockTable.stripeForIndex(from);
+		for (int i = 0; i < legs.size(); i++) {
+			to[i] = find(legs.get(i).getAccountToId());
+			if (to[i] < 0) {
+				return TransferOutcome.accountNotFound(legs.get(i).getAccountToId());
+			}
+			amounts[i] = MinorUnits.of(legs.get(i).getAmount());
+			stripes[i + 1] = lockTable.stripeForIndex(to[i]);
+		}
+		long total = MinorUnits.of(transfer.totalAmount());
+
+		int fromOffset = recordOffset(from);
+		long balanceAfterTransfer;
+		int locked = lockTable.lockAll(stripes);
+		try {
+			long balance = (long) LONGS.getVolatile(buffer, fromOffset + BALANCE);
+			if (balance < total) {
+				return TransferOutcome.insufficientFunds(transfer.getAccountFromId());
+			}
+			beginWrite(fromOffset);
+			LONGS.getAndAdd(buffer, fromOffset + BALANCE, -total);
+			for (int i = 0; i < to.length; i++) {
+				int toOffset = recordOffset(to[i]);
+				if (to[i] == from) {
+					LONGS.getAndAdd(buffer, toOffset + BALANCE, amounts[i]);
+				} else {
+					beginWrite(toOffset);
+					LONGS.getAndAdd(buffer, toOffset + BALANCE, amounts[i]);
+					endWrite(toOffset);
+				}
+			}
+			endWrite(fromOffset);
+			balanceAfterTransfer = (long) LONGS.getVolatile(buffer, fromOffset + BALANCE);
+		} finally {
+			lockTable.unlockAll(stripes, locked);
+		}
+
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(transfer.getAccountFromId());
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return TransferOutcome.applied(result);
+	}
+
+	/**
+	 * @return number of balance changes of the record since it was created
+	 */
+	public long version(int record) {
+		return (long) LONGS.getVolatile(buffer, recordOffset(record) + VERSION) >>> 1;
+	}
+
+	/**
+	 * Seqlock read of the record. Versions left odd by a process that died
+	 * mid-write are reset on open, but a reader that keeps losing to writers
+	 * still falls back to the record's lock stripe after a bounded number of
+	 * attempts.
+	 */
+	@Override
+	public AccountSnapshot getAccountSnapshot(String accountId) {
+		int record = find(accountId);
+		if (record < 0) {
+			return null;
+		}
+		int offset = recordOffset(record);
+		for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+			long version = (long) LONGS.getAcquire(buffer, offset + VERSION);
+			if ((version & 1) == 0) {
+				long balance = (long) LONGS.getOpaque(buffer, offset + BALANCE);
+				VarHandle.acquireFence();
+				if ((long) LONGS.getOpaque(buffer, offset + VERSION) == version) {
+					return new AccountSnapshot(accountId, MinorUnits.toBigDecimal(balance), version >>> 1);
+				}
+			}
+			Thread.onSpinWait();
+		}
+		int stripe = lockTable.stripeForIndex(record);
+		lockTable.lock(stripe);
+		try {
+			return new AccountSnapshot(accountId, MinorUnits.toBigDecimal(balance(record)), version(record));
+		} finally {
+			lockTable.unlock(stripe);
+		}
+	}
+
+	public int getAccountCount() {
+		return count();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public StripedLockTable getLockTable() {
+		return lockTable;
+	}
+
+	/**
+	 * Writes the mapped pages back to the file. Changes already survive a crash
+	 * of the process, this also covers a crash of the machine.
+	 */
+	@PreDestroy
+	public void force() {
+		buffer.force();
+	}
+
+	/**
+	 * @return record number of the account, or -1
+	 */
+	public int find(String accountId) {
+		int hash = hash(accountId);
+		for (int slot = hash & slotMask;; slot = (slot + 1) & slotMask) {
+			int entry = (int) INTS.getAcquire(buffer, slotOffset(slot));
+			if (entry == 0) {
+				return -1;
+			}
+			if (matches(entry - 1, hash, accountId)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Caller must hold the stripe of the record.
+	 */
+	private void beginWrite(int offset) {
+		LONGS.getAndAdd(buffer, offset + VERSION, 1L);
+	}
+
+	private void endWrite(int offset) {
+		LONGS.getAndAdd(buffer, offset + VERSION, 1L);
+	}
+
+	private long balance(int record) {
+		return (long) LONGS.getVolatile(buffer, recordOffset(record) + BALANCE);
+	}
+
+	private int count() {
+		return (int) INTS.getAcquire(buffer, COUNT_OFFSET);
+	}
+
+	/**
+	 * Compares ASCII ids in place, anything else through its UTF-8 encoding.
+	 */
+	private boolean matches(int record, int hash, String accountId) {
+		int offset = recordOffset(record);
+		if (buffer.getInt(offset + ID_HASH) != hash) {
+			return false;
+		}
+		int length = buffer.getShort(offset + ID_LENGTH);
+		for (int i = 0; i < accountId.length(); i++) {
+			if (accountId.charAt(i) >= 0x80) {
+				byte[] id = new byte[length];
+				buffer.get(offset + ID, id);
+				return Arrays.equals(id, accountId.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		if (length != accountId.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(offset + ID + i) != accountId.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int slotOffset(int slot) {
+		return HEADER_SIZE + slot * 4;
+	}
+
+	private int recordOffset(int record) {
+		return recordsOffset + record * RECORD_SIZE;
+	}
+
+	private void verifyHeader() {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IllegalStateException(file + " is not an account store of format " + FORMAT_VERSION);
+		}
+	}
+
+	/**
+	 * Runs from the constructor, before the store is visible to other threads.
+	 * Creation publishes the slot before it raises the count, so a crash in
+	 * between leaves a record the count does not cover, which the next creation
+	 * would overwrite.
+	 */
+	private void repair() {
+		int records = 0;
+		for (int slot = 0; slot <= slotMask; slot++) {
+			int entry = buffer.getInt(slotOffset(slot));
+			if (entry > capacity) {
+				throw new IllegalStateException(file + " refers to record " + entry + " beyond its capacity");
+			}
+			records = Math.max(records, entry);
+		}
+		if (records > count()) {
+			log.warn("Counting {} accounts of {} created before the store was last closed", records - count(), file);
+			INTS.setRelease(buffer, COUNT_OFFSET, records);
+		}
+	}
+
+	/**
+	 * Runs from the constructor. No writer is running, so an odd version was left
+	 * by a process that died between {@link #beginWrite(int)} and
+	 * {@link #endWrite(int)}, and every snapshot of the record would exhaust its
+	 * attempts and take the lock.
+	 */
+	private void resetVersions() {
+		int records = count();
+		for (int record = 0; record < records; record++) {
+			int offset = recordOffset(record);
+			long version = (long) LONGS.get(buffer, offset + VERSION);
+			if ((version & 1) != 0) {
+				byte[] id = new byte[buffer.getShort(offset + ID_LENGTH)];
+				buffer.get(offset + ID, id);
+				log.warn("Account {} of {} was being written when the store was last closed, its balance may be "
+						+ "part of an unfinished transfer", new String(id, StandardCharsets.UTF_8), file);
+				LONGS.setRelease(buffer, offset + VERSION, version + 1);
+			}
+		}
+	}
+
+	private static int readCapacity(Path file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+			raf.seek(CAPACITY_OFFSET);
+			return Integer.reverseBytes(raf.readInt());
+		}
+	}
+
+	private static int hash(String accountId) {
+		int h = accountId.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int align(long offset) {
+		return (int) ((offset + RECORD_SIZE - 1) & -RECORD_SIZE);
+	}
+
+	private static MappedByteBuffer map(Path path, long size) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+			if (raf.length() < size) {
+				raf.setLength(size);
+			}
+			MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			return mapped;
+		}
+	}
+}
@@ -0,0 +1,589 @@
+package com.dws.challenge.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-writer store enabled with {@code challenge.accounts.store=sharded}.
+ * 
+ * Accounts are partitioned into N shards by accountId hash and every shard is
+ * owned by one dedicated thread, the only thread that ever reads or writes its
+ * balances, so no locks are taken on the account state. Callers publish
+ * commands to the shard's bounded ring buffer and get a future back.
+ * 
+ * A transfer whose accounts live on different shards is a two-phase message
+ * exchange: the source shard checks and debits, then posts the credit to the
+ * target shard, which posts a refund back if the target account does not
+ * exist. Shard-to-shard messages go to an unbounded mailbox that is drained
+ * before the ring, so two shards publishing to each other can never block on
+ * each other's full ring.
+ */
+@Repository
+@ConditionalOnProperty(name = "challenge.accounts.store", havingValue = "sharded")
+@Slf4j
+public class AccountsRepositorySharded implements AccountsRepository {
+
+	private static final int DRAIN_BATCH = 256;
+
+	/**
+	 * How often a caller blocked on a full ring checks that the shard still runs
+	 */
+	private static final long PUBLISH_POLL_MILLIS = 100;
+
+	private final Shard[] shards;
+
+	@Autowired
+	public AccountsRepositorySharded(@Value("${challenge.accounts.shards:0}") int shardCount,
+			@Value("${challenge.accounts.shard-queue-capacity:65536}") int queueCapacity) {
+		int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+		this.shards = new Shard[count];
+		for (int i = 0; i < count; i++) {
+			shards[i] = new Shard(i, queueCapacity);
+		}
+		for (Shard shard : shards) {
+			shard.thread.start();
+		}
+	}
+
+	@Override
+	public void createAccount(Account account) throws DuplicateAccountIdException {
+		String accountId = account.getAccountId();
+		long balance = MinorUnits.of(account.getBalance());
+		CompletableFuture<Void> created = new CompletableFuture<>();
+		shardFor(accountId).publish(command(created, accounts -> {
+			if (accounts.putIfAbsent(accountId, new Balance(balance)) != null) {
+				created.completeExceptionally(
+						new DuplicateAccountIdException("Account id " + accountId + " already exists!"));
+			} else {
+				created.complete(null);
+			}
+		}));
+		await(created);
+	}
+
+	@Override
+	public Account getAccount(String accountId) {
+		CompletableFuture<Account> account = new CompletableFuture<>();
+		shardFor(accountId).publish(command(account, accounts -> {
+			Balance balance = accounts.get(accountId);
+			account.complete(balance == null ? null : new Account(accountId, MinorUnits.toBigDecimal(balance.minor)));
+		}));
+		return await(account);
+	}
+
+	/**
+	 * Read on the shard thread, so the balance and its version always match
+	 */
+	@Override
+	public AccountSnapshot getAccountSnapshot(String accountId) {
+		CompletableFuture<AccountSnapshot> snapshot = new CompletableFuture<>();
+		shardFor(accountId).publish(command(snapshot, accounts -> {
+			Balance balance = accounts.get(accountId);
+			snapshot.complete(balance == null ? null
+					: new AccountSnapshot(accountId, MinorUnits.toBigDecimal(balance.minor), balance.version));
+		}));
+		return await(snapshot);
+	}
+
+	@Override
+	public void clearAccounts() {
+		CompletableFuture<?>[] cleared = new CompletableFuture<?>[shards.length];
+		for (int i = 0; i < shards.length; i++) {
+			CompletableFuture<Void> done = new CompletableFuture<>();
+			shards[i].publish(command(done, accounts -> {
+				accounts.clear();
+				done.complete(null);
+			}));
+			cleared[i] = done;
+		}
+		await(CompletableFuture.allOf(cleared));
+	}
+
+	@Override
+	public TransferOutcome tryTransfer(TransferRequest transfer) {
+		return await(submit(transfer));
+	}
+
+	/**
+	 * The shards apply the transfer, the executor only completes the returned
+	 * future, see {@link #handOff(CompletableFuture, Executor)}.
+	 */
+	@Override
+	public CompletableFuture<TransferOutcome> tryTransferAsync(TransferRequest transfer, Executor executor) {
+		try {
+			return handOff(submit(transfer), executor);
+		} catch (BusinessException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private CompletableFuture<TransferOutcome> submit(TransferRequest transfer) {
+		String fromId = transfer.getAccountFromId();
+		String toId = transfer.getAccountToId();
+		long amount = MinorUnits.of(transfer.getAmount());
+		Shard source = shardFor(fromId);
+		Shard target = shardFor(toId);
+		CompletableFuture<TransferOutcome> future = new CompletableFuture<>();
+
+		source.publish(command(future, accounts -> {
+			Balance from = accounts.get(fromId);
+			if (from == null) {
+				future.complete(TransferOutcome.accountNotFound(fromId));
+				return;
+			}
+			if (source == target) {
+				Balance to = accounts.get(toId);
+				if (to == null) {
+					future.complete(TransferOutcome.accountNotFound(toId));
+				} else if (from.minor < amount) {
+					future.complete(TransferOutcome.insufficientFunds(fromId));
+				} else {
+					from.add(-amount);
+					to.add(amount);
+					future.complete(TransferOutcome.applied(result(fromId, from.minor)));
+				}
+				return;
+			}
+			if (from.minor < amount) {
+				future.complete(TransferOutcome.insufficientFunds(fromId));
+				return;
+			}
+			from.add(-amount);
+			long balanceAfterTransfer = from.minor;
+
+			target.send(command(targetAccounts -> {
+				Balance to = targetAccounts.get(toId);
+				if (to != null) {
+					to.add(amount);
+					future.complete(TransferOutcome.applied(result(fromId, balanceAfterTransfer)));
+					return;
+				}
+				source.send(command(future, sourceAccounts -> {
+					refund(sourceAccounts, fromId, amount);
+					future.complete(TransferOutcome.accountNotFound(toId));
+				}));
+			}, failure -> source.send(command(future, sourceAccounts -> {
+				refund(sourceAccounts, fromId, amount);
+				future.completeExceptionally(failure);
+			}))));
+		}));
+		return future;
+	}
+
+	@Override
+	public TransferOutcome tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		return await(submit(transfer));
+	}
+
+	/**
+	 * Like {@link #tryTransferAsync(TransferRequest, Executor)}, the executor only
+	 * completes the returned future.
+	 */
+	@Override
+	public CompletableFuture<TransferOutcome> tryTransferMultiLegAsync(MultiLegTransferRequest transfer,
+			Executor executor) {
+		try {
+			return handOff(submit(transfer), executor);
+		} catch (BusinessException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Every shard owning a TO account first checks that its accounts exist.
+	 * Accounts are only ever removed by {@link #clearAccounts()}, so once all
+	 * checks pass the source shard can debit the total and post one credit
+	 * command per target shard. The future completes when the last target shard
+	 * has settled its credits; if one of them failed, the credits already made
+	 * are taken back and the total refunded, see {@link MultiLegCredits}.
+	 */
+	private CompletableFuture<TransferOutcome> submit(MultiLegTransferRequest transfer) {
+		String fromId = transfer.getAccountFromId();
+		List<TransferLeg> legs = transfer.getLegs();
+		long total = MinorUnits.of(transfer.totalAmount());
+		Map<Shard, Map<String, Long>> credits = new HashMap<>();
+		for (TransferLeg leg : legs) {
+			credits.computeIfAbsent(shardFor(leg.getAccountToId()), shard -> new HashMap<>())
+					.merge(leg.getAccountToId(), MinorUnits.of(leg.getAmount()), Long::sum);
+		}
+		Shard source = shardFor(fromId);
+
+		CompletableFuture<?>[] checks = new CompletableFuture<?>[credits.size()];
+		int n = 0;
+		for (Map.Entry<Shard, Map<String, Long>> target : credits.entrySet()) {
+			CompletableFuture<String> missing = new CompletableFuture<>();
+			target.getKey().publish(command(missing, accounts -> {
+				for (String toId : target.getValue().keySet()) {
+					if (!accounts.containsKey(toId)) {
+						missing.complete(toId);
+						return;
+					}
+				}
+				missing.complete(null);
+			}));
+			checks[n++] = missing;
+		}
+
+		CompletableFuture<TransferOutcome> future = new CompletableFuture<>();
+		CompletableFuture.allOf(checks).whenComplete((checked, failure) -> {
+			if (failure != null) {
+				future.completeExceptionally(failure);
+				return;
+			}
+			for (CompletableFuture<?> check : checks) {
+				String missing = (String) check.join();
+				if (missing != null) {
+					future.complete(TransferOutcome.accountNotFound(missing));
+					return;
+				}
+			}
+			source.send(command(future, accounts -> {
+				Balance from = accounts.get(fromId);
+				if (from == null) {
+					future.complete(TransferOutcome.accountNotFound(fromId));
+					return;
+				}
+				if (from.minor < total) {
+					future.complete(TransferOutcome.insufficientFunds(fromId));
+					return;
+				}
+				from.add(-total);
+				long balanceAfterTransfer = from.minor + credits.getOrDefault(source, Map.of()).getOrDefault(fromId, 0L);
+				if (credits.isEmpty()) {
+					future.complete(TransferOutcome.applied(result(fromId, balanceAfterTransfer)));
+					return;
+				}
+				MultiLegCredits settlement = new MultiLegCredits(source, fromId, total, balanceAfterTransfer,
+						credits.size(), future);
+				for (Map.Entry<Shard, Map<String, Long>> target : credits.entrySet()) {
+					settlement.post(target.getKey(), target.getValue());
+				}
+			}));
+		});
+		return future;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		for (Shard shard : shards) {
+			shard.running = false;
+			LockSupport.unpark(shard.thread);
+		}
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	private Shard shardFor(String accountId) {
+		int h = accountId.hashCode();
+		return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+	}
+
+	/**
+	 * Completes the caller's future on the executor instead of the shard thread,
+	 * so its dependent stages, e.g. transfer notifications that may block on a
+	 * full queue or mail I/O, never hold up every other transfer of the shard.
+	 */
+	private static <T> CompletableFuture<T> handOff(CompletableFuture<T> completed, Executor executor) {
+		return completed.whenCompleteAsync((result, failure) -> {
+		}, executor);
+	}
+
+	private static TransferResult result(String accountFromId, long balanceAfterTransfer) {
+		TransferResult result = new TransferResult();
+		result.setAccountFromId(accountFromId);
+		result.setBalanceAfterTransfer(MinorUnits.toBigDecimal(balanceAfterTransfer));
+		return result;
+	}
+
+	/**
+	 * Adds the amounts to the accounts of one shard, a negative sign takes them
+	 * back
+	 */
+	private static void credit(Map<String, Balance> accounts, Map<String, Long> amounts, int sign) {
+		amounts.forEach((toId, amount) -> {
+			Balance to = accounts.get(toId);
+			if (to != null) {
+				to.add(sign * amount);
+			}
+		});
+	}
+
+	/**
+	 * Gives the credit back to the FROM account of a transfer that could not be
+	 * completed
+	 */
+	private static void refund(Map<String, Balance> accounts, String fromId, long amount) {
+		Balance refund = accounts.get(fromId);
+		if (refund != null) {
+			refund.add(amount);
+		}
+	}
+
+	/**
+	 * @param waiting future of the caller, completed exceptionally when the
+	 *                command fails or can not run
+	 */
+	private static ShardCommand command(CompletableFuture<?> waiting, Consumer<Map<String, Balance>> body) {
+		return command(body, waiting::completeExceptionally);
+	}
+
+	private static ShardCommand command(Consumer<Map<String, Balance>> body, Consumer<Throwable> onFailure) {
+		return new ShardCommand() {
+
+			@Override
+			public void execute(Map<String, Balance> accounts) {
+				body.accept(accounts);
+			}
+
+			@Override
+			public void fail(Throwable failure) {
+				onFailure.accept(failure);
+			}
+		};
+	}
+
+	private static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Credits of one multi-leg transfer in flight on the target shards, settled
+	 * by whichever shard thread finishes last. A target shard failing the credit
+	 * command leaves the transfer half applied, so the shards that did credit
+	 * their accounts take the amounts back and the source shard refunds the
+	 * total before the caller sees the failure. Other transfers may already have
+	 * seen the credits in between, as they may see the debit before the credits
+	 * with any cross-shard transfer.
+	 */
+	private static final class MultiLegCredits {
+
+		private final Shard source;
+
+		private final String fromId;
+
+		private final long total;
+
+		private final long balanceAfterTransfer;
+
+		private final AtomicInteger pending;
+
+		private final Queue<Map.Entry<Shard, Map<String, Long>>> credited = new ConcurrentLinkedQueue<>();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		private final CompletableFuture<TransferOutcome> future;
+
+		private MultiLegCredits(Shard source, String fromId, long total, long balanceAfterTransfer, int targets,
+				CompletableFuture<TransferOutcome> future) {
+			this.source = source;
+			this.fromId = fromId;
+			this.total = total;
+			this.balanceAfterTransfer = balanceAfterTransfer;
+			this.pending = new AtomicInteger(targets);
+			this.future = future;
+		}
+
+		private void post(Shard target, Map<String, Long> amounts) {
+			target.send(command(accounts -> {
+				credit(accounts, amounts, 1);
+				credited.add(Map.entry(target, amounts));
+				settled();
+			}, failed -> {
+				failure.compareAndSet(null, failed);
+				settled();
+			}));
+		}
+
+		private void settled() {
+			if (pending.decrementAndGet() > 0) {
+				return;
+			}
+			Throwable failed = failure.get();
+			if (failed == null) {
+				future.complete(TransferOutcome.applied(result(fromId, balanceAfterTransfer)));
+				return;
+			}
+			for (Map.Entry<Shard, Map<String, Long>> target : credited) {
+				target.getKey().send(command(accounts -> credit(accounts, target.getValue(), -1),
+						reversal -> log.error("Can not take back credits of {} to {}", fromId, target.getValue().keySet(),
+								reversal)));
+			}
+			source.send(command(future, accounts -> {
+				refund(accounts, fromId, total);
+				future.completeExceptionally(failed);
+			}));
+		}
+	}
+
+	/**
+	 * Work item executed on the shard thread with exclusive access to the shard's
+	 * accounts.
+	 */
+	private interface ShardCommand {
+
+		void execute(Map<String, Balance> accounts);
+
+		/**
+		 * Called when {@link #execute(Map)} threw, or instead of it when the shard
+		 * stopped before running the command, so whoever waits on it is released
+		 */
+		void fail(Throwable failure);
+	}
+
+	/**
+	 * Balance in minor units, only ever touched by the owning shard thread.
+	 */
+	/**
+	 * Only touched by the thread of its shard
+	 */
+	private static final class Balance {
+
+		private long minor;
+
+		/**
+		 * Number of changes to the balance since the account was created
+		 */
+		private long version;
+
+		private Balance(long minor) {
+			this.minor = minor;
+		}
+
+		private void add(long amount) {
+			minor += amount;
+			version++;
+		}
+	}
+
+	private static final class Shard implements Runnable {
+
+		private final Map<String, Balance> accounts = new HashMap<>();
+
+		private final BlockingQueue<ShardCommand> ring;
+
+		private final Queue<ShardCommand> mailbox = new ConcurrentLinkedQueue<>();
+
+		private final Thread thread;
+
+		private volatile boolean running = true;
+
+		private Shard(int index, int queueCapacity) {
+			this.ring = new ArrayBlockingQueue<>(queueCapacity);
+			this.thread = new Thread(this, "accountShard-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		/**
+		 * Publish from a caller thread, blocking while the ring is full.
+		 *
+		 * @throws RejectedExecutionException when the shard is stopped
+		 */
+		private void publish(ShardCommand command) {
+			try {
+				while (!ring.offer(command, PUBLISH_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (!running) {
+						throw stopped();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while publishing to " + thread.getName(), e);
+			}
+			// the shard may have drained the ring for the last time before the offer
+			if (!running && ring.remove(command)) {
+				throw stopped();
+			}
+			LockSupport.unpark(thread);
+		}
+
+		/**
+		 * Publish from another shard thread, never blocks. A command sent to a
+		 * stopped shard fails.
+		 */
+		private void send(ShardCommand command) {
+			mailbox.offer(command);
+			if (!running && mailbox.remove(command)) {
+				command.fail(stopped());
+				return;
+			}
+			LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				boolean worked = false;
+				ShardCommand command;
+				while ((command = mailbox.poll()) != null) {
+					execute(command);
+					worked = true;
+				}
+				for (int i = 0; i < DRAIN_BATCH && (command = ring.poll()) != null; i++) {
+					execute(command);
+					worked = true;
+				}
+				if (!worked) {
+					LockSupport.park(this);
+				}
+			}
+			ShardCommand command;
+			while ((command = mailbox.poll()) != null || (command = ring.poll()) != null) {
+				command.fail(stopped());
+			}
+		}
+
+		private void execute(ShardCommand command) {
+			try {
+				command.execute(accounts);
+			} catch (RuntimeException e) {
+				log.error("Shard command failed on {}", thread.getName(), e);
+				command.fail(e);
+			}
+		}
+
+		private RejectedExecutionException stopped() {
+			return new RejectedExecutionException(thread.getName() + " is shut down");
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.dws.challenge.repository;
+
+/**
+ * A store whose transfers are guarded by a {@link StripedLockTable}, so its
+ * stripe contention can be published.
+ */
+public interface LockTableOwner {
+
+	StripedLockTable getLockTable();
+}
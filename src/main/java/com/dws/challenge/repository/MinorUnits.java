@@ -0,0 +1,57 @@
+package com.dws.challenge.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.exception.InvalidAmountException;
+
+/**
+ * Conversion between the {@link BigDecimal} amounts used on the REST boundary
+ * and the primitive long minor units (paise/cents) kept by primitive balance
+ * stores.
+ */
+public final class MinorUnits {
+
+	/**
+	 * Number of decimal places held by one minor unit
+	 */
+	public static final int SCALE = 2;
+
+	/**
+	 * Digits of the largest long, any unscaled value with fewer fits
+	 */
+	private static final int MAX_LONG_DIGITS = 19;
+
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100 };
+
+	private MinorUnits() {
+	}
+
+	/**
+	 * An amount with at most {@link #SCALE} decimal places is scaled up in long
+	 * arithmetic instead of through {@link BigDecimal#setScale(int)}, which
+	 * allocates a second BigDecimal.
+	 *
+	 * @param amount
+	 * @return amount in minor units
+	 * @throws InvalidAmountException if the amount has more than {@link #SCALE}
+	 *                                decimal places or does not fit in a long
+	 */
+	public static long of(BigDecimal amount) throws InvalidAmountException {
+		try {
+			int scale = amount.scale();
+			if (scale >= 0 && scale <= SCALE && amount.precision() < MAX_LONG_DIGITS) {
+				return Math.multiplyExact(amount.unscaledValue().longValue(), POWERS_OF_TEN[SCALE - scale]);
+			}
+			return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+		} catch (ArithmeticException e) {
+			throw new InvalidAmountException("Amount " + amount.toPlainString() + " can not be represented with "
+					+ SCALE + " decimal places.", ErrorCode.AMOUNT_ERROR);
+		}
+	}
+
+	public static BigDecimal toBigDecimal(long minorUnits) {
+		return BigDecimal.valueOf(minorUnits, SCALE);
+	}
+}
@@ -0,0 +1,102 @@
+package com.dws.challenge.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Balances in long minor units addressed by a dense account index. Storage
+ * grows in fixed size {@link AtomicLongArray} segments that are never copied,
+ * so readers never block and an index stays valid while the store grows.
+ */
+public final class SlotBalances {
+
+	/**
+	 * Returned by {@link #tryDebit(int, long)}, balances are never negative
+	 */
+	public static final long INSUFFICIENT_FUNDS = -1;
+
+	private static final int SEGMENT_SHIFT = 16;
+
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private volatile AtomicLongArray[] segments = new AtomicLongArray[0];
+
+	public long get(int slot) {
+		return segments[slot >>> SEGMENT_SHIFT].get(slot & SEGMENT_MASK);
+	}
+
+	/**
+	 * Allocates the segment of the slot when it does not exist yet.
+	 */
+	public void set(int slot, long balance) {
+		segmentFor(slot).set(slot & SEGMENT_MASK, balance);
+	}
+
+	/**
+	 * @return balance after the credit
+	 */
+	public long add(int slot, long amount) {
+		return segments[slot >>> SEGMENT_SHIFT].addAndGet(slot & SEGMENT_MASK, amount);
+	}
+
+	/**
+	 * Same as {@link #add(int, long)}, leaving the balance untouched when it
+	 * would overflow.
+	 * 
+	 * @return balance after the credit
+	 * @throws ArithmeticException when the balance would overflow
+	 */
+	public long addExact(int slot, long amount) {
+		AtomicLongArray segment = segments[slot >>> SEGMENT_SHIFT];
+		int offset = slot & SEGMENT_MASK;
+		long current;
+		long next;
+		do {
+			current = segment.get(offset);
+			next = Math.addExact(current, amount);
+		} while (!segment.compareAndSet(offset, current, next));
+		return next;
+	}
+
+	/**
+	 * Withdraw the amount if the balance covers it. The overdraft condition is
+	 * re-checked on every CAS attempt.
+	 * 
+	 * @return balance after the debit, or {@link #INSUFFICIENT_FUNDS} leaving the
+	 *         balance untouched
+	 */
+	public long tryDebit(int slot, long amount) {
+		AtomicLongArray segment = segments[slot >>> SEGMENT_SHIFT];
+		int offset = slot & SEGMENT_MASK;
+		long current;
+		do {
+			current = segment.get(offset);
+			if (current < amount) {
+				return INSUFFICIENT_FUNDS;
+			}
+		} while (!segment.compareAndSet(offset, current, current - amount));
+		return current - amount;
+	}
+
+	private AtomicLongArray segmentFor(int slot) {
+		int segment = slot >>> SEGMENT_SHIFT;
+		AtomicLongArray[] current = segments;
+		if (segment < current.length) {
+			return current[segment];
+		}
+		synchronized (this) {
+			current = segments;
+			if (segment >= current.length) {
+				AtomicLongArray[] grown = Arrays.copyOf(current, segment + 1);
+				for (int i = current.length; i < grown.length; i++) {
+					grown[i] = new AtomicLongArray(SEGMENT_SIZE);
+				}
+				segments = grown;
+				current = grown;
+			}
+			return current[segment];
+		}
+	}
+}
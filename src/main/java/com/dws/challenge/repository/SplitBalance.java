@@ -0,0 +1,216 @@
+package com.dws.challenge.repository;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.dws.challenge.domain.AccountSnapshot;
+
+/**
+ * Balance of a hot account spread over K slots, each guarded by its own lock,
+ * in the spirit of {@link java.util.concurrent.atomic.LongAdder}. Credits lock
+ * one random slot. A debit locks one random slot and takes the amount from it
+ * when it covers it, otherwise it locks every slot in ascending order and
+ * borrows across them, so it is only rejected when the whole balance does not
+ * cover the amount. The balance is spread evenly over the slots when the
+ * account is opened and again whenever every slot is held, so that a random
+ * slot keeps covering most debits even when the account mostly pays out.
+ *
+ * Callers lock first and then apply, so a transfer can hold the slots of its
+ * debit and credit together. Slots of different split accounts are locked in
+ * accountId order, after any lock stripe.
+ *
+ * Each slot is a seqlock like {@link com.dws.challenge.domain.Account}, so
+ * {@link #snapshot(String)} can read a total that held at one instant without
+ * taking any slot lock. Its version is the number of slot writes, which rises
+ * on every change of the balance.
+ */
+final class SplitBalance {
+
+	/**
+	 * Held value meaning every slot is locked
+	 */
+	static final int ALL = -1;
+
+	private final Slot[] slots;
+
+	/**
+	 * @param balance opening balance, spread over the slots
+	 * @param slots   number of slots
+	 */
+	SplitBalance(BigDecimal balance, int slots) {
+		this.slots = new Slot[slots];
+		for (int i = 0; i < slots; i++) {
+			this.slots[i] = new Slot();
+		}
+		spread(balance);
+	}
+
+	/**
+	 * Consistent total of the slots, see {@link #snapshot(String)}
+	 */
+	BigDecimal balance() {
+		return snapshot(null).getBalance();
+	}
+
+	/**
+	 * Reads every slot and then checks that none of them changed meanwhile,
+	 * retrying otherwise, so the total held at one instant between the two
+	 * passes. May be called holding any of the slots.
+	 */
+	AccountSnapshot snapshot(String accountId) {
+		long[] versions = new long[slots.length];
+		while (true) {
+			BigDecimal sum = BigDecimal.ZERO;
+			long writes = 0;
+			int read = 0;
+			for (; read < slots.length; read++) {
+				long version = slots[read].version;
+				if ((version & 1) != 0) {
+					break;
+				}
+				versions[read] = version;
+				writes += version >>> 1;
+				sum = sum.add(slots[read].balance);
+			}
+			if (read == slots.length && unchanged(versions)) {
+				return new AccountSnapshot(accountId, sum, writes);
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	int lockForCredit() {
+		int slot = ThreadLocalRandom.current().nextInt(slots.length);
+		slots[slot].lock();
+		return slot;
+	}
+
+	/**
+	 * @return the locked slot when it covers the amount on its own, otherwise
+	 *         {@link #ALL} with every slot locked
+	 */
+	int lockForDebit(BigDecimal amount) {
+		int slot = ThreadLocalRandom.current().nextInt(slots.length);
+		slots[slot].lock();
+		if (slots[slot].balance.compareTo(amount) >= 0) {
+			return slot;
+		}
+		slots[slot].unlock();
+		lockAll();
+		return ALL;
+	}
+
+	void lockAll() {
+		for (Slot slot : slots) {
+			slot.lock();
+		}
+	}
+
+	void unlock(int held) {
+		if (held != ALL) {
+			slots[held].unlock();
+			return;
+		}
+		for (int i = slots.length - 1; i >= 0; i--) {
+			slots[i].unlock();
+		}
+	}
+
+	/**
+	 * Caller must hold what {@link #lockForDebit(BigDecimal)} returned, or every
+	 * slot.
+	 *
+	 * @return false, leaving every slot untouched, when the balance does not cover
+	 *         the amount
+	 */
+	boolean tryDebit(int held, BigDecimal amount) {
+		if (held != ALL) {
+			Slot slot = slots[held];
+			slot.set(slot.balance.subtract(amount));
+			return true;
+		}
+		BigDecimal sum = heldSum();
+		if (sum.compareTo(amount) < 0) {
+			return false;
+		}
+		spread(sum.subtract(amount));
+		return true;
+	}
+
+	/**
+	 * Caller must hold the given slot, or every slot.
+	 */
+	void add(int held, BigDecimal amount) {
+		if (held == ALL) {
+			spread(heldSum().add(amount));
+			return;
+		}
+		Slot slot = slots[held];
+		slot.set(slot.balance.add(amount));
+	}
+
+	int slotCount() {
+		return slots.length;
+	}
+
+	/**
+	 * Caller must hold every slot.
+	 */
+	private BigDecimal heldSum() {
+		BigDecimal sum = BigDecimal.ZERO;
+		for (Slot slot : slots) {
+			sum = sum.add(slot.balance);
+		}
+		return sum;
+	}
+
+	private boolean unchanged(long[] versions) {
+		for (int i = 0; i < slots.length; i++) {
+			if (slots[i].version != versions[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Caller must hold every slot, or be the only thread seeing the balance. The
+	 * total is divided in its own smallest unit, the first slots taking one unit
+	 * more when it does not divide evenly.
+	 */
+	private void spread(BigDecimal total) {
+		BigInteger[] share = total.unscaledValue().divideAndRemainder(BigInteger.valueOf(slots.length));
+		int remainder = share[1].intValue();
+		for (int i = 0; i < slots.length; i++) {
+			BigInteger units = i < Math.abs(remainder) ? share[0].add(BigInteger.valueOf(Integer.signum(remainder)))
+					: share[0];
+			slots[i].set(new BigDecimal(units, total.scale()));
+		}
+	}
+
+	/**
+	 * One slot and the lock guarding it.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Slot extends ReentrantLock {
+
+		private volatile BigDecimal balance = BigDecimal.ZERO;
+
+		/**
+		 * Odd while the balance is being written, raised by two on every write
+		 */
+		private volatile long version;
+
+		/**
+		 * Caller must hold the slot.
+		 */
+		private void set(BigDecimal balance) {
+			long version = this.version;
+			this.version = version + 1;
+			this.balance = balance;
+			this.version = version + 2;
+		}
+	}
+}
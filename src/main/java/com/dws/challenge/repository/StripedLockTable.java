@@ -0,0 +1,177 @@
+package com.dws.challenge.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed table of locks shared by all accounts. An account is guarded by the
+ * stripe its accountId hashes to, so lock memory is bounded by the stripe
+ * count instead of growing with the number of accounts.
+ * 
+ * Pairs of stripes are always taken in ascending stripe order, and a pair that
+ * hashes to the same stripe takes it only once, which keeps the transfer path
+ * deadlock-free. Contention is counted, and its wait timed, on the slow path
+ * only, so an uncontended acquisition costs one tryLock.
+ */
+public class StripedLockTable {
+
+	private static final int MAX_STRIPES = 1 << 30;
+
+	private final ReentrantLock[] locks;
+
+	private final int mask;
+
+	private final AtomicLongArray contended;
+
+	private final LongAdder acquisitions = new LongAdder();
+
+	private volatile LongConsumer waitListener;
+
+	/**
+	 * @param stripes requested stripe count, rounded up to a power of two
+	 */
+	public StripedLockTable(int stripes) {
+		if (stripes <= 0 || stripes > MAX_STRIPES) {
+			throw new IllegalArgumentException("Lock stripes must be between 1 and " + MAX_STRIPES + ": " + stripes);
+		}
+		int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+		this.locks = new ReentrantLock[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.mask = size - 1;
+		this.contended = new AtomicLongArray(size);
+	}
+
+	public int stripeFor(String accountId) {
+		int h = accountId.hashCode();
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Stripe of a dense account index, consecutive indexes map to consecutive
+	 * stripes
+	 */
+	public int stripeForIndex(int index) {
+		return index & mask;
+	}
+
+	public void lock(int stripe) {
+		ReentrantLock lock = locks[stripe];
+		if (!lock.tryLock()) {
+			contended.incrementAndGet(stripe);
+			LongConsumer listener = waitListener;
+			if (listener == null) {
+				lock.lock();
+			} else {
+				long started = System.nanoTime();
+				lock.lock();
+				listener.accept(System.nanoTime() - started);
+			}
+		}
+		acquisitions.increment();
+	}
+
+	/**
+	 * @param waitListener receives the nanoseconds each contended acquisition
+	 *                     waited for its stripe
+	 */
+	public void setWaitListener(LongConsumer waitListener) {
+		this.waitListener = waitListener;
+	}
+
+	public void unlock(int stripe) {
+		locks[stripe].unlock();
+	}
+
+	public void lockPair(int stripe, int otherStripe) {
+		if (stripe == otherStripe) {
+			lock(stripe);
+		} else {
+			lock(Math.min(stripe, otherStripe));
+			lock(Math.max(stripe, otherStripe));
+		}
+	}
+
+	public void unlockPair(int stripe, int otherStripe) {
+		if (stripe == otherStripe) {
+			unlock(stripe);
+		} else {
+			unlock(Math.max(stripe, otherStripe));
+			unlock(Math.min(stripe, otherStripe));
+		}
+	}
+
+	/**
+	 * Sorts the stripes and drops duplicates in place, then locks them in
+	 * ascending order, so any set of stripes can be taken without deadlocking
+	 * against pairs or other sets.
+	 * 
+	 * @return number of distinct stripes now held at the start of the array, to
+	 *         be passed to {@link #unlockAll(int[], int)}
+	 */
+	public int lockAll(int[] stripes) {
+		Arrays.sort(stripes);
+		int count = 0;
+		for (int i = 0; i < stripes.length; i++) {
+			if (count == 0 || stripes[count - 1] != stripes[i]) {
+				stripes[count++] = stripes[i];
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			lock(stripes[i]);
+		}
+		return count;
+	}
+
+	public void unlockAll(int[] stripes, int count) {
+		for (int i = count - 1; i >= 0; i--) {
+			unlock(stripes[i]);
+		}
+	}
+
+	public boolean isHeldByCurrentThread(int stripe) {
+		return locks[stripe].isHeldByCurrentThread();
+	}
+
+	public int stripeCount() {
+		return locks.length;
+	}
+
+	/**
+	 * @return total number of lock acquisitions
+	 */
+	public long acquisitions() {
+		return acquisitions.sum();
+	}
+
+	/**
+	 * @return number of acquisitions of the stripe that had to wait for another
+	 *         thread
+	 */
+	public long contention(int stripe) {
+		return contended.get(stripe);
+	}
+
+	public long totalContention() {
+		long total = 0;
+		for (int i = 0; i < locks.length; i++) {
+			total += contended.get(i);
+		}
+		return total;
+	}
+
+	/**
+	 * @return contention count of the hottest stripe
+	 */
+	public long maxContention() {
+		long max = 0;
+		for (int i = 0; i < locks.length; i++) {
+			max = Math.max(max, contended.get(i));
+		}
+		return max;
+	}
+}
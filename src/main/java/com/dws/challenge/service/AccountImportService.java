@@ -0,0 +1,183 @@
+package com.dws.challenge.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportFailure;
+import com.dws.challenge.domain.AccountImportResult;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates accounts from an NDJSON stream or a JSON array without buffering the
+ * upload. Records are parsed one at a time into chunks; each chunk is
+ * validated in parallel on a dedicated fork-join pool and then inserted in
+ * upload order, so memory is bounded by the chunk size whatever the upload
+ * size.
+ */
+@Service
+@Slf4j
+public class AccountImportService {
+
+	private final AccountsRepository accountsRepository;
+
+	private final ObjectReader accountReader;
+
+	private final Validator validator;
+
+	private final ForkJoinPool validationPool;
+
+	private final int chunkSize;
+
+	private final int maxReportedFailures;
+
+	@Autowired
+	public AccountImportService(AccountsRepository accountsRepository, ObjectMapper objectMapper, Validator validator,
+			@Value("${challenge.accounts.import.chunk-size:1000}") int chunkSize,
+			@Value("${challenge.accounts.import.parallelism:0}") int parallelism,
+			@Value("${challenge.accounts.import.max-reported-failures:1000}") int maxReportedFailures) {
+		this.accountsRepository = accountsRepository;
+		this.accountReader = objectMapper.readerFor(Account.class);
+		this.validator = validator;
+		this.validationPool = new ForkJoinPool(
+				parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		this.chunkSize = chunkSize;
+		this.maxReportedFailures = maxReportedFailures;
+	}
+
+	/**
+	 * A record that can not be bound to an account is reported and skipped. A
+	 * stream that can not be parsed any further stops the import, the records
+	 * before it stay created and the result carries the error.
+	 * 
+	 * @param body NDJSON, or a JSON array of accounts
+	 * @return counts and the first failures of the import
+	 */
+	public AccountImportResult importAccounts(InputStream body) {
+		long started = System.nanoTime();
+		AccountImportResult result = new AccountImportResult();
+		List<Account> chunk = new ArrayList<>(chunkSize);
+		String[] bindFailures = new String[chunkSize];
+		long chunkStart = 0;
+		long index = 0;
+		try (MappingIterator<Account> records = accountReader.readValues(body)) {
+			while (true) {
+				Account account;
+				try {
+					if (!records.hasNextValue()) {
+						break;
+					}
+					account = records.nextValue();
+					bindFailures[chunk.size()] = account == null ? "Record is null." : null;
+				} catch (JsonMappingException e) {
+					account = null;
+					bindFailures[chunk.size()] = e.getOriginalMessage();
+				}
+				chunk.add(account);
+				index++;
+				if (chunk.size() == chunkSize) {
+					importChunk(chunk, bindFailures, chunkStart, result);
+					chunkStart = index;
+				}
+			}
+		} catch (IOException e) {
+			result.setError("Stopped reading at record " + index + ": " + e.getMessage());
+		}
+		importChunk(chunk, bindFailures, chunkStart, result);
+		result.setReceived(index);
+		log.info("Imported accounts received={} created={} failed={} in {} ms", result.getReceived(),
+				result.getCreated(), result.getFailed(), (System.nanoTime() - started) / 1_000_000);
+		return result;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		validationPool.shutdown();
+	}
+
+	/**
+	 * Validates the chunk in parallel, then creates its valid accounts in order
+	 * and clears it. Null entries are records that failed to bind, for the
+	 * reason at the same position of {@code bindFailures}.
+	 */
+	private void importChunk(List<Account> chunk, String[] bindFailures, long chunkStart,
+			AccountImportResult result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		String[] violations = new String[chunk.size()];
+		validationPool.submit(() -> IntStream.range(0, chunk.size()).parallel()
+				.forEach(i -> violations[i] = validate(chunk.get(i)))).join();
+
+		for (int i = 0; i < chunk.size(); i++) {
+			Account account = chunk.get(i);
+			long index = chunkStart + i;
+			if (account == null) {
+				result.addFailure(new AccountImportFailure(index, null, ErrorCode.ACCOUNT_ERROR, bindFailures[i]),
+						maxReportedFailures);
+				continue;
+			}
+			if (violations[i] != null) {
+				result.addFailure(
+						new AccountImportFailure(index, account.getAccountId(), ErrorCode.ACCOUNT_ERROR, violations[i]),
+						maxReportedFailures);
+				continue;
+			}
+			try {
+				accountsRepository.createAccount(account);
+				result.setCreated(result.getCreated() + 1);
+			} catch (DuplicateAccountIdException e) {
+				result.addFailure(
+						new AccountImportFailure(index, account.getAccountId(), ErrorCode.ACCOUNT_ERROR, e.getMessage()),
+						maxReportedFailures);
+			} catch (BusinessException e) {
+				result.addFailure(
+						new AccountImportFailure(index, account.getAccountId(), e.getErrorCode(), e.getMessage()),
+						maxReportedFailures);
+			}
+		}
+		chunk.clear();
+	}
+
+	/**
+	 * @return the violations joined into one message, null when valid
+	 */
+	private String validate(Account account) {
+		if (account == null) {
+			return null;
+		}
+		Set<ConstraintViolation<Account>> violations = validator.validate(account);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		StringBuilder message = new StringBuilder();
+		for (ConstraintViolation<Account> violation : violations) {
+			if (message.length() > 0) {
+				message.append("; ");
+			}
+			message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+		}
+		return message.toString();
+	}
+}
@@ -1,6 +1,6 @@
 package com.dws.challenge.service;
 
-import java.util.Map;
+import java.time.Instant;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +8,11 @@ import org.springframework.stereotype.Service;
 
 import com.dws.challenge.constant.ErrorCode;
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransactionHistoryPage;
 import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.TransactionHistoryUnavailableException;
+import com.dws.challenge.history.TransactionHistory;
 import com.dws.challenge.repository.AccountsRepository;
 
 import lombok.Getter;
@@ -21,6 +25,12 @@ public class AccountsService {
 	@Getter
 	private final AccountsRepository accountsRepository;
 
+	/**
+	 * Null unless {@code challenge.history.enabled=true}
+	 */
+	@Autowired(required = false)
+	TransactionHistory transactionHistory;
+
 	@Autowired
 	public AccountsService(AccountsRepository accountsRepository) {
 		this.accountsRepository = accountsRepository;
@@ -38,13 +48,53 @@ public class AccountsService {
 	 * @return
 	 */
 	public Account getAccount(String accountId) {
-		Map<String, Account> accounts = this.accountsRepository.getAccount();
-
-		Account account = Optional.ofNullable(accounts.get(accountId))
+		Account account = Optional.ofNullable(this.accountsRepository.getAccount(accountId))
 				.orElseThrow(() -> new AccountNotExistException("Account with id:" + accountId + " does not exist.",
 						ErrorCode.ACCOUNT_ERROR));
 
 		return account;
 	}
 
+	/**
+	 * Same as {@link #getAccount(String)} but returns an immutable snapshot read
+	 * without taking any transfer lock, for callers outside the service layer
+	 * 
+	 * @param accountId
+	 * @return
+	 */
+	public AccountSnapshot getAccountSnapshot(String accountId) {
+		return Optional.ofNullable(this.accountsRepository.getAccountSnapshot(accountId))
+				.orElseThrow(() -> new AccountNotExistException("Account with id:" + accountId + " does not exist.",
+						ErrorCode.ACCOUNT_ERROR));
+	}
+
+	/**
+	 * This method return one page of the transfers applied to the account, oldest
+	 * first, starting at the cursor and at the first entry not before FROM. The
+	 * limit is kept between 1 and {@link TransactionHistory#MAX_PAGE_SIZE}. Throws
+	 * TransactionHistoryUnavailableException when the history is disabled or the
+	 * account store does not record it
+	 * 
+	 * @param accountId
+	 * @param cursor    sequence of the first entry, 0 for the start
+	 * @param from      first instant included, may be null
+	 * @param to        first instant excluded, may be null
+	 * @param limit
+	 * @return
+	 */
+	public TransactionHistoryPage getTransactionHistory(String accountId, long cursor, Instant from, Instant to,
+			int limit) {
+		if (this.transactionHistory == null || !this.accountsRepository.recordsHistory()) {
+			throw new TransactionHistoryUnavailableException(
+					"Transaction history is not recorded, enable challenge.history.enabled on the in-memory store.",
+					ErrorCode.ACCOUNT_ERROR);
+		}
+		if (!this.accountsRepository.accountExists(accountId)) {
+			throw new AccountNotExistException("Account with id:" + accountId + " does not exist.",
+					ErrorCode.ACCOUNT_ERROR);
+		}
+		return this.transactionHistory.getPage(accountId, Math.max(cursor, 0),
+				from == null ? Long.MIN_VALUE : from.toEpochMilli(), to == null ? Long.MAX_VALUE : to.toEpochMilli(),
+				Math.max(1, Math.min(limit, TransactionHistory.MAX_PAGE_SIZE)));
+	}
 }
@@ -0,0 +1,209 @@
+package com.dws.challenge.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferNotification;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decorator that takes transfer notifications off the request thread. Events
+ * are put on a bounded queue and a single dispatcher thread drains them in
+ * batches, merges the events of the same account into one message and hands
+ * it to the delegate. What happens when the queue is full is decided by the
+ * {@link OverflowPolicy}.
+ */
+@Slf4j
+public class BatchingNotificationService implements NotificationService, MeterBinder {
+
+	public enum OverflowPolicy {
+		/**
+		 * Discard the event that did not fit
+		 */
+		DROP_NEWEST,
+		/**
+		 * Discard the oldest queued event to make room
+		 */
+		DROP_OLDEST,
+		/**
+		 * Wait for room on the queue
+		 */
+		BLOCK,
+		/**
+		 * Deliver the event on the calling thread
+		 */
+		CALLER_RUNS
+	}
+
+	private static final long POLL_MILLIS = 100;
+
+	private final NotificationService delegate;
+
+	private final BlockingQueue<TransferNotification> queue;
+
+	private final int batchSize;
+
+	private final long lingerNanos;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong dispatched = new AtomicLong();
+
+	private final Thread dispatcher;
+
+	private volatile boolean running = true;
+
+	public BatchingNotificationService(NotificationService delegate, int capacity, int batchSize, long lingerMillis,
+			OverflowPolicy overflowPolicy) {
+		this.delegate = delegate;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+		this.overflowPolicy = overflowPolicy;
+		this.dispatcher = new Thread(this::dispatch, "notificationDispatcher");
+		this.dispatcher.setDaemon(true);
+		this.dispatcher.start();
+	}
+
+	/**
+	 * Pre-formatted descriptions can not be merged, they are delivered directly.
+	 */
+	@Override
+	public void notifyAboutTransfer(Account account, String transferDescription) {
+		delegate.notifyAboutTransfer(account, transferDescription);
+	}
+
+	@Override
+	public void notifyAboutTransfer(TransferNotification notification) {
+		if (queue.offer(notification)) {
+			return;
+		}
+		switch (overflowPolicy) {
+		case DROP_OLDEST:
+			while (!queue.offer(notification)) {
+				if (queue.poll() != null) {
+					dropped.incrementAndGet();
+				}
+			}
+			break;
+		case BLOCK:
+			try {
+				queue.put(notification);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				dropped.incrementAndGet();
+			}
+			break;
+		case CALLER_RUNS:
+			deliver(List.of(notification));
+			break;
+		default:
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Stop accepting work and deliver what is still queued.
+	 */
+	public void shutdown() throws InterruptedException {
+		running = false;
+		dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	public long getDispatched() {
+		return dispatched.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("notification.queue.depth", queue, BlockingQueue::size)
+				.description("Transfer notifications waiting for the dispatcher").register(registry);
+		FunctionCounter.builder("notification.dropped", dropped, AtomicLong::get)
+				.description("Transfer notifications dropped because the queue was full").register(registry);
+		FunctionCounter.builder("notification.dispatched", dispatched, AtomicLong::get)
+				.description("Transfer notifications handed to the delivery service").register(registry);
+	}
+
+	private void dispatch() {
+		List<TransferNotification> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				TransferNotification first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + lingerNanos;
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0) {
+						break;
+					}
+					TransferNotification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				deliver(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void deliver(List<TransferNotification> batch) {
+		Map<String, List<TransferNotification>> byAccount = new LinkedHashMap<>();
+		for (TransferNotification notification : batch) {
+			byAccount.computeIfAbsent(notification.getAccountId(), accountId -> new ArrayList<>(2)).add(notification);
+		}
+		for (Map.Entry<String, List<TransferNotification>> entry : byAccount.entrySet()) {
+			try {
+				delegate.notifyAboutTransfer(new Account(entry.getKey()), describe(entry.getValue()));
+			} catch (RuntimeException e) {
+				log.error("Failed to notify owner of {}", entry.getKey(), e);
+			}
+		}
+		dispatched.addAndGet(batch.size());
+	}
+
+	private static String describe(List<TransferNotification> notifications) {
+		if (notifications.size() == 1) {
+			return notifications.get(0).describe();
+		}
+		StringBuilder description = new StringBuilder();
+		for (TransferNotification notification : notifications) {
+			if (description.length() > 0) {
+				description.append("; ");
+			}
+			description.append(notification.describe());
+		}
+		return description.toString();
+	}
+}
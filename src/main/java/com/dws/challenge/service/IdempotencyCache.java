@@ -0,0 +1,241 @@
+package com.dws.challenge.service;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.IdempotencyKeyException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Remembers the outcome of recent transfers by their {@code Idempotency-Key},
+ * so a client retry gets the stored result instead of moving the money twice.
+ * Duplicates arriving while the first call is still running share its future.
+ * 
+ * Entries expire after {@code challenge.idempotency.ttl-seconds} and the oldest
+ * ones are evicted beyond {@code challenge.idempotency.max-entries}. Business
+ * failures (overdraft, unknown account) are stored like results, any other
+ * failure forgets the key so that the retry runs again.
+ * 
+ * An entry whose transfer is still in flight is never expired or evicted, as a
+ * retry would then run the transfer a second time. When every entry is in
+ * flight a new key is refused instead.
+ */
+@Component
+public class IdempotencyCache implements MeterBinder {
+
+	public static final int MAX_KEY_LENGTH = 255;
+
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final int maxEntries;
+
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder expirations = new LongAdder();
+
+	@Autowired
+	public IdempotencyCache(@Value("${challenge.idempotency.max-entries:100000}") int maxEntries,
+			@Value("${challenge.idempotency.ttl-seconds:3600}") long ttlSeconds) {
+		this(maxEntries, ttlSeconds, TimeUnit.SECONDS);
+	}
+
+	public IdempotencyCache(int maxEntries, long ttl, TimeUnit unit) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+
+	/**
+	 * Runs {@code transfer} unless {@code key} has been seen within the TTL, in
+	 * which case the stored (or still running) outcome is returned
+	 * 
+	 * @param key
+	 * @param request compared with the request the key was first used for
+	 * @param transfer
+	 * @return
+	 * @throws IdempotencyKeyException    when the key is malformed or was used
+	 *                                    for another transfer
+	 * @throws RejectedExecutionException when max-entries transfers are already
+	 *                                    in flight
+	 */
+	public CompletableFuture<TransferResult> execute(String key, TransferRequest request,
+			Supplier<CompletableFuture<TransferResult>> transfer) {
+		if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+			throw new IdempotencyKeyException(
+					"Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters.",
+					ErrorCode.IDEMPOTENCY_ERROR);
+		}
+		long now = System.nanoTime();
+		Entry entry = new Entry(key, request, now + ttlNanos);
+		Entry existing;
+		while ((existing = entries.putIfAbsent(key, entry)) != null) {
+			if (!existing.isExpired(now)) {
+				if (!existing.matches(request)) {
+					throw new IdempotencyKeyException("Idempotency-Key " + key + " was used for another transfer.",
+							ErrorCode.IDEMPOTENCY_ERROR);
+				}
+				hits.increment();
+				return existing.outcome.copy();
+			}
+			if (entries.remove(key, existing)) {
+				size.decrementAndGet();
+				expirations.increment();
+			}
+		}
+		misses.increment();
+		size.incrementAndGet();
+		insertionOrder.add(entry);
+
+		CompletableFuture<TransferResult> started;
+		try {
+			if (!evict(now)) {
+				throw new RejectedExecutionException(
+						"More than " + maxEntries + " idempotent transfers are in flight.");
+			}
+			started = transfer.get();
+		} catch (RuntimeException e) {
+			forget(entry);
+			entry.outcome.completeExceptionally(e);
+			throw e;
+		}
+		started.whenComplete((result, failure) -> {
+			if (failure == null) {
+				entry.outcome.complete(result);
+				return;
+			}
+			Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+					? failure.getCause()
+					: failure;
+			if (!(cause instanceof BusinessException)) {
+				forget(entry);
+			}
+			entry.outcome.completeExceptionally(failure);
+		});
+		return entry.outcome.copy();
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("idempotency.cache.size", size, AtomicInteger::get)
+				.description("Idempotency keys currently remembered").register(registry);
+		FunctionCounter.builder("idempotency.cache.requests", hits, LongAdder::sum).tag("result", "hit")
+				.description("Transfers answered from the idempotency cache").register(registry);
+		FunctionCounter.builder("idempotency.cache.requests", misses, LongAdder::sum).tag("result", "miss")
+				.description("Transfers executed for a new idempotency key").register(registry);
+		FunctionCounter.builder("idempotency.cache.evictions", evictions, LongAdder::sum).tag("cause", "size")
+				.description("Idempotency keys evicted to stay within max-entries").register(registry);
+		FunctionCounter.builder("idempotency.cache.evictions", expirations, LongAdder::sum).tag("cause", "expired")
+				.description("Idempotency keys dropped after their TTL").register(registry);
+	}
+
+	private void forget(Entry entry) {
+		if (entries.remove(entry.key, entry)) {
+			size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Drops entries from the old end of the insertion queue while it holds
+	 * forgotten or expired keys or more than maxEntries, stepping over the ones
+	 * still in flight. Only one thread walks the queue at a time, the others skip
+	 * eviction rather than wait.
+	 * 
+	 * @return false when more than maxEntries are left because they are all in
+	 *         flight
+	 */
+	private boolean evict(long now) {
+		if (!evictionLock.tryLock()) {
+			return true;
+		}
+		try {
+			Iterator<Entry> oldest = insertionOrder.iterator();
+			while (oldest.hasNext()) {
+				Entry entry = oldest.next();
+				boolean stale = entries.get(entry.key) != entry;
+				boolean expired = entry.isExpired(now);
+				if (!stale && !expired) {
+					if (size.get() <= maxEntries) {
+						break;
+					}
+					if (!entry.outcome.isDone()) {
+						continue;
+					}
+				}
+				oldest.remove();
+				if (!stale && entries.remove(entry.key, entry)) {
+					size.decrementAndGet();
+					(expired ? expirations : evictions).increment();
+				}
+			}
+			return size.get() <= maxEntries;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	private static final class Entry {
+
+		private final String key;
+
+		private final TransferRequest request;
+
+		private final long expiresAt;
+
+		private final CompletableFuture<TransferResult> outcome = new CompletableFuture<>();
+
+		private Entry(String key, TransferRequest request, long expiresAt) {
+			this.key = key;
+			this.request = request;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now) {
+			return expiresAt - now <= 0 && outcome.isDone();
+		}
+
+		private boolean matches(TransferRequest other) {
+			return request.getAccountFromId().equals(other.getAccountFromId())
+					&& request.getAccountToId().equals(other.getAccountToId())
+					&& request.getAmount().compareTo(other.getAmount()) == 0;
+		}
+	}
+}
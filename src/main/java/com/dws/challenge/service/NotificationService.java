@@ -1,8 +1,17 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferNotification;
 
 public interface NotificationService {
 
   void notifyAboutTransfer(Account account, String transferDescription);
+
+  /**
+   * Notify the owner of {@code notification.accountId}. Implementations may defer
+   * formatting and delivery, the default delivers immediately.
+   */
+  default void notifyAboutTransfer(TransferNotification notification) {
+    notifyAboutTransfer(new Account(notification.getAccountId()), notification.describe());
+  }
 }
@@ -1,20 +1,28 @@
 package com.dws.challenge.service;
 
-import java.util.Map;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.dws.challenge.constant.ErrorCode;
-import com.dws.challenge.constant.NotificationMessage;
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferItemResult;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferNotification;
+import com.dws.challenge.domain.TransferOutcome;
 import com.dws.challenge.domain.TransferRequest;
 import com.dws.challenge.domain.TransferResult;
 import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.BusinessException;
 import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.metrics.TransferMetrics;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepository.BatchListener;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -29,53 +37,181 @@ public class TransactionService {
 	@Autowired
 	NotificationService notificationService;
 
+	@Autowired
+	@Qualifier("taskExecutor")
+	Executor taskExecutor;
+
+	@Autowired
+	TransferMetrics transferMetrics;
+
+	/**
+	 * Set when single transfers are combined into batch passes
+	 */
+	@Autowired(required = false)
+	TransferCombiner transferCombiner;
+
 	@Autowired
 	public TransactionService(AccountsRepository accountsRepository) {
 		this.accountsRepository = accountsRepository;
 	}
 
 	/**
-	 * This method transfer balance from one account to another account Also we used
-	 * parallel process to perform operation
+	 * This method transfer balance from one account to another account. The
+	 * transfer runs on the task executor (or the store's own threads) and the
+	 * returned future completes with its outcome. Existence of both accounts, the
+	 * overdraft check and the update are one atomic step of the repository, a
+	 * rejected transfer creates no exception. With the {@link TransferCombiner}
+	 * enabled the transfer is applied in a batch pass with concurrent ones
 	 * 
 	 * @param transfer
 	 * @return
-	 * @throws OverDraftException
-	 * @throws AccountNotExistException
 	 */
-	public CompletableFuture<TransferResult> transferBalances(TransferRequest transfer)
-			throws OverDraftException, AccountNotExistException {
-		log.info(System.currentTimeMillis() + " ::saving list of users of size {}", transfer.getAccountFromId(),
-				"" + Thread.currentThread().getName());
-		Map<String, Account> accounts = this.accountsRepository.transferBalances(transfer);
-		Account accountFrom = Optional.ofNullable(accounts.get(transfer.getAccountFromId()))
-				.orElseThrow(() -> new AccountNotExistException(
-						"Account with id:" + transfer.getAccountFromId() + " does not exist.",
-						ErrorCode.ACCOUNT_ERROR));
-		Account accountTo = Optional.ofNullable(accounts.get(transfer.getAccountToId()))
-				.orElseThrow(() -> new AccountNotExistException(
-						"Account with id:" + transfer.getAccountFromId() + " does not exist.",
-						ErrorCode.ACCOUNT_ERROR));
-		if (accountFrom.getBalance().compareTo(transfer.getAmount()) < 0) {
-			throw new OverDraftException(
-					"Account with id:" + accountFrom.getAccountId() + " does not have enough balance to transfer.",
-					ErrorCode.ACCOUNT_ERROR);
+	public CompletableFuture<TransferOutcome> tryTransfer(TransferRequest transfer) {
+		if (log.isInfoEnabled()) {
+			log.info("Transfer requested from={} to={} amount={}", transfer.getAccountFromId(),
+					transfer.getAccountToId(), transfer.getAmount());
 		}
+		long started = System.nanoTime();
+		CompletableFuture<TransferOutcome> attempt = transferCombiner != null ? transferCombiner.submit(transfer)
+				: this.accountsRepository.tryTransferAsync(transfer, taskExecutor);
+		return attempt.whenComplete((outcome, failure) -> transferMetrics.record(started, outcome, failure))
+				.thenApply(outcome -> {
+					if (outcome.isApplied()) {
+						notifyAboutTransfer(transfer);
+					}
+					return outcome;
+				});
+	}
 
-		accountFrom.setBalance(accountFrom.getBalance().subtract(transfer.getAmount()));
-		accountTo.setBalance(accountTo.getBalance().add(transfer.getAmount()));
+	/**
+	 * Exception based form of {@link #tryTransfer(TransferRequest)} for the REST
+	 * layer: the returned future completes exceptionally with OverDraftException
+	 * / AccountNotExistException when the transfer is rejected
+	 * 
+	 * @param transfer
+	 * @return
+	 */
+	public CompletableFuture<TransferResult> transferBalances(TransferRequest transfer) {
+		return tryTransfer(transfer).thenApply(TransferOutcome::orElseThrow);
+	}
 
-		TransferResult result = new TransferResult();
-		result.setAccountFromId(transfer.getAccountFromId());
-		result.setBalanceAfterTransfer(accountFrom.getBalance());
+	/**
+	 * This method apply a batch of transfers in the given order on the task
+	 * executor. Each account lock is taken once for the whole batch and a failing
+	 * transfer does not stop the others, its error code is returned in its item
+	 * result. Every item is timed from the submission of the batch, tagged by its
+	 * own outcome
+	 * 
+	 * @param transfers
+	 * @return one result per transfer, in submission order
+	 */
+	public CompletableFuture<List<BatchTransferItemResult>> transferBatch(List<TransferRequest> transfers) {
+		if (log.isInfoEnabled()) {
+			log.info("Batch transfer requested size={}", transfers.size());
+		}
+		long started = System.nanoTime();
+		MeteredBatch batch = new MeteredBatch(transfers.size());
+		return CompletableFuture.runAsync(() -> this.accountsRepository.transferBatch(transfers, batch), taskExecutor)
+				.whenComplete((ignored, failure) -> batch.record(started, transfers.size(), failure))
+				.thenApply(ignored -> {
+					for (BatchTransferItemResult item : batch.results) {
+						if (item.isApplied()) {
+							notifyAboutTransfer(transfers.get(item.getIndex()));
+						}
+					}
+					return batch.results;
+				});
+	}
 
-		// We need to notify user using notification service
-		notificationService.notifyAboutTransfer(accountFrom, NotificationMessage.DEBITED_MSG + accountFrom.getBalance()
-				+ " for account id :- " + accountTo.getAccountId());
-		notificationService.notifyAboutTransfer(accountTo,
-				NotificationMessage.CREDITED_MSG + accountTo.getBalance() + " From :- " + accountFrom.getAccountId());
-		return CompletableFuture.completedFuture(result);
+	/**
+	 * This method debit one account once and credit many accounts as a single
+	 * atomic transfer on the task executor. Every account is locked once and the
+	 * total of the legs is checked against the FROM balance, so either every leg
+	 * is applied or none is
+	 * 
+	 * @param transfer
+	 * @return future completed with the outcome of the whole transfer
+	 */
+	public CompletableFuture<TransferOutcome> tryTransferMultiLeg(MultiLegTransferRequest transfer) {
+		if (log.isInfoEnabled()) {
+			log.info("Multi-leg transfer requested from={} legs={}", transfer.getAccountFromId(),
+					transfer.getLegs().size());
+		}
+		long started = System.nanoTime();
+		return this.accountsRepository.tryTransferMultiLegAsync(transfer, taskExecutor)
+				.whenComplete((outcome, failure) -> transferMetrics.record(started, outcome, failure))
+				.thenApply(outcome -> {
+					if (outcome.isApplied()) {
+						for (TransferRequest leg : transfer.toTransfers()) {
+							notifyAboutTransfer(leg);
+						}
+					}
+					return outcome;
+				});
+	}
+
+	/**
+	 * Exception based form of
+	 * {@link #tryTransferMultiLeg(MultiLegTransferRequest)} for the REST layer
+	 * 
+	 * @param transfer
+	 * @return
+	 */
+	public CompletableFuture<TransferResult> transferMultiLeg(MultiLegTransferRequest transfer) {
+		return tryTransferMultiLeg(transfer).thenApply(TransferOutcome::orElseThrow);
+	}
+
+	// We need to notify user using notification service
+	private void notifyAboutTransfer(TransferRequest transfer) {
+		notificationService.notifyAboutTransfer(TransferNotification.debited(transfer));
+		notificationService.notifyAboutTransfer(TransferNotification.credited(transfer));
+	}
 
+	/**
+	 * Collects the item results of a batch and keeps each typed outcome, so the
+	 * transfers are timed after the store released its locks
+	 */
+	private class MeteredBatch implements BatchListener {
+
+		private final List<BatchTransferItemResult> results;
+
+		private final List<Object> outcomes;
+
+		private MeteredBatch(int size) {
+			this.results = new ArrayList<>(size);
+			this.outcomes = new ArrayList<>(size);
+		}
+
+		@Override
+		public void onOutcome(int index, TransferOutcome outcome) {
+			results.add(BatchTransferItemResult.of(index, outcome));
+			outcomes.add(outcome);
+		}
+
+		@Override
+		public void onRejected(int index, BusinessException e) {
+			results.add(BatchTransferItemResult.rejected(index, e));
+			outcomes.add(e);
+		}
+
+		/**
+		 * One sample per transfer, those the failed batch never reached are
+		 * recorded as errors
+		 */
+		private void record(long startedNanos, int size, Throwable failure) {
+			for (Object outcome : outcomes) {
+				if (outcome instanceof TransferOutcome) {
+					transferMetrics.record(startedNanos, (TransferOutcome) outcome, null);
+				} else {
+					transferMetrics.record(startedNanos, null, (Throwable) outcome);
+				}
+			}
+			if (failure != null) {
+				for (int i = outcomes.size(); i < size; i++) {
+					transferMetrics.record(startedNanos, null, failure);
+				}
+			}
+		}
 	}
 
 	/**
@@ -84,7 +220,11 @@ public class TransactionService {
 	 * FROM and TO account exist or not
 	 * 
 	 * @param request
+	 * @deprecated the balance can change between this check and the transfer,
+	 *             use {@link #tryTransfer(TransferRequest)} which checks and
+	 *             applies in one step
 	 */
+	@Deprecated
 	public void checkBalance(TransferRequest request) {
 		Account accountFrom = this.accountsRepository.getAccount(request.getAccountFromId());
 		Account accountTo = this.accountsRepository.getAccount(request.getAccountToId());
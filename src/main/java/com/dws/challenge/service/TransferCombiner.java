@@ -0,0 +1,238 @@
+package com.dws.challenge.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepository.BatchListener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Flat-combining stage in front of the account store. Single transfers are
+ * queued and one combiner at a time, running on the transfer executor, drains
+ * them and applies up to {@code maxBatchSize} of them in one
+ * {@link AccountsRepository#transferBatch(List, BatchListener)} pass, so the
+ * in-memory store takes each lock stripe and waits for the journal once per
+ * pass instead of once per transfer. Callers are completed through their
+ * futures in the order the pass applied them.
+ *
+ * The caller that finds no combiner running starts one, so under light load a
+ * transfer is applied at once in a pass of its own, and under load the
+ * transfers queued while a pass runs make up the next one. A window above zero
+ * lets the combiner wait that long for a pass to fill up, but only after a
+ * pass that combined more than one transfer, so a lone transfer is never held
+ * back.
+ */
+@Slf4j
+public class TransferCombiner implements MeterBinder {
+
+	/**
+	 * Longest park while waiting out the window
+	 */
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+	private final AccountsRepository accountsRepository;
+
+	private final Executor executor;
+
+	private final int maxBatchSize;
+
+	private final long windowNanos;
+
+	private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean combining = new AtomicBoolean();
+
+	private final AtomicLong passes = new AtomicLong();
+
+	private final AtomicLong combined = new AtomicLong();
+
+	/**
+	 * Only touched by the combiner holding {@link #combining}
+	 */
+	private boolean contended;
+
+	/**
+	 * @param maxBatchSize  transfers applied per pass
+	 * @param windowMicros  time a pass waits for more transfers, 0 applies what
+	 *                      is queued straight away
+	 */
+	public TransferCombiner(AccountsRepository accountsRepository, Executor executor, int maxBatchSize,
+			long windowMicros) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Combined batch size must be at least 1: " + maxBatchSize);
+		}
+		this.accountsRepository = accountsRepository;
+		this.executor = executor;
+		this.maxBatchSize = maxBatchSize;
+		this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+	}
+
+	/**
+	 * @return future completed with the outcome of the transfer, or
+	 *         exceptionally when the store rejected it with an exception or the
+	 *         executor rejected the combiner
+	 */
+	public CompletableFuture<TransferOutcome> submit(TransferRequest transfer) {
+		Pending pending = new Pending(transfer);
+		queue.add(pending);
+		if (combining.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::combine);
+			} catch (RejectedExecutionException e) {
+				combining.set(false);
+				failQueued(e);
+			}
+		}
+		return pending.future;
+	}
+
+	public long getPasses() {
+		return passes.get();
+	}
+
+	public long getCombined() {
+		return combined.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("transfer.combiner.passes", passes, AtomicLong::get)
+				.description("Passes of the transfer combiner over the account store").register(registry);
+		FunctionCounter.builder("transfer.combiner.transfers", combined, AtomicLong::get)
+				.description("Single transfers applied by the transfer combiner").register(registry);
+	}
+
+	/**
+	 * Runs passes until the queue is empty. A transfer queued after the last
+	 * poll but before {@link #combining} is released starts no combiner of its
+	 * own, so the queue is checked again once it is released.
+	 */
+	private void combine() {
+		List<Pending> batch = new ArrayList<>(maxBatchSize);
+		do {
+			try {
+				while (fill(batch)) {
+					apply(batch);
+					batch.clear();
+				}
+			} finally {
+				combining.set(false);
+			}
+		} while (!queue.isEmpty() && combining.compareAndSet(false, true));
+	}
+
+	/**
+	 * @return false when nothing was queued
+	 */
+	private boolean fill(List<Pending> batch) {
+		drain(batch);
+		if (batch.isEmpty()) {
+			return false;
+		}
+		if (windowNanos > 0 && contended && batch.size() < maxBatchSize) {
+			long deadline = System.nanoTime() + windowNanos;
+			long remaining;
+			while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(Math.min(remaining, PARK_NANOS));
+				drain(batch);
+			}
+		}
+		contended = batch.size() > 1;
+		return true;
+	}
+
+	private void drain(List<Pending> batch) {
+		Pending pending;
+		while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+			batch.add(pending);
+		}
+	}
+
+	/**
+	 * Outcomes are recorded in the pending transfers while the store applies
+	 * the pass and only handed to the callers once it has returned, so no
+	 * caller's continuation runs under the store's locks or before the pass is
+	 * durable.
+	 */
+	private void apply(List<Pending> batch) {
+		List<TransferRequest> transfers = new ArrayList<>(batch.size());
+		for (Pending pending : batch) {
+			transfers.add(pending.transfer);
+		}
+		try {
+			accountsRepository.transferBatch(transfers, new BatchListener() {
+
+				@Override
+				public void onOutcome(int index, TransferOutcome outcome) {
+					batch.get(index).outcome = outcome;
+				}
+
+				@Override
+				public void onRejected(int index, BusinessException e) {
+					batch.get(index).exception = e;
+				}
+			});
+		} catch (RuntimeException e) {
+			log.error("Combined pass of {} transfers failed", batch.size(), e);
+			for (Pending pending : batch) {
+				pending.future.completeExceptionally(e);
+			}
+			return;
+		}
+		passes.incrementAndGet();
+		combined.addAndGet(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			Pending pending = batch.get(i);
+			if (pending.outcome != null) {
+				pending.future.complete(pending.outcome);
+			} else if (pending.exception != null) {
+				pending.future.completeExceptionally(pending.exception);
+			} else {
+				pending.future.completeExceptionally(
+						new IllegalStateException("Store reported no outcome for transfer " + i + " of the pass"));
+			}
+		}
+	}
+
+	private void failQueued(RejectedExecutionException e) {
+		Pending pending;
+		while ((pending = queue.poll()) != null) {
+			pending.future.completeExceptionally(e);
+		}
+	}
+
+	private static final class Pending {
+
+		private final TransferRequest transfer;
+
+		private final CompletableFuture<TransferOutcome> future = new CompletableFuture<>();
+
+		/**
+		 * Set by the combiner during the pass, exactly one of them
+		 */
+		private TransferOutcome outcome;
+
+		private BusinessException exception;
+
+		private Pending(TransferRequest transfer) {
+			this.transfer = transfer;
+		}
+	}
+}
@@ -1,6 +1,10 @@
 package com.dws.challenge.web;
 
+import java.io.InputStream;
+import java.time.Instant;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -9,16 +13,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportResult;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransactionHistoryPage;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.history.TransactionHistory;
+import com.dws.challenge.service.AccountImportService;
 import com.dws.challenge.service.AccountsService;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
@@ -26,6 +37,9 @@ public class AccountsController {
 	@Autowired
 	private final AccountsService accountsService;
 
+	@Autowired
+	private AccountImportService accountImportService;
+
 	@Autowired
 	public AccountsController(AccountsService accountsService) {
 		this.accountsService = accountsService;
@@ -33,7 +47,7 @@ public class AccountsController {
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<Object> createAccount(@Valid @RequestBody Account account) {
-		log.info("Creating account {}", account.getAccountId() + " : balance :- " + account.getBalance());
+		log.info("Creating account accountId={} balance={}", account.getAccountId(), account.getBalance());
 		try {
 			this.accountsService.createAccount(account);
 		} catch (DuplicateAccountIdException e) {
@@ -42,9 +56,35 @@ public class AccountsController {
 		return new ResponseEntity<>(HttpStatus.CREATED);
 	}
 	
+	/**
+	 * Create accounts from an NDJSON stream or a JSON array of accounts. The
+	 * upload is parsed while it arrives and answered with counts and the first
+	 * failed records; 400 when the upload became unreadable part way
+	 */
+	@PostMapping(path = "/bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+	public ResponseEntity<AccountImportResult> importAccounts(InputStream body) {
+		AccountImportResult result = this.accountImportService.importAccounts(body);
+		return new ResponseEntity<>(result, result.getError() == null ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+	}
+
 	@GetMapping(path = "/{accountId}")
-	public Account getAccount(@PathVariable String accountId) {
-		 log.info("Retrieving account for id {}", accountId);
-		 return this.accountsService.getAccount(accountId);
+	public AccountSnapshot getAccount(@PathVariable String accountId) {
+		log.info("Retrieving account accountId={}", accountId);
+		return this.accountsService.getAccountSnapshot(accountId);
+	}
+
+	/**
+	 * Transfers applied to the account, oldest first. Pass the returned
+	 * nextCursor to read the next page; from and to (ISO-8601, to excluded)
+	 * restrict the pages to a time range. 501 unless the history is enabled with
+	 * challenge.history.enabled on the in-memory store, the only store that
+	 * records it
+	 */
+	@GetMapping(path = "/{accountId}/transactions")
+	public TransactionHistoryPage getTransactions(@PathVariable String accountId,
+			@RequestParam(defaultValue = "0") long cursor, @RequestParam(required = false) Instant from,
+			@RequestParam(required = false) Instant to,
+			@RequestParam(defaultValue = "" + TransactionHistory.DEFAULT_PAGE_SIZE) int limit) {
+		return this.accountsService.getTransactionHistory(accountId, cursor, from, to, limit);
 	}
 }
@@ -0,0 +1,150 @@
+package com.dws.challenge.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Blocking view of a reactive request body for code that reads an
+ * {@link InputStream}. One buffer is demanded at a time, once the previous one
+ * has been read, so the upload is held back by the reader instead of piling up
+ * in memory. Closing the stream cancels what is left of the upload and releases
+ * the buffers already received.
+ *
+ * Must be read from a thread that may block, never from the event loop.
+ */
+class DataBufferInputStream extends InputStream implements Subscriber<DataBuffer> {
+
+	private static final Object COMPLETE = new Object();
+
+	/**
+	 * Buffers and the terminal signal, in the order they were published
+	 */
+	private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+
+	private volatile Subscription subscription;
+
+	private volatile boolean closed;
+
+	/**
+	 * Only touched by the reading thread
+	 */
+	private InputStream current;
+
+	private boolean done;
+
+	DataBufferInputStream(Publisher<DataBuffer> body) {
+		body.subscribe(this);
+	}
+
+	@Override
+	public void onSubscribe(Subscription subscription) {
+		this.subscription = subscription;
+		if (closed) {
+			subscription.cancel();
+		} else {
+			subscription.request(1);
+		}
+	}
+
+	@Override
+	public void onNext(DataBuffer buffer) {
+		signals.add(buffer);
+		if (closed) {
+			discard();
+		}
+	}
+
+	@Override
+	public void onError(Throwable failure) {
+		signals.add(failure);
+	}
+
+	@Override
+	public void onComplete() {
+		signals.add(COMPLETE);
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (closed) {
+			throw new IOException("Upload stream is closed");
+		}
+		if (length == 0) {
+			return 0;
+		}
+		while (true) {
+			if (current != null) {
+				int read = current.read(bytes, offset, length);
+				if (read > 0) {
+					return read;
+				}
+				current.close();
+				current = null;
+				subscription.request(1);
+			}
+			if (done) {
+				return -1;
+			}
+			Object signal = take();
+			if (signal == COMPLETE) {
+				done = true;
+				return -1;
+			}
+			if (signal instanceof Throwable) {
+				done = true;
+				throw new IOException("Upload failed", (Throwable) signal);
+			}
+			current = ((DataBuffer) signal).asInputStream(true);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (current != null) {
+			current.close();
+			current = null;
+		}
+		Subscription subscribed = subscription;
+		if (subscribed != null && !done) {
+			subscribed.cancel();
+		}
+		discard();
+	}
+
+	private Object take() throws IOException {
+		try {
+			return signals.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the upload");
+		}
+	}
+
+	private void discard() {
+		Object signal;
+		while ((signal = signals.poll()) != null) {
+			if (signal instanceof DataBuffer) {
+				DataBufferUtils.release((DataBuffer) signal);
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.dws.challenge.web;
+
+import java.io.InputStream;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportResult;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransactionHistoryPage;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.history.TransactionHistory;
+import com.dws.challenge.service.AccountImportService;
+import com.dws.challenge.service.AccountsService;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux form of {@link AccountsController}, active in the reactive profile,
+ * with the same paths, bodies and status codes. Every store call runs on the
+ * bounded elastic scheduler: creation and imports may wait for the journal,
+ * and reads may block on a lock stripe when the compact and mapped stores fall
+ * back from their lock-free snapshot, so none of them is run on the event loop.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/v1/accounts")
+@Slf4j
+public class ReactiveAccountsController {
+
+	private final AccountsService accountsService;
+
+	private final AccountImportService accountImportService;
+
+	@Autowired
+	public ReactiveAccountsController(AccountsService accountsService, AccountImportService accountImportService) {
+		this.accountsService = accountsService;
+		this.accountImportService = accountImportService;
+	}
+
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Object>> createAccount(@Valid @RequestBody Account account) {
+		log.info("Creating account accountId={} balance={}", account.getAccountId(), account.getBalance());
+		return Mono.fromCallable(() -> {
+			this.accountsService.createAccount(account);
+			return new ResponseEntity<Object>(HttpStatus.CREATED);
+		}).subscribeOn(Schedulers.boundedElastic()).onErrorResume(DuplicateAccountIdException.class,
+				e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST)));
+	}
+
+	/**
+	 * Same contract as {@link AccountsController#importAccounts(InputStream)}.
+	 * The upload is streamed into the importer on a bounded elastic worker, which
+	 * demands the next request buffer only once it has parsed the previous one.
+	 */
+	@PostMapping(path = "/bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+	public Mono<ResponseEntity<AccountImportResult>> importAccounts(@RequestBody Flux<DataBuffer> body) {
+		return Mono.fromCallable(() -> {
+			try (InputStream in = new DataBufferInputStream(body)) {
+				return this.accountImportService.importAccounts(in);
+			}
+		}).subscribeOn(Schedulers.boundedElastic()).map(result -> new ResponseEntity<>(result,
+				result.getError() == null ? HttpStatus.OK : HttpStatus.BAD_REQUEST));
+	}
+
+	@GetMapping(path = "/{accountId}")
+	public Mono<AccountSnapshot> getAccount(@PathVariable String accountId) {
+		log.info("Retrieving account accountId={}", accountId);
+		return Mono.fromCallable(() -> this.accountsService.getAccountSnapshot(accountId))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Same contract as {@link AccountsController#getTransactions}, 501 unless
+	 * the history is enabled on the in-memory store
+	 */
+	@GetMapping(path = "/{accountId}/transactions")
+	public Mono<TransactionHistoryPage> getTransactions(@PathVariable String accountId,
+			@RequestParam(defaultValue = "0") long cursor, @RequestParam(required = false) Instant from,
+			@RequestParam(required = false) Instant to,
+			@RequestParam(defaultValue = "" + TransactionHistory.DEFAULT_PAGE_SIZE) int limit) {
+		return Mono.fromCallable(() -> this.accountsService.getTransactionHistory(accountId, cursor, from, to, limit))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+}
@@ -0,0 +1,78 @@
+package com.dws.challenge.web;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.dws.challenge.domain.BatchTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.TransactionService;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux form of {@link TransactionController}, active in the reactive
+ * profile. The transfer futures of the {@link TransactionService} are adapted
+ * to {@link Mono}, so no event loop thread waits for a transfer: the response
+ * is written when the task executor, or the store's own threads, complete it.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/v1/transaction")
+public class ReactiveTransactionController {
+
+	private final TransactionService transactionService;
+
+	private final IdempotencyCache idempotencyCache;
+
+	@Autowired
+	public ReactiveTransactionController(TransactionService transactionService, IdempotencyCache idempotencyCache) {
+		this.transactionService = transactionService;
+		this.idempotencyCache = idempotencyCache;
+	}
+
+	@PostMapping(path = "/amount", consumes = { "application/json" })
+	public Mono<ResponseEntity<Object>> transferMoney(@Valid @RequestBody TransferRequest request,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		return accepted(() -> idempotencyKey == null ? transactionService.transferBalances(request)
+				: idempotencyCache.execute(idempotencyKey, request, () -> transactionService.transferBalances(request)));
+	}
+
+	@PostMapping(path = "/batch", consumes = { "application/json" })
+	public Mono<ResponseEntity<Object>> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+		return Mono.fromFuture(() -> transactionService.transferBatch(request.getTransfers()))
+				.map(results -> new ResponseEntity<>(results, HttpStatus.ACCEPTED));
+	}
+
+	@PostMapping(path = "/multi-leg", consumes = { "application/json" })
+	public Mono<ResponseEntity<Object>> transferMultiLeg(@Valid @RequestBody MultiLegTransferRequest request) {
+		return accepted(() -> transactionService.transferMultiLeg(request));
+	}
+
+	/**
+	 * The transfer is started on subscription, so a full task executor surfaces
+	 * as an error signal answered by the GlobalExceptionHandler. Business
+	 * failures are answered with 304 Not Modified like the servlet controller
+	 */
+	private static Mono<ResponseEntity<Object>> accepted(Supplier<CompletableFuture<TransferResult>> transfer) {
+		return Mono.fromFuture(transfer).map(result -> new ResponseEntity<Object>(result, HttpStatus.ACCEPTED))
+				.onErrorResume(e -> e instanceof AccountNotExistException || e instanceof OverDraftException
+						|| e instanceof NullPointerException,
+						e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_MODIFIED)));
+	}
+}
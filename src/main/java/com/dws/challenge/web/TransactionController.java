@@ -1,19 +1,25 @@
 package com.dws.challenge.web;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.dws.challenge.domain.BatchTransferRequest;
+import com.dws.challenge.domain.MultiLegTransferRequest;
 import com.dws.challenge.domain.TransferRequest;
 import com.dws.challenge.domain.TransferResult;
 import com.dws.challenge.exception.AccountNotExistException;
 import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.service.IdempotencyCache;
 import com.dws.challenge.service.TransactionService;
 
 import jakarta.validation.Valid;
@@ -27,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
  *
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/v1/transaction")
 @Slf4j
 public class TransactionController {
@@ -34,14 +41,59 @@ public class TransactionController {
 	@Autowired
 	private TransactionService transactionService;
 
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	/**
+	 * Transfer money between two accounts. A client that retries should send the
+	 * same {@code Idempotency-Key} header, the retry is then answered with the
+	 * outcome of the first call instead of transferring again
+	 */
 	@PostMapping(path = "/amount", consumes = { "application/json" })
-	public ResponseEntity<Object> transferMoney(@Valid @RequestBody TransferRequest request) {
-		log.info("Transfer Request {}", request);
-		try {
-			CompletableFuture<TransferResult> result = transactionService.transferBalances(request);
-			return new ResponseEntity<>(result, HttpStatus.ACCEPTED);
-		} catch (AccountNotExistException | OverDraftException | NullPointerException e) {
-			return new ResponseEntity<>(e, HttpStatus.NOT_MODIFIED);
+	public CompletableFuture<ResponseEntity<Object>> transferMoney(@Valid @RequestBody TransferRequest request,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+		CompletableFuture<TransferResult> transfer = idempotencyKey == null
+				? transactionService.transferBalances(request)
+				: idempotencyCache.execute(idempotencyKey, request, () -> transactionService.transferBalances(request));
+		return transfer
+				.<ResponseEntity<Object>>thenApply(result -> new ResponseEntity<>(result, HttpStatus.ACCEPTED))
+				.exceptionally(TransactionController::notModified);
+	}
+
+	/**
+	 * Apply up to {@link BatchTransferRequest#MAX_TRANSFERS} transfers in one call.
+	 * The response holds one item per transfer with either its TransferResult or
+	 * the error code that rejected it
+	 */
+	@PostMapping(path = "/batch", consumes = { "application/json" })
+	public CompletableFuture<ResponseEntity<Object>> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+		return transactionService.transferBatch(request.getTransfers())
+				.thenApply(results -> new ResponseEntity<>(results, HttpStatus.ACCEPTED));
+	}
+
+	/**
+	 * Debit one account once and credit up to
+	 * {@link MultiLegTransferRequest#MAX_LEGS} accounts. The legs are applied all
+	 * or nothing, a rejected transfer is answered like a single transfer
+	 */
+	@PostMapping(path = "/multi-leg", consumes = { "application/json" })
+	public CompletableFuture<ResponseEntity<Object>> transferMultiLeg(
+			@Valid @RequestBody MultiLegTransferRequest request) {
+		return transactionService.transferMultiLeg(request)
+				.<ResponseEntity<Object>>thenApply(result -> new ResponseEntity<>(result, HttpStatus.ACCEPTED))
+				.exceptionally(TransactionController::notModified);
+	}
+
+	/**
+	 * Business failures of a transfer are answered with 304 Not Modified, anything
+	 * else is left to the GlobalExceptionHandler
+	 */
+	private static ResponseEntity<Object> notModified(Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		if (cause instanceof AccountNotExistException || cause instanceof OverDraftException
+				|| cause instanceof NullPointerException) {
+			return new ResponseEntity<>(cause.getMessage(), HttpStatus.NOT_MODIFIED);
 		}
+		throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
 	}
 }
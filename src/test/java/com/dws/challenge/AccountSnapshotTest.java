@@ -0,0 +1,51 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+
+public class AccountSnapshotTest {
+
+	@Test
+	public void testSnapshotsMatchTheirVersionUnderConcurrentWrites() throws Exception {
+		Account account = new Account("Id-1", BigDecimal.ZERO);
+		AtomicBoolean writing = new AtomicBoolean(true);
+
+		ExecutorService service = Executors.newFixedThreadPool(3);
+		Future<?> writer = service.submit(() -> {
+			for (int i = 1; i <= 1_000_000; i++) {
+				account.setBalance(BigDecimal.valueOf(i));
+			}
+			writing.set(false);
+		});
+		Future<?>[] readers = new Future<?>[2];
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = service.submit(() -> {
+				long lastVersion = 0;
+				while (writing.get()) {
+					AccountSnapshot snapshot = account.snapshot();
+					assertThat(snapshot.getBalance().longValueExact()).isEqualTo(snapshot.getVersion());
+					assertThat(snapshot.getVersion()).isGreaterThanOrEqualTo(lastVersion);
+					lastVersion = snapshot.getVersion();
+				}
+			});
+		}
+		writer.get(60, TimeUnit.SECONDS);
+		for (Future<?> reader : readers) {
+			reader.get(60, TimeUnit.SECONDS);
+		}
+		service.shutdown();
+
+		assertThat(account.snapshot().getVersion()).isEqualTo(1_000_000);
+	}
+}
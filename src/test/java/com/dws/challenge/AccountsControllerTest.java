@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -21,10 +22,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.context.WebApplicationContext;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferRequest;
 import com.dws.challenge.service.AccountsService;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = "challenge.history.enabled=true")
 @WebAppConfiguration
 public class AccountsControllerTest {
 
@@ -107,4 +109,58 @@ public class AccountsControllerTest {
 	void getAccountForAccountNotFoundException() throws Exception {
 		this.mockMvc.perform(get("/v1/accounts/3")).andExpect(status().isNotFound());
 	}
+
+	@Test
+	void importAccountsFromNdjson() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts/bulk").contentType(MediaType.APPLICATION_NDJSON)
+				.content("{\"accountId\":\"Id-1\",\"balance\":10}\n"
+						+ "{\"accountId\":\"Id-2\",\"balance\":-1}\n"
+						+ "{\"accountId\":\"Id-1\",\"balance\":20}\n"
+						+ "{\"accountId\":\"Id-3\",\"balance\":\"abc\"}\n"
+						+ "{\"accountId\":\"Id-4\",\"balance\":40}\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.received").value(5))
+				.andExpect(jsonPath("$.created").value(2)).andExpect(jsonPath("$.failed").value(3))
+				.andExpect(jsonPath("$.failures[0].index").value(1))
+				.andExpect(jsonPath("$.failures[1].errorMessage").value("Account id Id-1 already exists!"))
+				.andExpect(jsonPath("$.failures[2].index").value(3));
+
+		assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+		assertThat(accountsService.getAccount("Id-4").getBalance()).isEqualByComparingTo("40");
+	}
+
+	@Test
+	void importAccountsFromJsonArray() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts/bulk").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"accountId\":\"Id-1\",\"balance\":10},{\"accountId\":\"Id-2\",\"balance\":20}]"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.created").value(2));
+
+		this.mockMvc.perform(post("/v1/accounts/bulk").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"accountId\":\"Id-3\",\"balance\":10},{\"accountId\":"))
+				.andExpect(status().isBadRequest()).andExpect(jsonPath("$.created").value(1));
+
+		assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("20");
+		assertThat(accountsService.getAccount("Id-3").getBalance()).isEqualByComparingTo("10");
+	}
+
+	@Test
+	void getTransactionsPageByPage() throws Exception {
+		this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+		this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+		for (int i = 1; i <= 3; i++) {
+			accountsService.getAccountsRepository().tryTransfer(new TransferRequest("Id-1", "Id-2", BigDecimal.TEN));
+		}
+
+		this.mockMvc.perform(get("/v1/accounts/Id-1/transactions?limit=2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.entries.length()").value(2))
+				.andExpect(jsonPath("$.entries[0].counterpartyId").value("Id-2"))
+				.andExpect(jsonPath("$.entries[0].amount").value(-10))
+				.andExpect(jsonPath("$.entries[1].balanceAfter").value(80))
+				.andExpect(jsonPath("$.nextCursor").value(2));
+		this.mockMvc.perform(get("/v1/accounts/Id-1/transactions?cursor=2&limit=2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.entries[0].balanceAfter").value(70))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+		this.mockMvc.perform(get("/v1/accounts/Id-2/transactions?from=2100-01-01T00:00:00Z"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.entries").isEmpty());
+		this.mockMvc.perform(get("/v1/accounts/Id-3/transactions")).andExpect(status().isNotFound());
+	}
 }
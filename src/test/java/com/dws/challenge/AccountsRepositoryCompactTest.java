@@ -0,0 +1,64 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.AccountIdIndex;
+import com.dws.challenge.repository.AccountsRepositoryCompact;
+
+public class AccountsRepositoryCompactTest {
+
+	private final AccountsRepositoryCompact repository = new AccountsRepositoryCompact();
+
+	@Test
+	public void testTransferBalance() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100.50")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("50")));
+
+		TransferOutcome outcome = repository.tryTransfer(new TransferRequest("Id-1", "Id-2", new BigDecimal("0.50")));
+
+		assertThat(outcome.isApplied()).isTrue();
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("100");
+		assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("50.50");
+	}
+
+	@Test
+	public void testRejectedTransfers() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("10")));
+
+		assertThat(repository.tryTransfer(new TransferRequest("Id-1", "Id-2", new BigDecimal("10.01"))).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		assertThat(repository.tryTransfer(new TransferRequest("Id-1", "Id-3", BigDecimal.ONE)).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		Assertions.assertThrows(DuplicateAccountIdException.class,
+				() -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+		assertThat(repository.getAccount("Id-3")).isNull();
+	}
+
+	@Test
+	public void testIndexKeepsEveryIdWhileGrowing() {
+		AccountIdIndex ids = new AccountIdIndex();
+		for (int i = 0; i < 100_000; i++) {
+			assertThat(ids.add("Id-" + i, index -> {
+			})).isEqualTo(i);
+		}
+		assertThat(ids.add("Id-42", index -> {
+		})).isEqualTo(AccountIdIndex.NOT_FOUND);
+		for (int i = 0; i < 100_000; i++) {
+			assertThat(ids.indexOf("Id-" + i)).isEqualTo(i);
+		}
+		assertThat(ids.idOf(99_999)).isEqualTo("Id-99999");
+		assertThat(ids.indexOf("Id-100000")).isEqualTo(AccountIdIndex.NOT_FOUND);
+		assertThat(ids.size()).isEqualTo(100_000);
+	}
+}
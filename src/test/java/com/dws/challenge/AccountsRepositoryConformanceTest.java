@@ -0,0 +1,161 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryCompact;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.AccountsRepositoryLedger;
+import com.dws.challenge.repository.AccountsRepositoryMapped;
+import com.dws.challenge.repository.AccountsRepositorySharded;
+
+/**
+ * Behaviour every account store must share, run against each of them
+ */
+public class AccountsRepositoryConformanceTest {
+
+	private static final int ACCOUNTS = 16;
+
+	private static final int THREADS = 4;
+
+	private static final int TRANSFERS_PER_THREAD = 50_000;
+
+	@TempDir
+	Path directory;
+
+	private AccountsRepository repository;
+
+	static Stream<Arguments> stores() {
+		return Stream.of(store("in-memory", directory -> new AccountsRepositoryInMemory()),
+				store("split", directory -> new AccountsRepositoryInMemory(64, null, Set.of("Id-0", "Id-1"), 4)),
+				store("ledger", directory -> new AccountsRepositoryLedger()),
+				store("sharded", directory -> new AccountsRepositorySharded(4, 1024)),
+				store("compact", directory -> new AccountsRepositoryCompact(64)),
+				store("mapped", directory -> new AccountsRepositoryMapped(directory.resolve("accounts.dat"), 64, 64)));
+	}
+
+	@AfterEach
+	void shutdown() {
+		if (repository instanceof AccountsRepositorySharded) {
+			((AccountsRepositorySharded) repository).shutdown();
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("stores")
+	public void testMultiLegTransferIsAllOrNothing(String name, Function<Path, AccountsRepository> store) {
+		repository = store.apply(directory);
+		repository.createAccount(new Account("Id-0", new BigDecimal("100")));
+		List<TransferLeg> legs = new ArrayList<>();
+		for (int i = 1; i <= 8; i++) {
+			repository.createAccount(new Account("Id-" + i, BigDecimal.ZERO));
+			legs.add(new TransferLeg("Id-" + i, BigDecimal.TEN));
+		}
+
+		TransferOutcome outcome = repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs));
+		assertThat(outcome.getStatus()).isEqualTo(TransferOutcome.Status.APPLIED);
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("20");
+
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs)).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		legs.set(7, new TransferLeg("Missing", BigDecimal.ONE));
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs)).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Missing", legs)).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+
+		assertThat(repository.getAccount("Id-0").getBalance()).isEqualByComparingTo("20");
+		for (int i = 1; i <= 8; i++) {
+			assertThat(repository.getAccount("Id-" + i).getBalance()).isEqualByComparingTo("10");
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("stores")
+	public void testMultiLegTransferCanPayTheSameAccountTwice(String name, Function<Path, AccountsRepository> store) {
+		repository = store.apply(directory);
+		repository.createAccount(new Account("Id-0", new BigDecimal("30")));
+		repository.createAccount(new Account("Id-1", new BigDecimal("5")));
+
+		TransferOutcome outcome = repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0",
+				List.of(new TransferLeg("Id-1", BigDecimal.TEN), new TransferLeg("Id-1", new BigDecimal("20")))));
+
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("0");
+		assertThat(repository.getAccount("Id-0").getBalance()).isEqualByComparingTo("0");
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("35");
+	}
+
+	/**
+	 * Half of the transfers go through Id-0 or Id-1, the split accounts of the
+	 * split store, and every eighth one is a multi-leg transfer.
+	 */
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("stores")
+	public void testConcurrentTransfersConserveBalance(String name, Function<Path, AccountsRepository> store)
+			throws Exception {
+		repository = store.apply(directory);
+		for (int i = 0; i < ACCOUNTS; i++) {
+			repository.createAccount(new Account("Id-" + i, new BigDecimal("1000")));
+		}
+
+		ExecutorService service = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				service.execute(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int n = 0; n < TRANSFERS_PER_THREAD; n++) {
+						String from = "Id-" + (random.nextBoolean() ? random.nextInt(2) : random.nextInt(ACCOUNTS));
+						String to = "Id-" + random.nextInt(ACCOUNTS);
+						BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 100));
+						if (n % 8 == 0) {
+							repository.tryTransferMultiLeg(new MultiLegTransferRequest(from, List.of(
+									new TransferLeg(to, amount), new TransferLeg("Id-" + random.nextInt(2), amount))));
+						} else {
+							repository.tryTransfer(random.nextBoolean() ? new TransferRequest(from, to, amount)
+									: new TransferRequest(to, from, amount));
+						}
+					}
+				});
+			}
+			service.shutdown();
+			assertThat(service.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			service.shutdownNow();
+		}
+
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < ACCOUNTS; i++) {
+			BigDecimal balance = repository.getAccount("Id-" + i).getBalance();
+			assertThat(balance.signum()).isNotNegative();
+			total = total.add(balance);
+		}
+		assertThat(total).isEqualByComparingTo(BigDecimal.valueOf(1000L * ACCOUNTS));
+	}
+
+	private static Arguments store(String name, Function<Path, AccountsRepository> store) {
+		return Arguments.of(name, store);
+	}
+}
@@ -0,0 +1,96 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.repository.AccountsRepositoryLedger;
+
+public class AccountsRepositoryLedgerTest {
+
+	private final AccountsRepositoryLedger repository = new AccountsRepositoryLedger();
+
+	@Test
+	public void testTransferBalance() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100.50")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("50")));
+
+		TransferResult result = repository.transferBalances(new TransferRequest("Id-1", "Id-2", new BigDecimal("0.50")));
+
+		assertThat(result.getAccountFromId()).isEqualTo("Id-1");
+		assertThat(result.getBalanceAfterTransfer()).isEqualByComparingTo("100");
+		assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("50.50");
+	}
+
+	@Test
+	public void testOverdraftAndMissingAccount() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("10")));
+
+		Assertions.assertThrows(OverDraftException.class,
+				() -> repository.transferBalances(new TransferRequest("Id-1", "Id-2", new BigDecimal("10.01"))));
+		Assertions.assertThrows(AccountNotExistException.class,
+				() -> repository.transferBalances(new TransferRequest("Id-1", "Id-3", BigDecimal.ONE)));
+		Assertions.assertThrows(InvalidAmountException.class,
+				() -> repository.transferBalances(new TransferRequest("Id-1", "Id-2", new BigDecimal("0.001"))));
+		Assertions.assertThrows(DuplicateAccountIdException.class,
+				() -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+	}
+
+	@Test
+	public void testConcurrentOppositeTransfersConserveBalance() throws Exception {
+		repository.createAccount(new Account("Id-A", new BigDecimal("1000")));
+		repository.createAccount(new Account("Id-B", new BigDecimal("1000")));
+
+		ExecutorService service = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < 4; i++) {
+			boolean forward = i % 2 == 0;
+			service.execute(() -> {
+				for (int n = 0; n < 50_000; n++) {
+					try {
+						repository.transferBalances(forward ? new TransferRequest("Id-A", "Id-B", BigDecimal.ONE)
+								: new TransferRequest("Id-B", "Id-A", BigDecimal.ONE));
+					} catch (OverDraftException e) {
+						// expected once one side has been drained
+					}
+				}
+			});
+		}
+		service.shutdown();
+		assertThat(service.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(repository.getAccount("Id-A").getBalance().add(repository.getAccount("Id-B").getBalance()))
+				.isEqualByComparingTo("2000");
+	}
+
+	@Test
+	public void testBalancesThatCouldOverflowAreRejected() {
+		BigDecimal max = new BigDecimal(Long.MAX_VALUE).movePointLeft(2);
+		repository.createAccount(new Account("Id-1", max.subtract(BigDecimal.ONE)));
+
+		Assertions.assertThrows(InvalidAmountException.class,
+				() -> repository.createAccount(new Account("Id-2", new BigDecimal("1.01"))));
+		assertThat(repository.getAccount("Id-2")).isNull();
+		repository.createAccount(new Account("Id-2", BigDecimal.ONE));
+
+		TransferResult result = repository.transferBalances(new TransferRequest("Id-2", "Id-1", BigDecimal.ONE));
+		assertThat(result.getBalanceAfterTransfer()).isEqualByComparingTo("0");
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo(max);
+		Assertions.assertThrows(ArithmeticException.class, () -> repository.credit(0, 1));
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo(max);
+	}
+}
@@ -0,0 +1,103 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.AccountStoreFullException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidAccountIdException;
+import com.dws.challenge.repository.AccountsRepositoryMapped;
+
+public class AccountsRepositoryMappedTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testAccountsSurviveReopen() {
+		Path file = directory.resolve("accounts.dat");
+		AccountsRepositoryMapped repository = new AccountsRepositoryMapped(file, 16, 8);
+		repository.createAccount(new Account("Id-1", new BigDecimal("100.50")));
+		repository.createAccount(new Account("Id-é", new BigDecimal("50")));
+		TransferOutcome outcome = repository.tryTransfer(new TransferRequest("Id-1", "Id-é", new BigDecimal("0.50")));
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("100");
+		repository.force();
+
+		AccountsRepositoryMapped reopened = new AccountsRepositoryMapped(file, 1024, 8);
+
+		assertThat(reopened.getCapacity()).isEqualTo(16);
+		assertThat(reopened.getAccountCount()).isEqualTo(2);
+		assertThat(reopened.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+		assertThat(reopened.getAccount("Id-é").getBalance()).isEqualByComparingTo("50.50");
+		assertThat(reopened.version(reopened.find("Id-1"))).isEqualTo(1);
+	}
+
+	@Test
+	public void testRejectedOperations() {
+		AccountsRepositoryMapped repository = new AccountsRepositoryMapped(directory.resolve("accounts.dat"), 2, 8);
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("10")));
+
+		assertThat(repository.tryTransfer(new TransferRequest("Id-1", "Id-2", new BigDecimal("10.01"))).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		assertThat(repository.tryTransfer(new TransferRequest("Id-1", "Id-3", BigDecimal.ONE)).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		Assertions.assertThrows(DuplicateAccountIdException.class,
+				() -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+		Assertions.assertThrows(AccountStoreFullException.class,
+				() -> repository.createAccount(new Account("Id-3", BigDecimal.ONE)));
+		Assertions.assertThrows(InvalidAccountIdException.class,
+				() -> repository.createAccount(new Account("Id-".repeat(20), BigDecimal.ONE)));
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("10");
+	}
+
+	@Test
+	public void testAccountPublishedBeforeTheCountIsRecoveredOnOpen() throws Exception {
+		Path file = directory.resolve("accounts.dat");
+		AccountsRepositoryMapped repository = new AccountsRepositoryMapped(file, 16, 8);
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("20")));
+		repository.force();
+
+		// the process died after publishing Id-2 but before raising the count
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.seek(12);
+			raf.writeInt(Integer.reverseBytes(1));
+		}
+
+		AccountsRepositoryMapped reopened = new AccountsRepositoryMapped(file, 16, 8);
+		assertThat(reopened.getAccountCount()).isEqualTo(2);
+		reopened.createAccount(new Account("Id-3", new BigDecimal("30")));
+		assertThat(reopened.getAccount("Id-2").getBalance()).isEqualByComparingTo("20");
+		assertThat(reopened.getAccount("Id-3").getBalance()).isEqualByComparingTo("30");
+	}
+
+	@Test
+	public void testVersionLeftOddIsResetOnOpen() throws Exception {
+		Path file = directory.resolve("accounts.dat");
+		AccountsRepositoryMapped repository = new AccountsRepositoryMapped(file, 16, 8);
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.force();
+
+		// the process died inside a write of the first record: 16 accounts take a
+		// table of 32 slots after the 64 byte header, records start at 192
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.seek(192 + 8);
+			raf.writeLong(Long.reverseBytes(3));
+		}
+
+		AccountsRepositoryMapped reopened = new AccountsRepositoryMapped(file, 16, 8);
+		assertThat(reopened.version(reopened.find("Id-1"))).isEqualTo(2);
+		assertThat(reopened.getAccountSnapshot("Id-1").getBalance()).isEqualByComparingTo("10");
+	}
+}
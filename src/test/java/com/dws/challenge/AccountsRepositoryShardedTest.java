@@ -0,0 +1,163 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.AccountNotExistException;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.repository.AccountsRepositorySharded;
+
+public class AccountsRepositoryShardedTest {
+
+	private final AccountsRepositorySharded repository = new AccountsRepositorySharded(4, 1024);
+
+	@AfterEach
+	void shutdown() {
+		repository.shutdown();
+	}
+
+	@Test
+	public void testTransferAndFailures() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("50")));
+
+		assertThat(repository.transferBalances(new TransferRequest("Id-1", "Id-2", BigDecimal.TEN))
+				.getBalanceAfterTransfer()).isEqualByComparingTo("90");
+		assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("60");
+
+		Assertions.assertThrows(OverDraftException.class,
+				() -> repository.transferBalances(new TransferRequest("Id-1", "Id-2", new BigDecimal("91"))));
+		Assertions.assertThrows(DuplicateAccountIdException.class,
+				() -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)));
+	}
+
+	@Test
+	public void testSnapshotVersionCountsBalanceChanges() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("50")));
+		assertThat(repository.getAccountSnapshot("Id-1").getVersion()).isZero();
+
+		repository.transferBalances(new TransferRequest("Id-1", "Id-2", BigDecimal.TEN));
+		repository.transferBalances(new TransferRequest("Id-2", "Id-1", BigDecimal.ONE));
+		AccountSnapshot snapshot = repository.getAccountSnapshot("Id-1");
+		assertThat(snapshot.getBalance()).isEqualByComparingTo("91");
+		assertThat(snapshot.getVersion()).isEqualTo(2);
+		assertThat(repository.getAccountSnapshot("Missing")).isNull();
+	}
+
+	@Test
+	public void testCallersAreCompletedOffTheShardThreads() throws Exception {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		repository.createAccount(new Account("Id-2", BigDecimal.ZERO));
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "caller"));
+		try {
+			String single = repository.tryTransferAsync(new TransferRequest("Id-1", "Id-2", BigDecimal.ONE), executor)
+					.thenApply(outcome -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+			String multiLeg = repository
+					.tryTransferMultiLegAsync(new MultiLegTransferRequest("Id-1",
+							List.of(new TransferLeg("Id-2", BigDecimal.ONE))), executor)
+					.thenApply(outcome -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+			assertThat(single).doesNotStartWith("accountShard-");
+			assertThat(multiLeg).doesNotStartWith("accountShard-");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMissingTargetIsRefunded() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+
+		for (int i = 0; i < 16; i++) {
+			String missing = "Missing-" + i;
+			Assertions.assertThrows(AccountNotExistException.class,
+					() -> repository.transferBalances(new TransferRequest("Id-1", missing, BigDecimal.TEN)));
+		}
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+	}
+
+	@Test
+	public void testRequestsAfterShutdownAreRejected() {
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		repository.shutdown();
+
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			Assertions.assertThrows(RejectedExecutionException.class, () -> repository.getAccount("Id-1"));
+			Assertions.assertThrows(RejectedExecutionException.class,
+					() -> repository.transferBalances(new TransferRequest("Id-1", "Id-2", BigDecimal.TEN)));
+		});
+	}
+
+	@Test
+	public void testMultiLegTransferAcrossShards() {
+		repository.createAccount(new Account("Id-0", new BigDecimal("100")));
+		List<TransferLeg> legs = new ArrayList<>();
+		for (int i = 1; i <= 8; i++) {
+			repository.createAccount(new Account("Id-" + i, BigDecimal.ZERO));
+			legs.add(new TransferLeg("Id-" + i, BigDecimal.TEN));
+		}
+
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs)).getResult()
+				.getBalanceAfterTransfer()).isEqualByComparingTo("20");
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs)).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		legs.set(0, new TransferLeg("Missing", BigDecimal.ONE));
+		assertThat(repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", legs)).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+
+		assertThat(repository.getAccount("Id-0").getBalance()).isEqualByComparingTo("20");
+		for (int i = 1; i <= 8; i++) {
+			assertThat(repository.getAccount("Id-" + i).getBalance()).isEqualByComparingTo("10");
+		}
+	}
+
+	@Test
+	public void testConcurrentCrossShardTransfersConserveBalance() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			repository.createAccount(new Account("Id-" + i, new BigDecimal(1000)));
+		}
+
+		ExecutorService service = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			service.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 10_000; i++) {
+					try {
+						repository.transferBalances(new TransferRequest("Id-" + random.nextInt(20),
+								"Id-" + random.nextInt(20), BigDecimal.valueOf(random.nextInt(1, 300))));
+					} catch (OverDraftException e) {
+						// expected once an account has been drained
+					}
+				}
+			});
+		}
+		service.shutdown();
+		assertThat(service.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < 20; i++) {
+			total = total.add(repository.getAccount("Id-" + i).getBalance());
+		}
+		assertThat(total).isEqualByComparingTo("20000");
+	}
+}
@@ -16,8 +16,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
 import com.dws.challenge.exception.AccountNotExistException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.TransactionHistoryUnavailableException;
 import com.dws.challenge.service.AccountsService;
 
 @ExtendWith(SpringExtension.class)
@@ -67,6 +69,19 @@ public class AccountsServiceTest {
 		});
 	}
 
+	@Test
+	void getAccountSnapshot() {
+		String uniqueId = "Id-snapshot-" + System.nanoTime();
+		this.accountsService.createAccount(new Account(uniqueId, new BigDecimal("10")));
+
+		AccountSnapshot snapshot = this.accountsService.getAccountSnapshot(uniqueId);
+		this.accountsService.getAccount(uniqueId).setBalance(new BigDecimal("20"));
+
+		assertThat(snapshot.getBalance()).isEqualByComparingTo("10");
+		assertThat(this.accountsService.getAccountSnapshot(uniqueId).getBalance()).isEqualByComparingTo("20");
+		Assertions.assertThrows(AccountNotExistException.class, () -> this.accountsService.getAccountSnapshot("123"));
+	}
+
 	@Test
 	void addAccount_failsOnDuplicateId() {
 		String uniqueId = "Id-" + System.currentTimeMillis();
@@ -81,4 +96,13 @@ public class AccountsServiceTest {
 		}
 	}
 
+	@Test
+	void getTransactionHistory_failsWhenHistoryIsDisabled() {
+		String uniqueId = "Id-history-" + System.nanoTime();
+		this.accountsService.createAccount(new Account(uniqueId, BigDecimal.TEN));
+
+		Assertions.assertThrows(TransactionHistoryUnavailableException.class,
+				() -> this.accountsService.getTransactionHistory(uniqueId, 0, null, null, 10));
+	}
+
 }
@@ -0,0 +1,70 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferNotification;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.service.BatchingNotificationService;
+import com.dws.challenge.service.BatchingNotificationService.OverflowPolicy;
+import com.dws.challenge.service.NotificationService;
+
+public class BatchingNotificationServiceTest {
+
+	private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void testNotificationsOfTheSameAccountAreCoalesced() throws Exception {
+		BatchingNotificationService service = new BatchingNotificationService(
+				(account, description) -> delivered.add(account.getAccountId() + "=" + description), 1024, 512, 200,
+				OverflowPolicy.BLOCK);
+
+		TransferRequest transfer = new TransferRequest("Id-1", "Id-2", BigDecimal.TEN);
+		service.notifyAboutTransfer(TransferNotification.debited(transfer));
+		service.notifyAboutTransfer(TransferNotification.credited(transfer));
+		service.notifyAboutTransfer(TransferNotification.debited(transfer));
+		service.shutdown();
+
+		assertThat(delivered).hasSize(2);
+		assertThat(delivered.get(0)).isEqualTo("Id-1=Your account debited with Rs.10 for account id :- Id-2; "
+				+ "Your account debited with Rs.10 for account id :- Id-2");
+		assertThat(delivered.get(1)).isEqualTo("Id-2=Your account get credited with Rs.10 From :- Id-1");
+		assertThat(service.getDispatched()).isEqualTo(3);
+	}
+
+	@Test
+	public void testOverflowDropsNewestAndCountsIt() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		NotificationService slowDelegate = new NotificationService() {
+			@Override
+			public void notifyAboutTransfer(Account account, String transferDescription) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				delivered.add(account.getAccountId());
+			}
+		};
+		BatchingNotificationService service = new BatchingNotificationService(slowDelegate, 2, 1, 0,
+				OverflowPolicy.DROP_NEWEST);
+
+		for (int i = 0; i < 10; i++) {
+			service.notifyAboutTransfer(new TransferNotification("Id-" + i, "Id-X", BigDecimal.ONE,
+					TransferNotification.Direction.CREDITED));
+		}
+		release.countDown();
+		service.shutdown();
+
+		assertThat(service.getDropped()).isGreaterThanOrEqualTo(7);
+		assertThat(service.getDispatched() + service.getDropped()).isEqualTo(10);
+		assertThat(service.getQueueDepth()).isZero();
+	}
+}
@@ -0,0 +1,143 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.binary.BinaryProtocol;
+import com.dws.challenge.binary.BinaryTransferServer;
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { "challenge.binary.enabled=true", "challenge.binary.address=127.0.0.1",
+		"challenge.binary.port=0" })
+public class BinaryTransferServerTest {
+
+	@Autowired
+	AccountsService accountsService;
+
+	@Autowired
+	BinaryTransferServer binaryTransferServer;
+
+	@BeforeEach
+	void resetAccounts() {
+		accountsService.getAccountsRepository().clearAccounts();
+	}
+
+	@Test
+	public void testPipelinedTransfersAndBalanceQuery() throws Exception {
+		accountsService.createAccount(new Account("Id-1", new BigDecimal("100.00")));
+		accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+		try (SocketChannel channel = SocketChannel
+				.open(new InetSocketAddress("127.0.0.1", binaryTransferServer.getLocalPort()))) {
+			ByteBuffer requests = ByteBuffer.allocate(16 * 1024);
+			for (int i = 0; i < 120; i++) {
+				BinaryProtocol.writeTransfer(requests, i, "Id-1", "Id-2", BigDecimal.ONE);
+			}
+			BinaryProtocol.writeTransfer(requests, 1000, "Id-1", "Id-3", BigDecimal.ONE);
+			BinaryProtocol.writeTransfer(requests, 1001, "Id-1", "Id-2", new BigDecimal("-1"));
+			requests.flip();
+			while (requests.hasRemaining()) {
+				channel.write(requests);
+			}
+
+			Map<Long, Byte> statuses = new HashMap<>();
+			ByteBuffer responses = ByteBuffer.allocate(BinaryProtocol.RESPONSE_BYTES * 122);
+			while (responses.hasRemaining()) {
+				channel.read(responses);
+			}
+			responses.flip();
+			while (responses.hasRemaining()) {
+				responses.getInt();
+				assertThat(responses.get()).isEqualTo(BinaryProtocol.TRANSFER);
+				long requestId = responses.getLong();
+				statuses.put(requestId, responses.get());
+				responses.getLong();
+				responses.get();
+			}
+			assertThat(statuses).hasSize(122);
+			assertThat(statuses.values().stream().filter(status -> status == BinaryProtocol.OK)).hasSize(100);
+			assertThat(statuses.values().stream().filter(status -> status == BinaryProtocol.INSUFFICIENT_FUNDS))
+					.hasSize(20);
+			assertThat(statuses.get(1000L)).isEqualTo(BinaryProtocol.ACCOUNT_NOT_FOUND);
+			assertThat(statuses.get(1001L)).isEqualTo(BinaryProtocol.INVALID_REQUEST);
+
+			ByteBuffer query = ByteBuffer.allocate(64);
+			BinaryProtocol.writeBalance(query, 7, "Id-2");
+			query.flip();
+			channel.write(query);
+			ByteBuffer response = ByteBuffer.allocate(BinaryProtocol.RESPONSE_BYTES);
+			while (response.hasRemaining()) {
+				channel.read(response);
+			}
+			response.flip();
+			response.getInt();
+			assertThat(response.get()).isEqualTo(BinaryProtocol.BALANCE);
+			assertThat(response.getLong()).isEqualTo(7L);
+			assertThat(response.get()).isEqualTo(BinaryProtocol.OK);
+			assertThat(BinaryProtocol.readAmount(response)).isEqualByComparingTo("100");
+		}
+	}
+
+	@Test
+	public void testIdRunningPastItsFrameIsRejectedWithoutClosingTheListener() throws Exception {
+		accountsService.createAccount(new Account("Id-1", new BigDecimal("100.00")));
+
+		try (SocketChannel channel = SocketChannel
+				.open(new InetSocketAddress("127.0.0.1", binaryTransferServer.getLocalPort()))) {
+			ByteBuffer requests = ByteBuffer.allocate(256);
+			requests.putInt(BinaryProtocol.HEADER_BYTES + 2 + 3);
+			requests.put(BinaryProtocol.TRANSFER).putLong(42).putShort((short) 500).put(new byte[] { 'I', 'd', '-' });
+			BinaryProtocol.writeBalance(requests, 43, "Id-1");
+			requests.flip();
+			while (requests.hasRemaining()) {
+				channel.write(requests);
+			}
+
+			ByteBuffer responses = ByteBuffer.allocate(BinaryProtocol.RESPONSE_BYTES * 2);
+			while (responses.hasRemaining()) {
+				channel.read(responses);
+			}
+			responses.flip();
+			responses.getInt();
+			assertThat(responses.get()).isEqualTo(BinaryProtocol.TRANSFER);
+			assertThat(responses.getLong()).isEqualTo(42L);
+			assertThat(responses.get()).isEqualTo(BinaryProtocol.INVALID_REQUEST);
+			responses.getLong();
+			responses.get();
+			responses.getInt();
+			assertThat(responses.get()).isEqualTo(BinaryProtocol.BALANCE);
+			assertThat(responses.getLong()).isEqualTo(43L);
+			assertThat(responses.get()).isEqualTo(BinaryProtocol.OK);
+			assertThat(BinaryProtocol.readAmount(responses)).isEqualByComparingTo("100");
+		}
+
+		try (SocketChannel channel = SocketChannel
+				.open(new InetSocketAddress("127.0.0.1", binaryTransferServer.getLocalPort()))) {
+			ByteBuffer query = ByteBuffer.allocate(64);
+			BinaryProtocol.writeBalance(query, 7, "Id-1");
+			query.flip();
+			channel.write(query);
+			ByteBuffer response = ByteBuffer.allocate(BinaryProtocol.RESPONSE_BYTES);
+			while (response.hasRemaining()) {
+				channel.read(response);
+			}
+			assertThat(response.get(BinaryProtocol.LENGTH_BYTES + BinaryProtocol.HEADER_BYTES))
+					.isEqualTo(BinaryProtocol.OK);
+		}
+	}
+}
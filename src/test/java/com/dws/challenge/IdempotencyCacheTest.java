@@ -0,0 +1,139 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.constant.ErrorCode;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.IdempotencyKeyException;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.service.IdempotencyCache;
+
+public class IdempotencyCacheTest {
+
+	private final AtomicInteger executions = new AtomicInteger();
+
+	private final TransferRequest request = new TransferRequest("Id-1", "Id-2", BigDecimal.TEN);
+
+	private CompletableFuture<TransferResult> transfer() {
+		executions.incrementAndGet();
+		TransferResult result = new TransferResult();
+		result.setAccountFromId("Id-1");
+		result.setBalanceAfterTransfer(new BigDecimal("90"));
+		return CompletableFuture.completedFuture(result);
+	}
+
+	@Test
+	public void testRepeatReturnsStoredResult() {
+		IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.HOURS);
+
+		TransferResult first = cache.execute("key", request, this::transfer).join();
+		TransferResult second = cache.execute("key", new TransferRequest("Id-1", "Id-2", new BigDecimal("10.00")),
+				this::transfer).join();
+
+		assertThat(second).isSameAs(first);
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	public void testConcurrentDuplicatesShareExecution() {
+		IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.HOURS);
+		CompletableFuture<TransferResult> running = new CompletableFuture<>();
+
+		CompletableFuture<TransferResult> first = cache.execute("key", request, () -> {
+			executions.incrementAndGet();
+			return running;
+		});
+		CompletableFuture<TransferResult> second = cache.execute("key", request, this::transfer);
+		assertThat(second).isNotDone();
+
+		TransferResult result = new TransferResult();
+		running.complete(result);
+		assertThat(first.join()).isSameAs(result);
+		assertThat(second.join()).isSameAs(result);
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	public void testKeyReusedForAnotherTransfer() {
+		IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.HOURS);
+		cache.execute("key", request, this::transfer).join();
+
+		assertThatThrownBy(() -> cache.execute("key", new TransferRequest("Id-1", "Id-2", BigDecimal.ONE),
+				this::transfer)).isInstanceOf(IdempotencyKeyException.class);
+	}
+
+	@Test
+	public void testBusinessFailureIsStoredOtherFailuresAreNot() {
+		IdempotencyCache cache = new IdempotencyCache(10, 1, TimeUnit.HOURS);
+
+		for (int i = 0; i < 2; i++) {
+			CompletableFuture<TransferResult> overdraft = cache.execute("overdraft", request, () -> {
+				executions.incrementAndGet();
+				return CompletableFuture.failedFuture(new OverDraftException("no money", ErrorCode.ACCOUNT_ERROR));
+			});
+			assertThatThrownBy(overdraft::join).isInstanceOf(CompletionException.class)
+					.hasCauseInstanceOf(OverDraftException.class);
+		}
+		assertThat(executions).hasValue(1);
+
+		assertThatThrownBy(() -> cache.execute("busy", request, () -> {
+			throw new RejectedExecutionException();
+		})).isInstanceOf(RejectedExecutionException.class);
+		cache.execute("busy", request, this::transfer).join();
+		assertThat(executions).hasValue(2);
+	}
+
+	@Test
+	public void testEntriesAreBoundedAndExpire() throws Exception {
+		IdempotencyCache bounded = new IdempotencyCache(3, 1, TimeUnit.HOURS);
+		for (int i = 0; i < 10; i++) {
+			bounded.execute("key-" + i, request, this::transfer).join();
+		}
+		assertThat(bounded.size()).isEqualTo(3);
+		bounded.execute("key-0", request, this::transfer).join();
+		assertThat(executions).hasValue(11);
+
+		IdempotencyCache expiring = new IdempotencyCache(10, 20, TimeUnit.MILLISECONDS);
+		expiring.execute("key", request, this::transfer).join();
+		Thread.sleep(50);
+		expiring.execute("key", request, this::transfer).join();
+		assertThat(executions).hasValue(13);
+	}
+
+	@Test
+	public void testTransfersInFlightAreNeverEvicted() {
+		IdempotencyCache cache = new IdempotencyCache(2, 1, TimeUnit.HOURS);
+		CompletableFuture<TransferResult> running = new CompletableFuture<>();
+		cache.execute("in-flight", request, () -> {
+			executions.incrementAndGet();
+			return running;
+		});
+		cache.execute("key-0", request, this::transfer).join();
+		cache.execute("key-1", request, this::transfer).join();
+
+		assertThat(cache.execute("in-flight", request, this::transfer)).isNotDone();
+		assertThat(executions).hasValue(3);
+
+		IdempotencyCache full = new IdempotencyCache(1, 1, TimeUnit.HOURS);
+		full.execute("in-flight", request, () -> running);
+		assertThatThrownBy(() -> full.execute("key", request, this::transfer))
+				.isInstanceOf(RejectedExecutionException.class);
+		assertThat(full.size()).isEqualTo(1);
+
+		running.complete(new TransferResult());
+		full.execute("key", request, this::transfer).join();
+		assertThat(full.size()).isEqualTo(1);
+		assertThat(executions).hasValue(4);
+	}
+}
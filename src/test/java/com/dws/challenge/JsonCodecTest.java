@@ -0,0 +1,104 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.repository.MinorUnits;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * The hand-written codecs must read and write exactly what the reflective
+ * bean codecs did
+ */
+public class JsonCodecTest {
+
+	private final ObjectMapper streaming = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	private final ObjectMapper bean = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+
+				@Override
+				public Object findSerializer(Annotated annotated) {
+					return null;
+				}
+
+				@Override
+				public Object findDeserializer(Annotated annotated) {
+					return null;
+				}
+			});
+
+	@ParameterizedTest
+	@ValueSource(strings = { "10", "0", "-1", "100.50", "-0.0", "1e3", "1.5E-2", "12345678901234567890",
+			"1234567890123456.78", "99999999999999999999999.123", "\"10.25\"", "null" })
+	public void testAmountsKeepTheirValueAndScale(String amount) throws Exception {
+		String json = "{\"accountFromId\":\"Id-1\",\"accountToId\":\"Id-2\",\"amount\":" + amount
+				+ ",\"unknown\":{\"a\":[1,2]}}";
+		TransferRequest expected = bean.readValue(json, TransferRequest.class);
+		TransferRequest actual = streaming.readValue(json, TransferRequest.class);
+		assertThat(actual).isEqualTo(expected);
+		if (expected.getAmount() != null) {
+			assertThat(actual.getAmount().scale()).isEqualTo(expected.getAmount().scale());
+		}
+
+		json = "{\"balance\":" + amount + ",\"accountId\":\"Id-1\"}";
+		Account expectedAccount = bean.readValue(json, Account.class);
+		Account actualAccount = streaming.readValue(json, Account.class);
+		assertThat(actualAccount).isEqualTo(expectedAccount);
+	}
+
+	@Test
+	public void testMissingFieldsAndWrongTokens() throws Exception {
+		assertThat(streaming.readValue("{}", TransferRequest.class))
+				.isEqualTo(bean.readValue("{}", TransferRequest.class));
+		assertThat(streaming.readValue("{\"accountFromId\":5,\"amount\":1}", TransferRequest.class)
+				.getAccountFromId()).isEqualTo("5");
+		assertThatThrownBy(() -> streaming.readValue("[1]", Account.class))
+				.isInstanceOf(MismatchedInputException.class);
+		assertThatThrownBy(() -> streaming.readValue("{\"amount\":true}", TransferRequest.class))
+				.isInstanceOf(MismatchedInputException.class);
+	}
+
+	@Test
+	public void testWrittenFormIsUnchanged() throws Exception {
+		TransferResult result = new TransferResult();
+		result.setAccountFromId("Id-1");
+		result.setBalanceAfterTransfer(new BigDecimal("90.00"));
+		assertThat(streaming.writeValueAsString(result)).isEqualTo(bean.writeValueAsString(result))
+				.isEqualTo("{\"accountFromId\":\"Id-1\",\"balanceAfterTransfer\":90.00}");
+		assertThat(streaming.writeValueAsString(new TransferResult()))
+				.isEqualTo(bean.writeValueAsString(new TransferResult()));
+
+		AccountSnapshot snapshot = new AccountSnapshot("Id-1", new BigDecimal("1000"), 3);
+		assertThat(streaming.writeValueAsString(snapshot)).isEqualTo(bean.writeValueAsString(snapshot))
+				.isEqualTo("{\"accountId\":\"Id-1\",\"balance\":1000}");
+	}
+
+	@Test
+	public void testMinorUnitsAreScaledAndRangeChecked() {
+		assertThat(MinorUnits.of(new BigDecimal("10"))).isEqualTo(1000L);
+		assertThat(MinorUnits.of(new BigDecimal("1.230"))).isEqualTo(123L);
+		assertThat(MinorUnits.of(new BigDecimal("1E+3"))).isEqualTo(100_000L);
+		assertThat(MinorUnits.of(new BigDecimal("-92233720368547758.08"))).isEqualTo(Long.MIN_VALUE);
+		assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("1.234"))).isInstanceOf(InvalidAmountException.class);
+		assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("92233720368547758.08")))
+				.isInstanceOf(InvalidAmountException.class);
+		assertThat(MinorUnits.toBigDecimal(1250)).isEqualTo(new BigDecimal("12.50"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AccountsService;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveControllersTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@BeforeEach
+	void resetAccounts() {
+		accountsService.getAccountsRepository().clearAccounts();
+	}
+
+	@Test
+	public void testCreateAndGetAccount() {
+		post("/v1/accounts", "{\"accountId\":\"Id-123\",\"balance\":1000}").expectStatus().isCreated();
+		post("/v1/accounts", "{\"accountId\":\"Id-123\",\"balance\":1000}").expectStatus().isBadRequest();
+		post("/v1/accounts", "{\"accountId\":\"Id-124\",\"balance\":-1}").expectStatus().isBadRequest();
+
+		webTestClient.get().uri("/v1/accounts/Id-123").exchange().expectStatus().isOk().expectBody()
+				.json("{\"accountId\":\"Id-123\",\"balance\":1000}");
+	}
+
+	@Test
+	public void testTransferBalance() {
+		accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+		accountsService.createAccount(new Account("Id-2", new BigDecimal("200")));
+
+		post("/v1/transaction/amount", "{\"accountFromId\":\"Id-1\",\"accountToId\":\"Id-2\",\"amount\":10}")
+				.expectStatus().isAccepted();
+		post("/v1/transaction/amount", "{\"accountFromId\":\"Id-1\",\"accountToId\":\"Id-2\",\"amount\":1000}")
+				.expectStatus().isNotModified();
+		post("/v1/transaction/amount", "{\"accountFromId\":\"Id-1\",\"accountToId\":\"Id-3\",\"amount\":10}")
+				.expectStatus().isNotModified();
+		post("/v1/transaction/amount", "{\"accountFromId\":\"Id-1\",\"accountToId\":\"Id-2\"}").expectStatus()
+				.isBadRequest();
+
+		webTestClient.get().uri("/v1/accounts/Id-2").exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$.balance").isEqualTo(210);
+	}
+
+	@Test
+	public void testBulkImportIsStreamed() {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 20_000; i++) {
+			body.append("{\"accountId\":\"Id-").append(i).append("\",\"balance\":").append(i).append("}\n");
+		}
+
+		webTestClient.post().uri("/v1/accounts/bulk").contentType(MediaType.APPLICATION_NDJSON)
+				.bodyValue(body.toString()).exchange().expectStatus().isOk().expectBody().jsonPath("$.created")
+				.isEqualTo(20_000);
+		webTestClient.post().uri("/v1/accounts/bulk").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("[{\"accountId\":\"Id-a\",\"balance\":10},{\"accountId\":").exchange().expectStatus()
+				.isBadRequest().expectBody().jsonPath("$.created").isEqualTo(1);
+
+		webTestClient.get().uri("/v1/accounts/Id-19999").exchange().expectStatus().isOk().expectBody()
+				.jsonPath("$.balance").isEqualTo(19999);
+	}
+
+	private WebTestClient.ResponseSpec post(String uri, String body) {
+		return webTestClient.post().uri(uri).contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange();
+	}
+}
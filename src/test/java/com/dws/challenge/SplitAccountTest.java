@@ -0,0 +1,123 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountSnapshot;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+public class SplitAccountTest {
+
+	private final AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, (TransactionJournal) null,
+			Set.of("Fees", "Settlement"), 4);
+
+	@Test
+	public void testDebitBorrowsAcrossSlots() {
+		repository.createAccount(new Account("Fees", BigDecimal.ZERO));
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		for (int i = 0; i < 10; i++) {
+			assertThat(repository.tryTransfer(new TransferRequest("Id-1", "Fees", BigDecimal.TEN)).isApplied())
+					.isTrue();
+		}
+		assertThat(repository.getAccount("Fees").getBalance()).isEqualByComparingTo("100");
+
+		assertThat(repository.tryTransfer(new TransferRequest("Fees", "Id-1", new BigDecimal("100.01"))).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		TransferOutcome outcome = repository.tryTransfer(new TransferRequest("Fees", "Id-1", new BigDecimal("95")));
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("5");
+
+		outcome = repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-1",
+				List.of(new TransferLeg("Fees", BigDecimal.ONE), new TransferLeg("Settlement", BigDecimal.ONE))));
+		assertThat(outcome.getStatus()).isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		repository.createAccount(new Account("Settlement", BigDecimal.ZERO));
+		outcome = repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-1",
+				List.of(new TransferLeg("Fees", BigDecimal.ONE), new TransferLeg("Settlement", BigDecimal.ONE))));
+		assertThat(outcome.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("93");
+		assertThat(repository.getAccount("Fees").getBalance()).isEqualByComparingTo("6");
+		assertThat(repository.getAccount("Settlement").getBalance()).isEqualByComparingTo("1");
+	}
+
+	@Test
+	public void testOpeningBalanceIsPaidOutToTheLastMinorUnit() {
+		repository.createAccount(new Account("Settlement", new BigDecimal("100.03")));
+		repository.createAccount(new Account("Id-1", BigDecimal.ZERO));
+		assertThat(repository.getAccount("Settlement").getBalance()).isEqualByComparingTo("100.03");
+
+		for (int i = 0; i < 10_003; i++) {
+			assertThat(repository.tryTransfer(new TransferRequest("Settlement", "Id-1", new BigDecimal("0.01")))
+					.isApplied()).isTrue();
+		}
+		assertThat(repository.tryTransfer(new TransferRequest("Settlement", "Id-1", new BigDecimal("0.01")))
+				.getStatus()).isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		assertThat(repository.getAccount("Settlement").getBalance()).isEqualByComparingTo("0");
+		assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("100.03");
+	}
+
+	@Test
+	public void testSnapshotVersionRisesWithEveryChange() {
+		repository.createAccount(new Account("Fees", new BigDecimal("100")));
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		AccountSnapshot opened = repository.getAccountSnapshot("Fees");
+		assertThat(opened.getBalance()).isEqualByComparingTo("100");
+
+		repository.tryTransfer(new TransferRequest("Fees", "Id-1", BigDecimal.ONE));
+		AccountSnapshot debited = repository.getAccountSnapshot("Fees");
+		assertThat(debited.getBalance()).isEqualByComparingTo("99");
+		assertThat(debited.getVersion()).isGreaterThan(opened.getVersion());
+
+		repository.tryTransfer(new TransferRequest("Id-1", "Fees", BigDecimal.TEN));
+		AccountSnapshot credited = repository.getAccountSnapshot("Fees");
+		assertThat(credited.getBalance()).isEqualByComparingTo("109");
+		assertThat(credited.getVersion()).isGreaterThan(debited.getVersion());
+		assertThat(repository.getAccountSnapshot("Id-1").getVersion()).isEqualTo(2);
+	}
+
+	/**
+	 * Every transfer moves a multiple of 10, so a total read half way through
+	 * re-spreading the slots would show up as some other amount
+	 */
+	@Test
+	public void testReadsNeverSeeATornTotal() throws Exception {
+		repository.createAccount(new Account("Fees", new BigDecimal("30")));
+		repository.createAccount(new Account("Id-1", new BigDecimal("30")));
+		ExecutorService service = Executors.newFixedThreadPool(3);
+		AtomicBoolean running = new AtomicBoolean(true);
+		try {
+			for (String from : List.of("Fees", "Id-1")) {
+				String to = from.equals("Fees") ? "Id-1" : "Fees";
+				service.execute(() -> {
+					while (running.get()) {
+						repository.tryTransfer(new TransferRequest(from, to, BigDecimal.TEN));
+					}
+				});
+			}
+			Future<?> reader = service.submit(() -> {
+				for (int i = 0; i < 200_000; i++) {
+					BigDecimal balance = repository.getAccount("Fees").getBalance();
+					assertThat(balance.remainder(BigDecimal.TEN)).isEqualByComparingTo("0");
+					assertThat(balance).isBetween(BigDecimal.ZERO, new BigDecimal("60"));
+				}
+			});
+			reader.get(60, TimeUnit.SECONDS);
+		} finally {
+			running.set(false);
+			service.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.repository.StripedLockTable;
+
+public class StripedLockTableTest {
+
+	@Test
+	public void testStripeCountIsRoundedUpToPowerOfTwo() {
+		assertThat(new StripedLockTable(1).stripeCount()).isEqualTo(1);
+		assertThat(new StripedLockTable(1000).stripeCount()).isEqualTo(1024);
+		assertThat(new StripedLockTable(1024).stripeCount()).isEqualTo(1024);
+	}
+
+	@Test
+	public void testSameStripeIsTakenOnce() {
+		StripedLockTable lockTable = new StripedLockTable(1);
+		int stripe = lockTable.stripeFor("Id-1");
+		assertThat(lockTable.stripeFor("Id-2")).isEqualTo(stripe);
+
+		lockTable.lockPair(stripe, lockTable.stripeFor("Id-2"));
+		lockTable.unlockPair(stripe, lockTable.stripeFor("Id-2"));
+
+		assertThat(lockTable.isHeldByCurrentThread(stripe)).isFalse();
+		assertThat(lockTable.acquisitions()).isEqualTo(1);
+	}
+
+	@Test
+	public void testContentionIsCountedPerStripe() throws Exception {
+		StripedLockTable lockTable = new StripedLockTable(16);
+		AtomicLong waits = new AtomicLong();
+		lockTable.setWaitListener(nanos -> waits.incrementAndGet());
+		int stripe = lockTable.stripeFor("Id-1");
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			lockTable.lock(stripe);
+			locked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				lockTable.unlock(stripe);
+			}
+		});
+		holder.start();
+		assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+		Thread waiter = new Thread(() -> {
+			lockTable.lock(stripe);
+			lockTable.unlock(stripe);
+		});
+		waiter.start();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (waiter.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+		waiter.join(5000);
+		holder.join(5000);
+
+		assertThat(lockTable.contention(stripe)).isEqualTo(1);
+		assertThat(lockTable.totalContention()).isEqualTo(1);
+		assertThat(lockTable.maxContention()).isEqualTo(1);
+		assertThat(waits).hasValue(1);
+	}
+}
@@ -1,7 +1,10 @@
 package com.dws.challenge;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -13,6 +16,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.context.WebApplicationContext;
 
 import com.dws.challenge.domain.Account;
@@ -49,8 +55,7 @@ public class TransactionControllerTest {
 		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
 				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
 
-		this.mockMvc
-				.perform(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
+		performAsync(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
 						.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":10}"))
 				.andExpect(status().isAccepted());
 
@@ -86,8 +91,7 @@ public class TransactionControllerTest {
 		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
 				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
 
-		this.mockMvc
-				.perform(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
+		performAsync(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
 						.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":101}"))
 				.andExpect(status().isNotModified());
 	}
@@ -101,8 +105,7 @@ public class TransactionControllerTest {
 		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
 				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
 
-		this.mockMvc
-				.perform(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
+		performAsync(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
 						.content("{\"accountFromId\":\"Id-123412\",\"accountToId\":\"Id-1235\",\"amount\":10}"))
 				.andExpect(status().isNotModified());
 
@@ -117,10 +120,125 @@ public class TransactionControllerTest {
 		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
 				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
 
-		this.mockMvc
-				.perform(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
+		performAsync(post("/v1/transaction/amount").contentType(MediaType.APPLICATION_JSON)
 						.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-123512\",\"amount\":10}"))
 				.andExpect(status().isNotModified());
 
 	}
+
+	@Test
+	public void testBatchTransfer() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1234\",\"balance\":100}")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
+
+		performAsync(post("/v1/transaction/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"transfers\":["
+								+ "{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":60},"
+								+ "{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":60},"
+								+ "{\"accountFromId\":\"Id-1235\",\"accountToId\":\"Id-9999\",\"amount\":10},"
+								+ "{\"accountFromId\":\"Id-1235\",\"accountToId\":\"Id-1234\",\"amount\":260}]}"))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$[0].result.balanceAfterTransfer").value(40))
+				.andExpect(jsonPath("$[0].applied").doesNotExist())
+				.andExpect(jsonPath("$[1].errorCode").value("1001"))
+				.andExpect(jsonPath("$[2].errorCode").value("1001"))
+				.andExpect(jsonPath("$[3].result.balanceAfterTransfer").value(0));
+
+		assertThat(accountsService.getAccount("Id-1234").getBalance()).isEqualByComparingTo("300");
+		assertThat(accountsService.getAccount("Id-1235").getBalance()).isEqualByComparingTo("0");
+	}
+
+	@Test
+	public void testEmptyBatchTransfer() throws Exception {
+		this.mockMvc.perform(post("/v1/transaction/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"transfers\":[]}")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testMultiLegTransferIsAllOrNothing() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1234\",\"balance\":100}")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1235\",\"balance\":0}")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1236\",\"balance\":0}")).andExpect(status().isCreated());
+
+		performAsync(post("/v1/transaction/multi-leg").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFromId\":\"Id-1234\",\"legs\":["
+								+ "{\"accountToId\":\"Id-1235\",\"amount\":60},"
+								+ "{\"accountToId\":\"Id-1236\",\"amount\":50}]}"))
+				.andExpect(status().isNotModified());
+
+		performAsync(post("/v1/transaction/multi-leg").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFromId\":\"Id-1234\",\"legs\":["
+								+ "{\"accountToId\":\"Id-1235\",\"amount\":60},"
+								+ "{\"accountToId\":\"Id-9999\",\"amount\":10}]}"))
+				.andExpect(status().isNotModified());
+
+		performAsync(post("/v1/transaction/multi-leg").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFromId\":\"Id-1234\",\"legs\":["
+								+ "{\"accountToId\":\"Id-1235\",\"amount\":60},"
+								+ "{\"accountToId\":\"Id-1236\",\"amount\":40}]}"))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.balanceAfterTransfer").value(0));
+
+		assertThat(accountsService.getAccount("Id-1234").getBalance()).isEqualByComparingTo("0");
+		assertThat(accountsService.getAccount("Id-1235").getBalance()).isEqualByComparingTo("60");
+		assertThat(accountsService.getAccount("Id-1236").getBalance()).isEqualByComparingTo("40");
+	}
+
+	@Test
+	public void testRetryWithIdempotencyKeyTransfersOnce() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1234\",\"balance\":100}")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
+
+		for (int i = 0; i < 2; i++) {
+			performAsync(post("/v1/transaction/amount").header("Idempotency-Key", "retry-once")
+							.contentType(MediaType.APPLICATION_JSON)
+							.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":10}"))
+					.andExpect(status().isAccepted())
+					.andExpect(jsonPath("$.balanceAfterTransfer").value(90));
+		}
+
+		assertThat(accountsService.getAccount("Id-1234").getBalance()).isEqualByComparingTo("90");
+		assertThat(accountsService.getAccount("Id-1235").getBalance()).isEqualByComparingTo("210");
+	}
+
+	@Test
+	public void testIdempotencyKeyReusedForAnotherTransfer() throws Exception {
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1234\",\"balance\":100}")).andExpect(status().isCreated());
+
+		this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"accountId\":\"Id-1235\",\"balance\":200}")).andExpect(status().isCreated());
+
+		performAsync(post("/v1/transaction/amount").header("Idempotency-Key", "reused")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":10}"))
+				.andExpect(status().isAccepted());
+
+		this.mockMvc.perform(post("/v1/transaction/amount").header("Idempotency-Key", "reused")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"accountFromId\":\"Id-1234\",\"accountToId\":\"Id-1235\",\"amount\":20}"))
+				.andExpect(status().isUnprocessableEntity());
+
+		assertThat(accountsService.getAccount("Id-1234").getBalance()).isEqualByComparingTo("90");
+	}
+
+	/**
+	 * Transfers complete asynchronously, so the response is only available after
+	 * the async dispatch
+	 */
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult result = this.mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+		return this.mockMvc.perform(asyncDispatch(result));
+	}
 }
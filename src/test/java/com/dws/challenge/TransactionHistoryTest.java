@@ -0,0 +1,114 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.TransactionHistoryEntry;
+import com.dws.challenge.domain.TransactionHistoryPage;
+import com.dws.challenge.history.TransactionHistory;
+
+public class TransactionHistoryTest {
+
+	@Test
+	public void testPagesFollowTheCursorAcrossChunks() {
+		TransactionHistory history = new TransactionHistory(4, 0);
+		for (int i = 1; i <= 10; i++) {
+			history.recordTransfer("Id-1", new BigDecimal(100 - i), "Id-" + (i % 3 + 2), BigDecimal.valueOf(i),
+					BigDecimal.ONE);
+		}
+
+		TransactionHistoryPage page = history.getPage("Id-1", 0, Long.MIN_VALUE, Long.MAX_VALUE, 6);
+		assertThat(page.getEntries()).hasSize(6);
+		assertThat(page.getNextCursor()).isEqualTo(6L);
+		TransactionHistoryEntry first = page.getEntries().get(0);
+		assertThat(first.getCounterpartyId()).isEqualTo("Id-3");
+		assertThat(first.getAmount()).isEqualByComparingTo("-1");
+		assertThat(first.getBalanceAfter()).isEqualByComparingTo("99");
+
+		page = history.getPage("Id-1", page.getNextCursor(), Long.MIN_VALUE, Long.MAX_VALUE, 6);
+		assertThat(page.getEntries()).extracting(TransactionHistoryEntry::getSequence).containsExactly(6L, 7L, 8L,
+				9L);
+		assertThat(page.getNextCursor()).isNull();
+
+		TransactionHistoryEntry credit = history.getPage("Id-2", 0, Long.MIN_VALUE, Long.MAX_VALUE, 1).getEntries()
+				.get(0);
+		assertThat(credit.getCounterpartyId()).isEqualTo("Id-1");
+		assertThat(credit.getAmount()).isEqualByComparingTo("1");
+		assertThat(credit.getBalanceAfter()).isEqualByComparingTo("3");
+	}
+
+	@Test
+	public void testTimeRangeSeeksToFirstEntryNotBeforeFrom() throws Exception {
+		TransactionHistory history = new TransactionHistory(8, 0);
+		for (int i = 0; i < 100; i++) {
+			history.recordTransfer("Id-1", BigDecimal.ZERO, "Id-2", BigDecimal.ZERO, BigDecimal.ONE);
+		}
+		Thread.sleep(5);
+		long from = System.currentTimeMillis();
+		for (int i = 0; i < 30; i++) {
+			history.recordTransfer("Id-1", BigDecimal.ZERO, "Id-2", BigDecimal.ZERO, BigDecimal.ONE);
+		}
+		Thread.sleep(5);
+		long to = System.currentTimeMillis();
+		history.recordTransfer("Id-1", BigDecimal.ZERO, "Id-2", BigDecimal.ZERO, BigDecimal.ONE);
+
+		TransactionHistoryPage page = history.getPage("Id-1", 0, from, to, 1000);
+		assertThat(page.getEntries()).hasSize(30);
+		assertThat(page.getEntries().get(0).getSequence()).isEqualTo(100L);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	public void testConcurrentAppendsAreAllPublishedInTimestampOrder() throws Exception {
+		TransactionHistory history = new TransactionHistory(16, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			String counterparty = "Id-" + t;
+			executor.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					history.recordTransfer("Hot", BigDecimal.ZERO, counterparty, BigDecimal.ZERO, BigDecimal.ONE);
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(history.size("Hot")).isEqualTo(40_000L);
+		long cursor = 0;
+		long count = 0;
+		long lastTimestamp = Long.MIN_VALUE;
+		while (true) {
+			TransactionHistoryPage page = history.getPage("Hot", cursor, Long.MIN_VALUE, Long.MAX_VALUE,
+					TransactionHistory.MAX_PAGE_SIZE);
+			List<TransactionHistoryEntry> entries = page.getEntries();
+			for (TransactionHistoryEntry entry : entries) {
+				assertThat(entry.getSequence()).isEqualTo(count++);
+				assertThat(entry.getTimestamp().toEpochMilli()).isGreaterThanOrEqualTo(lastTimestamp);
+				lastTimestamp = entry.getTimestamp().toEpochMilli();
+			}
+			if (page.getNextCursor() == null) {
+				break;
+			}
+			cursor = page.getNextCursor();
+		}
+		assertThat(count).isEqualTo(40_000L);
+	}
+
+	@Test
+	public void testOldestChunksAreDroppedPastTheLimit() {
+		TransactionHistory history = new TransactionHistory(4, 8);
+		for (int i = 0; i < 20; i++) {
+			history.recordTransfer("Id-1", BigDecimal.ZERO, "Id-2", BigDecimal.ZERO, BigDecimal.ONE);
+		}
+		TransactionHistoryPage page = history.getPage("Id-1", 0, Long.MIN_VALUE, Long.MAX_VALUE, 100);
+		assertThat(page.getEntries().get(0).getSequence()).isEqualTo(12L);
+		assertThat(page.getEntries()).hasSize(8);
+	}
+}
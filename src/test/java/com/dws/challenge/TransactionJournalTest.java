@@ -0,0 +1,219 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.InvalidAccountIdException;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+
+public class TransactionJournalTest {
+
+	private static final int SEGMENT_SIZE = 64 * 1024;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testBalancesAreRecoveredAfterRestart() throws Exception {
+		TransactionJournal journal = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		for (int i = 0; i < 10; i++) {
+			repository.createAccount(new Account("Id-" + i, new BigDecimal("1000.50")));
+		}
+
+		ExecutorService service = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			service.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 2_000; i++) {
+					try {
+						repository.transferBalances(new TransferRequest("Id-" + random.nextInt(10),
+								"Id-" + random.nextInt(10), BigDecimal.valueOf(random.nextInt(1, 300))));
+					} catch (OverDraftException e) {
+						// expected once an account has been drained
+					}
+				}
+			});
+		}
+		service.shutdown();
+		assertThat(service.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+		journal.close();
+
+		try (Stream<Path> segments = Files.list(directory)) {
+			assertThat(segments.count()).isGreaterThan(1);
+		}
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, SEGMENT_SIZE, true));
+		for (int i = 0; i < 10; i++) {
+			assertThat(recovered.getAccount("Id-" + i).getBalance())
+					.isEqualByComparingTo(repository.getAccount("Id-" + i).getBalance());
+		}
+	}
+
+	@Test
+	public void testTornTailIsDiscarded() throws Exception {
+		TransactionJournal journal = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		repository.createAccount(new Account("Id-1", new BigDecimal("100")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("100")));
+		repository.transferBalances(new TransferRequest("Id-1", "Id-2", BigDecimal.TEN));
+		journal.close();
+
+		// a record header whose body never made it to disk
+		Path segment = directory.resolve(String.format("journal-%020d.log", 0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			long end = 0;
+			while (end + 8 <= file.length()) {
+				file.seek(end);
+				int length = file.readInt();
+				if (length == 0) {
+					break;
+				}
+				end += 8 + length;
+			}
+			file.seek(end);
+			file.writeInt(40);
+			file.writeInt(12345);
+		}
+
+		TransactionJournal reopened = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64, reopened);
+		assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("90");
+		recovered.transferBalances(new TransferRequest("Id-2", "Id-1", BigDecimal.ONE));
+		reopened.close();
+
+		AccountsRepositoryInMemory again = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, SEGMENT_SIZE, true));
+		assertThat(again.getAccount("Id-1").getBalance()).isEqualByComparingTo("91");
+		assertThat(again.getAccount("Id-2").getBalance()).isEqualByComparingTo("109");
+	}
+
+	@Test
+	public void testMultiLegTransferCutShortIsNotReplayed() throws Exception {
+		TransactionJournal journal = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		for (int i = 0; i < 4; i++) {
+			repository.createAccount(new Account("Id-" + i, new BigDecimal("100")));
+		}
+		repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0",
+				List.of(new TransferLeg("Id-1", BigDecimal.ONE), new TransferLeg("Id-2", BigDecimal.TEN))));
+		repository.tryTransferMultiLeg(new MultiLegTransferRequest("Id-0", List.of(new TransferLeg("Id-1",
+				BigDecimal.ONE), new TransferLeg("Id-2", BigDecimal.TEN), new TransferLeg("Id-3", new BigDecimal("20")))));
+		journal.close();
+
+		// the process died after writing the first leg of the last transfer
+		Path segment = directory.resolve(String.format("journal-%020d.log", 0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			long last = 0;
+			long end = 0;
+			while (end + 8 <= file.length()) {
+				file.seek(end);
+				int length = file.readInt();
+				if (length == 0) {
+					break;
+				}
+				last = end;
+				end += 8 + length;
+			}
+			long cut = last + 8 + (end - last - 8) / 2;
+			file.seek(cut);
+			file.write(new byte[(int) (end - cut)]);
+		}
+
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, SEGMENT_SIZE, true));
+		assertThat(recovered.getAccount("Id-0").getBalance()).isEqualByComparingTo("89");
+		assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("101");
+		assertThat(recovered.getAccount("Id-2").getBalance()).isEqualByComparingTo("110");
+		assertThat(recovered.getAccount("Id-3").getBalance()).isEqualByComparingTo("100");
+	}
+
+	@Test
+	public void testCheckpointTruncatesJournal() throws Exception {
+		TransactionJournal journal = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		repository.createAccount(new Account("Id-1", new BigDecimal("1000")));
+		repository.createAccount(new Account("Id-2", new BigDecimal("1000")));
+		for (int i = 0; i < 5_000; i++) {
+			repository.transferBalances(new TransferRequest("Id-1", "Id-2", new BigDecimal("0.10")));
+		}
+
+		Path snapshot = journal.checkpoint();
+		repository.transferBalances(new TransferRequest("Id-2", "Id-1", new BigDecimal("7.25")));
+		journal.close();
+
+		assertThat(snapshot).exists();
+		assertThat(directory.resolve(String.format("journal-%020d.log", 0))).doesNotExist();
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, SEGMENT_SIZE, true));
+		assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("507.25");
+		assertThat(recovered.getAccount("Id-2").getBalance()).isEqualByComparingTo("1492.75");
+	}
+
+	/**
+	 * Both lengths used to be written as signed values, so an unscaled balance
+	 * over 127 bytes could not be replayed
+	 */
+	@Test
+	public void testLongIdsAndBalancesSurviveJournalAndSnapshot() throws Exception {
+		String longId = "A".repeat(40_000);
+		BigDecimal large = new BigDecimal("9".repeat(400) + ".25");
+		BigDecimal amount = new BigDecimal("1".repeat(350));
+		TransactionJournal journal = new TransactionJournal(directory, 1 << 20, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		repository.createAccount(new Account(longId, large));
+		repository.createAccount(new Account("Id-1", large));
+		repository.transferBalances(new TransferRequest(longId, "Id-1", amount));
+		journal.close();
+
+		TransactionJournal reopened = new TransactionJournal(directory, 1 << 20, true);
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64, reopened);
+		assertThat(recovered.getAccount(longId).getBalance()).isEqualByComparingTo(large.subtract(amount));
+		assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo(large.add(amount));
+		assertThat(reopened.checkpoint()).exists();
+		recovered.transferBalances(new TransferRequest("Id-1", longId, amount));
+		reopened.close();
+
+		AccountsRepositoryInMemory again = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, 1 << 20, true));
+		assertThat(again.getAccount(longId).getBalance()).isEqualByComparingTo(large);
+		assertThat(again.getAccount("Id-1").getBalance()).isEqualByComparingTo(large);
+	}
+
+	@Test
+	public void testAccountTheJournalCanNotHoldIsRejected() throws Exception {
+		TransactionJournal journal = new TransactionJournal(directory, SEGMENT_SIZE, true);
+		AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory(64, journal);
+		String tooLong = "A".repeat(TransactionJournal.MAX_ID_BYTES + 1);
+		assertThatThrownBy(() -> repository.createAccount(new Account(tooLong, BigDecimal.ONE)))
+				.isInstanceOf(InvalidAccountIdException.class);
+		assertThat(repository.getAccount(tooLong)).isNull();
+		repository.createAccount(new Account("Id-1", BigDecimal.ONE));
+		journal.close();
+
+		AccountsRepositoryInMemory recovered = new AccountsRepositoryInMemory(64,
+				new TransactionJournal(directory, SEGMENT_SIZE, true));
+		assertThat(recovered.getAccount("Id-1").getBalance()).isEqualByComparingTo("1");
+		assertThat(recovered.getAccount(tooLong)).isNull();
+	}
+}
@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -17,6 +19,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferOutcome;
 import com.dws.challenge.domain.TransferRequest;
 import com.dws.challenge.domain.TransferResult;
 import com.dws.challenge.exception.AccountNotExistException;
@@ -24,6 +29,8 @@ import com.dws.challenge.exception.OverDraftException;
 import com.dws.challenge.service.AccountsService;
 import com.dws.challenge.service.TransactionService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import lombok.SneakyThrows;
 
 @ExtendWith(SpringExtension.class)
@@ -36,6 +43,13 @@ public class TransactionServiceTest {
 	@Autowired
 	TransactionService transactionService;
 
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private long timedTransfers(String outcome) {
+		return meterRegistry.get("transfer").tag("outcome", outcome).timer().count();
+	}
+
 	@Test
 	public void testTransferBalance() throws Exception {
 
@@ -96,13 +110,42 @@ public class TransactionServiceTest {
 		assertThat(this.accountsService.getAccount("Id-2")).isEqualTo(account2);
 
 		TransferRequest transferRequest = new TransferRequest("Id-1", "Id-2", BigDecimal.valueOf(20));
-		OverDraftException thrown = Assertions.assertThrows(OverDraftException.class, () -> {
-			transactionService.transferBalances(transferRequest);
+		CompletionException thrown = Assertions.assertThrows(CompletionException.class, () -> {
+			transactionService.transferBalances(transferRequest).join();
 		});
-		assertTrue(thrown.getMessage().contentEquals(
+		assertTrue(thrown.getCause() instanceof OverDraftException);
+		assertTrue(thrown.getCause().getMessage().contentEquals(
 				"Account with id:" + account1.getAccountId() + " does not have enough balance to transfer."));
 	}
 
+	@Test
+	public void testTryTransferReturnsRejection() throws Exception {
+		Account account1 = new Account("Id-31");
+		account1.setBalance(new BigDecimal(10));
+		this.accountsService.createAccount(account1);
+
+		TransferOutcome missing = transactionService
+				.tryTransfer(new TransferRequest("Id-31", "Id-32", BigDecimal.valueOf(5))).join();
+		assertThat(missing.getStatus()).isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		assertThat(missing.getAccountId()).isEqualTo("Id-32");
+
+		Account account2 = new Account("Id-32");
+		account2.setBalance(new BigDecimal(50));
+		this.accountsService.createAccount(account2);
+
+		TransferOutcome rejected = transactionService
+				.tryTransfer(new TransferRequest("Id-31", "Id-32", BigDecimal.valueOf(20))).join();
+		assertThat(rejected.getStatus()).isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+		assertThat(rejected.getMessage())
+				.isEqualTo("Account with id:Id-31 does not have enough balance to transfer.");
+
+		TransferOutcome applied = transactionService
+				.tryTransfer(new TransferRequest("Id-31", "Id-32", BigDecimal.valueOf(10))).join();
+		assertThat(applied.isApplied()).isTrue();
+		assertThat(applied.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("0");
+		assertThat(this.accountsService.getAccount("Id-32").getBalance()).isEqualByComparingTo("60");
+	}
+
 	@Test
 	public void testTransferBalanceWithEmptyFromId() throws Exception {
 
@@ -113,9 +156,10 @@ public class TransactionServiceTest {
 		assertThat(this.accountsService.getAccount("Id-1242")).isEqualTo(account2);
 
 		TransferRequest transferRequest = new TransferRequest("Id-1232", "Id-1242", BigDecimal.valueOf(10));
-		AccountNotExistException thrown = Assertions.assertThrows(AccountNotExistException.class, () -> {
-			transactionService.transferBalances(transferRequest);
+		CompletionException thrown = Assertions.assertThrows(CompletionException.class, () -> {
+			transactionService.transferBalances(transferRequest).join();
 		});
+		assertTrue(thrown.getCause() instanceof AccountNotExistException);
 
 	}
 
@@ -129,9 +173,10 @@ public class TransactionServiceTest {
 		assertThat(this.accountsService.getAccount("Id-1233")).isEqualTo(account1);
 
 		TransferRequest transferRequest = new TransferRequest("Id-1233", "Id-1244", BigDecimal.valueOf(10));
-		AccountNotExistException thrown = Assertions.assertThrows(AccountNotExistException.class, () -> {
-			transactionService.transferBalances(transferRequest);
+		CompletionException thrown = Assertions.assertThrows(CompletionException.class, () -> {
+			transactionService.transferBalances(transferRequest).join();
 		});
+		assertTrue(thrown.getCause() instanceof AccountNotExistException);
 
 	}
 
@@ -206,4 +251,24 @@ public class TransactionServiceTest {
 			});
 		}
 	}
+
+	@Test
+	public void testBatchAndMultiLegTransfersAreTimed() {
+		this.accountsService.createAccount(new Account("Id-Timed-1", new BigDecimal("100")));
+		this.accountsService.createAccount(new Account("Id-Timed-2", BigDecimal.ZERO));
+		long success = timedTransfers("success");
+		long overDraft = timedTransfers("overdraft");
+		long accountNotExist = timedTransfers("account_not_exist");
+
+		transactionService.transferBatch(List.of(new TransferRequest("Id-Timed-1", "Id-Timed-2", BigDecimal.TEN),
+				new TransferRequest("Id-Timed-2", "Id-Timed-1", new BigDecimal("1000")),
+				new TransferRequest("Id-Timed-1", "Id-Timed-Missing", BigDecimal.ONE))).join();
+		transactionService.tryTransferMultiLeg(new MultiLegTransferRequest("Id-Timed-1",
+				List.of(new TransferLeg("Id-Timed-2", BigDecimal.ONE), new TransferLeg("Id-Timed-2", BigDecimal.ONE))))
+				.join();
+
+		assertThat(timedTransfers("success")).isEqualTo(success + 2);
+		assertThat(timedTransfers("overdraft")).isEqualTo(overDraft + 1);
+		assertThat(timedTransfers("account_not_exist")).isEqualTo(accountNotExist + 1);
+	}
 }
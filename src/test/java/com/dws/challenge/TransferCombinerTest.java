@@ -0,0 +1,147 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.InvalidAmountException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryCompact;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.TransferCombiner;
+
+public class TransferCombinerTest {
+
+	private static final int ACCOUNTS = 10;
+
+	private static final int CALLERS = 8;
+
+	private static final int TRANSFERS_PER_CALLER = 5_000;
+
+	/**
+	 * Every so many transfers of a caller go to an account that does not exist
+	 */
+	private static final int MISSING_EVERY = 50;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	void shutdown() {
+		callers.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentTransfersAreCombinedWithoutLosingMoney() throws Exception {
+		AccountsRepository repository = new AccountsRepositoryInMemory();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			repository.createAccount(new Account("Id-" + i, new BigDecimal("1000")));
+		}
+		TransferCombiner combiner = new TransferCombiner(repository, executor, 32, 50);
+
+		Queue<CompletableFuture<TransferOutcome>> outcomes = new ConcurrentLinkedQueue<>();
+		for (int t = 0; t < CALLERS; t++) {
+			List<TransferRequest> transfers = transfersOf(t);
+			callers.execute(() -> {
+				for (TransferRequest transfer : transfers) {
+					outcomes.add(combiner.submit(transfer));
+				}
+			});
+		}
+		callers.shutdown();
+		assertThat(callers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		long applied = 0;
+		long missing = 0;
+		for (CompletableFuture<TransferOutcome> outcome : outcomes) {
+			TransferOutcome.Status status = outcome.get(30, TimeUnit.SECONDS).getStatus();
+			assertThat(status).isIn(TransferOutcome.Status.APPLIED, TransferOutcome.Status.ACCOUNT_NOT_FOUND,
+					TransferOutcome.Status.INSUFFICIENT_FUNDS);
+			applied += status == TransferOutcome.Status.APPLIED ? 1 : 0;
+			missing += status == TransferOutcome.Status.ACCOUNT_NOT_FOUND ? 1 : 0;
+		}
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < ACCOUNTS; i++) {
+			total = total.add(repository.getAccount("Id-" + i).getBalance());
+		}
+		assertThat(total).isEqualByComparingTo(BigDecimal.valueOf(1000L * ACCOUNTS));
+		assertThat(applied).isGreaterThan(0);
+		assertThat(missing).isEqualTo(CALLERS * TRANSFERS_PER_CALLER / MISSING_EVERY);
+		assertThat(combiner.getCombined()).isEqualTo(CALLERS * TRANSFERS_PER_CALLER);
+		assertThat(combiner.getPasses()).isLessThan(CALLERS * TRANSFERS_PER_CALLER);
+	}
+
+	@Test
+	public void testEachCallerGetsItsOwnOutcome() throws Exception {
+		AccountsRepository repository = new AccountsRepositoryCompact();
+		repository.createAccount(new Account("Id-1", new BigDecimal("10")));
+		repository.createAccount(new Account("Id-2", BigDecimal.ZERO));
+		TransferCombiner combiner = new TransferCombiner(repository, executor, 256, 0);
+
+		List<CompletableFuture<TransferOutcome>> outcomes = List.of(
+				combiner.submit(new TransferRequest("Id-1", "Id-2", new BigDecimal("4"))),
+				combiner.submit(new TransferRequest("Id-1", "Id-2", new BigDecimal("0.001"))),
+				combiner.submit(new TransferRequest("Id-1", "Id-3", BigDecimal.ONE)),
+				combiner.submit(new TransferRequest("Id-1", "Id-2", new BigDecimal("7"))));
+
+		TransferOutcome applied = outcomes.get(0).get(10, TimeUnit.SECONDS);
+		assertThat(applied.isApplied()).isTrue();
+		assertThat(applied.getResult().getBalanceAfterTransfer()).isEqualByComparingTo("6");
+		assertThatThrownBy(() -> outcomes.get(1).get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(InvalidAmountException.class);
+		assertThat(outcomes.get(2).get(10, TimeUnit.SECONDS).getStatus())
+				.isEqualTo(TransferOutcome.Status.ACCOUNT_NOT_FOUND);
+		assertThat(outcomes.get(3).get(10, TimeUnit.SECONDS).getStatus())
+				.isEqualTo(TransferOutcome.Status.INSUFFICIENT_FUNDS);
+	}
+
+	@Test
+	public void testTransferWithoutOutcomeFailsItsCaller() {
+		AccountsRepository repository = new AccountsRepositoryCompact() {
+
+			@Override
+			public void transferBatch(List<TransferRequest> transfers, BatchListener listener) {
+			}
+		};
+		TransferCombiner combiner = new TransferCombiner(repository, executor, 256, 0);
+
+		CompletableFuture<TransferOutcome> outcome = combiner
+				.submit(new TransferRequest("Id-1", "Id-2", BigDecimal.ONE));
+
+		assertThatThrownBy(() -> outcome.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	/**
+	 * Transfers of one caller. The payee is never the payer and every
+	 * {@link #MISSING_EVERY}th transfer goes to an account that does not exist.
+	 */
+	private static List<TransferRequest> transfersOf(int caller) {
+		List<TransferRequest> transfers = new ArrayList<>(TRANSFERS_PER_CALLER);
+		for (int i = 0; i < TRANSFERS_PER_CALLER; i++) {
+			int from = (caller + i) % ACCOUNTS;
+			int to = (from + 1 + (caller + i / ACCOUNTS) % (ACCOUNTS - 1)) % ACCOUNTS;
+			transfers.add(new TransferRequest("Id-" + from, i % MISSING_EVERY == 0 ? "Missing" : "Id-" + to,
+					new BigDecimal("2.50")));
+		}
+		return transfers;
+	}
+}
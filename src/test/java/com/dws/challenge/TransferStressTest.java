@@ -0,0 +1,96 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.exception.OverDraftException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountsService;
+
+/**
+ * Hammers the repository transfer engine from many threads with random
+ * transfers, including A->B / B->A pairs, and checks that no money is created
+ * or lost. Throughput is the business of the JMH task, see the
+ * {@code jmhMinOpsPerSecond} gate in build.gradle.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class TransferStressTest {
+
+	private static final int ACCOUNTS = 50;
+
+	private static final int THREADS = 8;
+
+	private static final int TRANSFERS_PER_THREAD = 25_000;
+
+	@Autowired
+	AccountsService accountsService;
+
+	@Test
+	public void testTotalBalanceIsConservedUnderConcurrentTransfers() throws Exception {
+		AccountsRepository repository = accountsService.getAccountsRepository();
+		List<String> accountIds = new ArrayList<>();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			String accountId = "Stress-" + i;
+			accountIds.add(accountId);
+			repository.createAccount(new Account(accountId, new BigDecimal(10_000)));
+		}
+		BigDecimal totalBefore = totalBalance(repository, accountIds);
+
+		ExecutorService service = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			workers.add(service.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+					String from = accountIds.get(random.nextInt(ACCOUNTS));
+					String to = accountIds.get(random.nextInt(ACCOUNTS));
+					try {
+						repository.transferBalances(new TransferRequest(from, to, BigDecimal.valueOf(random.nextInt(1, 500))));
+					} catch (OverDraftException e) {
+						// expected once an account has been drained
+					}
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> worker : workers) {
+			worker.get(60, TimeUnit.SECONDS);
+		}
+		service.shutdown();
+
+		assertThat(totalBalance(repository, accountIds)).isEqualByComparingTo(totalBefore);
+		for (String accountId : accountIds) {
+			assertThat(repository.getAccount(accountId).getBalance()).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+		}
+	}
+
+	private BigDecimal totalBalance(AccountsRepository repository, List<String> accountIds) {
+		BigDecimal total = BigDecimal.ZERO;
+		for (String accountId : accountIds) {
+			total = total.add(repository.getAccount(accountId).getBalance());
+		}
+		return total;
+	}
+}